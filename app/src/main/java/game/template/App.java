@@ -3,6 +3,8 @@ package game.template;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.Alert.AlertType;
@@ -13,34 +15,64 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.shape.Rectangle;
+import javafx.stage.DirectoryChooser;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Stack;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
 
 public class App extends Application {
     private static final int SIZE = 8;
     private static final int SQUARE_SIZE = 70;
+    private static final long MAX_AI_MOVE_MILLIS = 5000;
     private VBox root;
     private StackPane[][] grid = new StackPane[SIZE][SIZE];
+    // Every square keeps one piece view and one highlight for its lifetime; they are toggled, never re-created.
+    private final ImageView[][] pieceViews = new ImageView[SIZE][SIZE];
+    private final Rectangle[][] highlights = new Rectangle[SIZE][SIZE];
+    private long highlighted; // Squares whose highlight is showing
+    private Position position = Position.initial();
 
     private int selectedRow = -1;
     private int selectedCol = -1;
     private Player currentPlayer = Player.WHITE;
     private boolean playAgainstAI = false;
-    private List<String> moveHistory = new ArrayList<>();
-    private TextArea moveHistoryArea;
-    private Stack<Move> moveStack = new Stack<>();
-
-    private Timeline whiteTimer;
-    private Timeline blackTimer;
-    private int whiteTimeSeconds;
-    private int blackTimeSeconds;
-    private int timeIncrement = 0; // Increment per move
+    private final SearchPool engine = new SearchPool(Runtime.getRuntime().availableProcessors());
+    private final ExecutorService engineThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "engine");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private CompletableFuture<SearchStats> aiSearch;
+    private int aiSearchId; // Bumped on cancel so late results from an old search are ignored
+    private boolean ponder = true; // Think on the expected reply during the human's turn
+    private SearchLimits ponderLimits; // Of the running ponder search, or null
+    private int ponderMove = Moves.NONE; // The reply it assumes
+    private SearchStats ponderResult; // A ponder search that ended before the human moved
+    private long ponderStart;
+    private Label engineInfoLabel;
+    private Label metricsLabel; // Debug overlay, shown with View > Engine metrics
+    private PolyglotBook openingBook;
+    private final Random bookRandom = new Random();
+    private final List<String> moveHistory = new ArrayList<>(); // SAN of every ply played
+    private ListView<String> moveList; // One row per full move, e.g. "12. Nf3 Bg4"
+    private final int[] renderedPieces = new int[SIZE * SIZE]; // What each piece view shows
+
+    private GameClock clock = new GameClock(0, 0, 0);
+    private Timeline clockDisplay; // Polls the clock; the clock itself keeps time
     private Label whiteTimeLabel;
     private Label blackTimeLabel;
 
@@ -56,15 +88,25 @@ public class App extends Application {
         timerBox.getChildren().addAll(new Label("White: "), whiteTimeLabel, new Label("  |  Black: "), blackTimeLabel);
         root.getChildren().add(timerBox);
 
+        engineInfoLabel = new Label();
+        root.getChildren().add(engineInfoLabel);
+
         GridPane gridPane = new GridPane();
         gridPane.setPrefSize(SQUARE_SIZE * 8, SQUARE_SIZE * 8);
 
-        root.getChildren().add(gridPane);
+        // The metrics overlay floats over the board and lets clicks through to the squares.
+        metricsLabel = new Label();
+        metricsLabel.getStyleClass().add("metrics");
+        metricsLabel.setMouseTransparent(true);
+        metricsLabel.setVisible(false);
+        StackPane boardLayer = new StackPane(gridPane, metricsLabel);
+        StackPane.setAlignment(metricsLabel, Pos.TOP_LEFT);
+        root.getChildren().add(boardLayer);
 
-        moveHistoryArea = new TextArea();
-        moveHistoryArea.setEditable(false);
-        moveHistoryArea.setPrefHeight(100);
-        root.getChildren().add(moveHistoryArea);
+        moveList = new ListView<>();
+        moveList.setPrefHeight(100);
+        moveList.setFixedCellSize(28); // Lets the virtualized list skip measuring each row
+        root.getChildren().add(moveList);
 
         for (int row = 0; row < SIZE; row++) {
             for (int col = 0; col < SIZE; col++) {
@@ -93,6 +135,18 @@ public class App extends Application {
         showTimeControlDialog(primaryStage);
     }
 
+    @Override
+    public void stop() {
+        cancelAiMove();
+        engine.shutdown();
+        engineThread.shutdownNow();
+        closeOpeningBook();
+        Tablebase tablebase = engine.tablebase();
+        if (tablebase != null) {
+            tablebase.close();
+        }
+    }
+
     private StackPane createCell(int row, int col) {
         Rectangle rect = new Rectangle(SQUARE_SIZE, SQUARE_SIZE);
         if ((row + col) % 2 == 0) {
@@ -101,53 +155,45 @@ public class App extends Application {
             rect.getStyleClass().add("black-square");
         }
 
-        StackPane cell = new StackPane(rect);
+        ImageView pieceView = new ImageView();
+        pieceView.setFitWidth(SQUARE_SIZE);
+        pieceView.setFitHeight(SQUARE_SIZE);
+        pieceViews[row][col] = pieceView;
+        renderedPieces[Position.square(row, col)] = Position.NO_PIECE;
+
+        Rectangle highlight = new Rectangle(SQUARE_SIZE, SQUARE_SIZE);
+        highlight.getStyleClass().add("highlight");
+        highlight.setVisible(false);
+        highlights[row][col] = highlight;
+
+        StackPane cell = new StackPane(rect, pieceView, highlight);
         cell.setId(row + "-" + col);
         cell.setOnMouseClicked(event -> handleMouseClick(event, row, col));
 
         return cell;
     }
 
-    private void clearBoard() {
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                grid[row][col].getChildren().removeIf(child -> child instanceof ImageView);
-            }
-        }
-    }
-
     private void drawInitialBoard() {
-        clearBoard();
-
-        for (int col = 0; col < SIZE; col++) {
-            placePiece(Player.WHITE, ChessPiece.PAWN, 6, col);
-            placePiece(Player.BLACK, ChessPiece.PAWN, 1, col);
-        }
-
-        placePiece(Player.WHITE, ChessPiece.ROOK, 7, 0);
-        placePiece(Player.WHITE, ChessPiece.ROOK, 7, 7);
-        placePiece(Player.BLACK, ChessPiece.ROOK, 0, 0);
-        placePiece(Player.BLACK, ChessPiece.ROOK, 0, 7);
-
-        placePiece(Player.WHITE, ChessPiece.KNIGHT, 7, 1);
-        placePiece(Player.WHITE, ChessPiece.KNIGHT, 7, 6);
-        placePiece(Player.BLACK, ChessPiece.KNIGHT, 0, 1);
-        placePiece(Player.BLACK, ChessPiece.KNIGHT, 0, 6);
-
-        placePiece(Player.WHITE, ChessPiece.BISHOP, 7, 2);
-        placePiece(Player.WHITE, ChessPiece.BISHOP, 7, 5);
-        placePiece(Player.BLACK, ChessPiece.BISHOP, 0, 2);
-        placePiece(Player.BLACK, ChessPiece.BISHOP, 0, 5);
-
-        placePiece(Player.WHITE, ChessPiece.QUEEN, 7, 3);
-        placePiece(Player.BLACK, ChessPiece.QUEEN, 0, 3);
-
-        placePiece(Player.WHITE, ChessPiece.KING, 7, 4);
-        placePiece(Player.BLACK, ChessPiece.KING, 0, 4);
+        cancelAiMove();
+        engineInfoLabel.setText("");
+        position = Position.initial();
+        currentPlayer = position.sideToMove();
+        restartClock();
+        renderChanges();
 
         moveHistory.clear();
-        moveStack.clear();
-        updateMoveHistoryDisplay();
+        moveList.getItems().clear();
+    }
+
+    // Every redraw, even after a new game or a loaded one, only touches squares that changed.
+    private void renderChanges() {
+        for (int square = 0; square < SIZE * SIZE; square++) {
+            int code = position.pieceAt(square);
+            if (renderedPieces[square] != code) {
+                renderedPieces[square] = code;
+                pieceViews[Position.rowOf(square)][Position.colOf(square)].setImage(PieceImages.of(code));
+            }
+        }
     }
 
     private void handleMouseClick(MouseEvent event, int row, int col) {
@@ -156,18 +202,14 @@ public class App extends Application {
         }
 
         if (selectedRow == -1 && selectedCol == -1) {
-            if (grid[row][col].getChildren().stream().anyMatch(child -> child instanceof ImageView)) {
-                ImageView piece = (ImageView) grid[row][col].getChildren().stream()
-                        .filter(child -> child instanceof ImageView).findFirst().orElse(null);
-                if (piece != null) {
-                    String url = piece.getImage().getUrl();
-                    if ((currentPlayer == Player.WHITE && url.contains("/w")) || (currentPlayer == Player.BLACK && url.contains("/b"))) {
-                        selectedRow = row;
-                        selectedCol = col;
-                        highlightPossibleMoves(row, col);
-                    } else {
-                        showAlert("Not Your Turn", "It's not your turn to move this piece.");
-                    }
+            Player owner = position.ownerAt(Position.square(row, col));
+            if (owner != null) {
+                if (owner == currentPlayer) {
+                    selectedRow = row;
+                    selectedCol = col;
+                    highlightPossibleMoves(row, col);
+                } else {
+                    showAlert("Not Your Turn", "It's not your turn to move this piece.");
                 }
             }
         } else {
@@ -186,269 +228,241 @@ public class App extends Application {
     private void highlightPossibleMoves(int row, int col) {
         clearHighlights();
 
-        ImageView piece = (ImageView) grid[row][col].getChildren().stream()
-                .filter(child -> child instanceof ImageView).findFirst().orElse(null);
-
-        if (piece == null) {
+        if (position.isEmpty(Position.square(row, col))) {
             return;
         }
 
-        String url = piece.getImage().getUrl();
-        String pieceType = url.substring(url.lastIndexOf('/') + 1, url.lastIndexOf('.'));
-
-        for (int toRow = 0; toRow < SIZE; toRow++) {
-            for (int toCol = 0; toCol < SIZE; toCol++) {
-                if (isValidMove(row, col, toRow, toCol)) {
-                    Rectangle highlight = new Rectangle(SQUARE_SIZE, SQUARE_SIZE);
-                    highlight.getStyleClass().add("highlight");
-                    grid[toRow][toCol].getChildren().add(highlight);
-                }
-            }
-        }
+        highlighted = MoveGenerator.targets(position, Position.square(row, col));
+        setHighlights(highlighted, true);
     }
 
     private void clearHighlights() {
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                grid[row][col].getChildren().removeIf(child -> child.getStyleClass().contains("highlight"));
-            }
+        setHighlights(highlighted, false);
+        highlighted = 0;
+    }
+
+    private void setHighlights(long squares, boolean visible) {
+        while (squares != 0) {
+            int square = Long.numberOfTrailingZeros(squares);
+            squares &= squares - 1;
+            highlights[Position.rowOf(square)][Position.colOf(square)].setVisible(visible);
         }
     }
 
     private void switchTurn() {
         currentPlayer = (currentPlayer == Player.WHITE) ? Player.BLACK : Player.WHITE;
 
-        if (currentPlayer == Player.BLACK && playAgainstAI) {
-            aiMove();
-            currentPlayer = Player.WHITE;
+        clock.press();
+        if (checkGameOver()) {
+            clock.stop();
+            return;
         }
 
-        if (currentPlayer == Player.WHITE) {
-            startWhiteTimer();
-        } else {
-            startBlackTimer();
+        if (currentPlayer == Player.BLACK && playAgainstAI) {
+            startAiMove();
         }
     }
 
-    private void aiMove() {
-        List<int[]> validMoves = new ArrayList<>();
-
-        for (int row = 0; row < SIZE; row++) {
-            for (int col = 0; col < SIZE; col++) {
-                if (grid[row][col].getChildren().stream().anyMatch(child -> child instanceof ImageView)) {
-                    ImageView piece = (ImageView) grid[row][col].getChildren().stream()
-                            .filter(child -> child instanceof ImageView).findFirst().orElse(null);
-                    if (piece != null && piece.getImage().getUrl().contains("/b")) {
-                        for (int toRow = 0; toRow < SIZE; toRow++) {
-                            for (int toCol = 0; toCol < SIZE; toCol++) {
-                                if (isValidMove(row, col, toRow, toCol)) {
-                                    validMoves.add(new int[]{row, col, toRow, toCol});
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+    private boolean checkGameOver() {
+        if (MoveGenerator.generate(position, new int[MoveGenerator.MAX_MOVES]) > 0) {
+            return false;
         }
-
-        if (!validMoves.isEmpty()) {
-            Random rand = new Random();
-            int[] move = validMoves.get(rand.nextInt(validMoves.size()));
-            movePiece(move[0], move[1], move[2], move[3]);
+        if (MoveGenerator.isInCheck(position)) {
+            String winner = position.sideToMove() == Player.WHITE ? "Black" : "White";
+            showAlert("Checkmate", winner + " wins by checkmate!");
+        } else {
+            showAlert("Stalemate", "The game is drawn by stalemate.");
         }
+        return true;
     }
 
-    private boolean isValidMove(int fromRow, int fromCol, int toRow, int toCol) {
-        if (fromRow == toRow && fromCol == toCol) {
-            return false;
+    // The search runs on the engine thread (plus the pool's helpers); progress and the final
+    // move come back to the FX thread through Platform.runLater.
+    private void startAiMove() {
+        if (ponderLimits != null) {
+            if (position.lastMove() == ponderMove) {
+                ponderhit();
+                return;
+            }
+            cancelAiMove(); // Ponder miss: stop it and search the real position
         }
-
-        ImageView piece = (ImageView) grid[fromRow][fromCol].getChildren().stream()
-                .filter(child -> child instanceof ImageView).findFirst().orElse(null);
-
-        if (piece == null) {
-            return false;
+        if (openingBook != null) {
+            int bookMove = openingBook.pick(position, bookRandom);
+            if (bookMove != Moves.NONE) {
+                engineInfoLabel.setText("Engine: book move " + San.format(position, bookMove));
+                playMove(bookMove);
+                switchTurn();
+                return;
+            }
         }
-
-        String url = piece.getImage().getUrl();
-        String pieceType = url.substring(url.lastIndexOf('/') + 1, url.lastIndexOf('.'));
-
-        switch (pieceType) {
-            case "wpawn":
-                return validatePawnMove(fromRow, fromCol, toRow, toCol, Player.WHITE);
-            case "bpawn":
-                return validatePawnMove(fromRow, fromCol, toRow, toCol, Player.BLACK);
-            case "wrook":
-            case "brook":
-                return validateRookMove(fromRow, fromCol, toRow, toCol);
-            case "wknight":
-            case "bknight":
-                return validateKnightMove(fromRow, fromCol, toRow, toCol);
-            case "wbishop":
-            case "bbishop":
-                return validateBishopMove(fromRow, fromCol, toRow, toCol);
-            case "wqueen":
-            case "bqueen":
-                return validateQueenMove(fromRow, fromCol, toRow, toCol);
-            case "wking":
-            case "bking":
-                return validateKingMove(fromRow, fromCol, toRow, toCol);
-            default:
-                return false;
-        }
-    }
-
-    private boolean validatePawnMove(int fromRow, int fromCol, int toRow, int toCol, Player player) {
-        int direction = (player == Player.WHITE) ? -1 : 1;
-        int startRow = (player == Player.WHITE) ? 6 : 1;
-
-        if (fromCol == toCol) {
-            if (toRow == fromRow + direction) {
-                return isEmpty(toRow, toCol);
+        int id = ++aiSearchId;
+        engine.setListener(stats -> Platform.runLater(() -> {
+            if (id == aiSearchId) {
+                engineInfoLabel.setText(formatEngineInfo(stats));
             }
-            if (fromRow == startRow && toRow == fromRow + 2 * direction) {
-                return isEmpty(fromRow + direction, fromCol) && isEmpty(toRow, toCol);
+        }));
+        SearchLimits limits = clock.limits(Player.BLACK, 0, MAX_AI_MOVE_MILLIS);
+        aiSearch = engine.searchAsync(position, limits, engineThread);
+        aiSearch.whenComplete((stats, error) -> Platform.runLater(() -> {
+            if (id == aiSearchId) {
+                finishAiMove(stats, error);
             }
-        } else if (Math.abs(fromCol - toCol) == 1 && toRow == fromRow + direction) {
-            return !isEmpty(toRow, toCol) && isEnemyPiece(toRow, toCol, player);
-        }
-
-        return false;
+        }));
     }
 
-    private boolean validateRookMove(int fromRow, int fromCol, int toRow, int toCol) {
-        if (fromRow != toRow && fromCol != toCol) {
-            return false;
+    private void finishAiMove(SearchStats stats, Throwable error) {
+        aiSearch = null;
+        if (error != null) {
+            engineInfoLabel.setText("Engine error: " + error.getMessage());
+            return;
         }
-
-        int stepRow = Integer.compare(toRow, fromRow);
-        int stepCol = Integer.compare(toCol, fromCol);
-
-        int currentRow = fromRow + stepRow;
-        int currentCol = fromCol + stepCol;
-
-        while (currentRow != toRow || currentCol != toCol) {
-            if (!isEmpty(currentRow, currentCol)) {
-                return false;
-            }
-            currentRow += stepRow;
-            currentCol += stepCol;
+        if (stats.bestMove() != Moves.NONE) {
+            playMove(stats.bestMove());
         }
-
-        return true;
+        switchTurn();
+        startPondering(stats);
     }
 
-    private boolean validateKnightMove(int fromRow, int fromCol, int toRow, int toCol) {
-        int rowDiff = Math.abs(fromRow - toRow);
-        int colDiff = Math.abs(fromCol - toCol);
-
-        return (rowDiff == 2 && colDiff == 1) || (rowDiff == 1 && colDiff == 2);
-    }
-
-    private boolean validateBishopMove(int fromRow, int fromCol, int toRow, int toCol) {
-        if (Math.abs(fromRow - toRow) != Math.abs(fromCol - toCol)) {
-            return false;
+    // Searches the position after the reply the engine expects, during the human's time. The
+    // search is the engine's next move search if the human plays that reply.
+    private void startPondering(SearchStats played) {
+        int[] pv = played.principalVariation();
+        if (!ponder || !playAgainstAI || currentPlayer != Player.WHITE || aiSearch != null || pv.length < 2
+                || clock.flagged() != null || MoveGenerator.generate(position, new int[MoveGenerator.MAX_MOVES]) == 0) {
+            return;
         }
-
-        int stepRow = Integer.compare(toRow, fromRow);
-        int stepCol = Integer.compare(toCol, fromCol);
-
-        int currentRow = fromRow + stepRow;
-        int currentCol = fromCol + stepCol;
-
-        while (currentRow != toRow || currentCol != toCol) {
-            if (!isEmpty(currentRow, currentCol)) {
-                return false;
+        Position expected = new Position(position);
+        expected.makeMove(pv[1]);
+        if (openingBook != null && openingBook.pick(expected, bookRandom) != Moves.NONE) {
+            return; // The book will answer; nothing to think about
+        }
+        int id = ++aiSearchId;
+        ponderLimits = SearchLimits.infinite().withPonder();
+        ponderMove = pv[1];
+        ponderStart = System.nanoTime();
+        String pondering = "  (pondering " + San.format(position, ponderMove) + ")";
+        engine.setListener(stats -> Platform.runLater(() -> {
+            if (id == aiSearchId) {
+                engineInfoLabel.setText(formatEngineInfo(stats) + (ponderLimits != null ? pondering : ""));
+            }
+        }));
+        aiSearch = engine.searchAsync(expected, ponderLimits, engineThread);
+        aiSearch.whenComplete((result, error) -> Platform.runLater(() -> {
+            if (id != aiSearchId) {
+                return;
             }
-            currentRow += stepRow;
-            currentCol += stepCol;
+            if (ponderLimits != null && error == null) {
+                ponderResult = result; // Ended on its own (mate found, depth limit); kept for a hit
+                aiSearch = null;
+            } else {
+                finishAiMove(result, error);
+            }
+        }));
+    }
+
+    // The human played the expected reply: the ponder search goes on under the clock's limits.
+    // Half the time already pondered counts against the soft limit, so a hit answers sooner.
+    private void ponderhit() {
+        SearchLimits limits = clock.limits(Player.BLACK, 0, MAX_AI_MOVE_MILLIS);
+        long ponderedMillis = (System.nanoTime() - ponderStart) / 1_000_000;
+        long soft = Math.max(limits.softTimeMillis() / 4, limits.softTimeMillis() - ponderedMillis / 2);
+        ponderLimits.ponderhit(soft, limits.hardTimeMillis());
+        ponderLimits = null;
+        ponderMove = Moves.NONE;
+        SearchStats finished = ponderResult;
+        ponderResult = null;
+        if (finished != null) {
+            finishAiMove(finished, null);
         }
-
-        return true;
     }
 
-    private boolean validateQueenMove(int fromRow, int fromCol, int toRow, int toCol) {
-        return validateRookMove(fromRow, fromCol, toRow, toCol) || validateBishopMove(fromRow, fromCol, toRow, toCol);
+    private void cancelAiMove() {
+        if (aiSearch != null) {
+            aiSearchId++;
+            engine.stop();
+            aiSearch = null;
+        }
+        ponderLimits = null;
+        ponderMove = Moves.NONE;
+        ponderResult = null;
     }
 
-    private boolean validateKingMove(int fromRow, int fromCol, int toRow, int toCol) {
-        return Math.abs(fromRow - toRow) <= 1 && Math.abs(fromCol - toCol) <= 1;
+    private static String formatEngineInfo(SearchStats stats) {
+        String score = stats.isMate() ? "mate " + stats.mateIn() : String.format("%+.2f", stats.score() / 100.0);
+        String tablebase = stats.tablebaseProbes() == 0 ? ""
+                : String.format("  tb %d/%d (%.0f%%)", stats.tablebaseHits(), stats.tablebaseProbes(),
+                        100 * stats.tablebaseHitRate());
+        return String.format("Engine: depth %d  score %s  %d kn/s%s  pv %s",
+                stats.depth(), score, stats.nodesPerSecond() / 1000, tablebase, stats.principalVariationString());
     }
 
-    private boolean isEmpty(int row, int col) {
-        return grid[row][col].getChildren().stream().noneMatch(child -> child instanceof ImageView);
+    private boolean isValidMove(int fromRow, int fromCol, int toRow, int toCol) {
+        int from = Position.square(fromRow, fromCol);
+        return position.ownerAt(from) == position.sideToMove()
+                && (MoveGenerator.targets(position, from) & (1L << Position.square(toRow, toCol))) != 0;
     }
 
-    private boolean isEnemyPiece(int row, int col, Player player) {
-        ImageView piece = (ImageView) grid[row][col].getChildren().stream()
-                .filter(child -> child instanceof ImageView).findFirst().orElse(null);
+    private void movePiece(int fromRow, int fromCol, int toRow, int toCol) {
+        int move = MoveGenerator.find(position, Position.square(fromRow, fromCol), Position.square(toRow, toCol));
 
-        if (piece == null) {
-            return false;
+        if (move != Moves.NONE) {
+            playMove(move);
         }
-
-        String url = piece.getImage().getUrl();
-        return (player == Player.WHITE && url.contains("/b")) || (player == Player.BLACK && url.contains("/w"));
     }
 
-    private void movePiece(int fromRow, int fromCol, int toRow, int toCol) {
-        ImageView piece = (ImageView) grid[fromRow][fromCol].getChildren().stream()
-                .filter(child -> child instanceof ImageView).findFirst().orElse(null);
-
-        if (piece != null) {
-            // Capture logic: remove the piece at the destination if it belongs to the opponent
-            if (grid[toRow][toCol].getChildren().stream().anyMatch(child -> child instanceof ImageView)) {
-                ImageView capturedPiece = (ImageView) grid[toRow][toCol].getChildren().stream()
-                        .filter(child -> child instanceof ImageView).findFirst().orElse(null);
-                if (capturedPiece != null && isEnemyPiece(toRow, toCol, currentPlayer)) {
-                    grid[toRow][toCol].getChildren().remove(capturedPiece);
-                }
-            }
+    private void playMove(int move) {
+        makeAndLogMove(move);
+        renderChanges();
+    }
 
-            grid[toRow][toCol].getChildren().add(piece);
-            grid[fromRow][fromCol].getChildren().remove(piece);
-            moveStack.push(new Move(fromRow, fromCol, toRow, toCol, piece)); // Save the move to the stack
-            logMove(fromRow, fromCol, toRow, toCol, piece);
-        }
+    // SAN depends on the position the move is played from, so it is formatted first.
+    private void makeAndLogMove(int move) {
+        String san = San.format(position, move);
+        Player mover = position.sideToMove();
+        int moveNumber = position.fullmoveNumber();
+        position.makeMove(move); // The position keeps the move on its undo stack
+        logMove(san, mover, moveNumber);
     }
 
     private void undoMove() {
-        if (!moveStack.isEmpty()) {
-            Move lastMove = moveStack.pop();
-            ImageView piece = (ImageView) grid[lastMove.toRow][lastMove.toCol].getChildren().stream()
-                    .filter(child -> child instanceof ImageView).findFirst().orElse(null);
-
-            if (piece != null) {
-                grid[lastMove.fromRow][lastMove.fromCol].getChildren().add(piece);
-                grid[lastMove.toRow][lastMove.toCol].getChildren().remove(piece);
-                moveHistory.remove(moveHistory.size() - 1); // Remove the last move from the history
-                updateMoveHistoryDisplay();
-                switchTurn(); // Switch turn back
+        cancelAiMove();
+        // Against the AI, take back the AI's reply as well so it is the human's turn again.
+        int plies = playAgainstAI && position.sideToMove() == Player.WHITE ? 2 : 1;
+        if (position.ply() >= plies) {
+            for (int i = 0; i < plies; i++) {
+                position.unmakeMove();
+                unlogMove();
             }
+            renderChanges();
+            currentPlayer = position.sideToMove();
+            clock.start(currentPlayer);
         }
     }
 
-    private void logMove(int fromRow, int fromCol, int toRow, int toCol, ImageView piece) {
-        String pieceType = piece.getImage().getUrl().substring(piece.getImage().getUrl().lastIndexOf('/') + 1, piece.getImage().getUrl().lastIndexOf('.'));
-        String move = String.format("%s: %s (%d, %d) -> (%d, %d)", currentPlayer, pieceType, fromRow, fromCol, toRow, toCol);
-        moveHistory.add(move);
-        updateMoveHistoryDisplay();
-    }
-
-    private void updateMoveHistoryDisplay() {
-        moveHistoryArea.setText(String.join("\n", moveHistory));
-    }
-
-    private void placePiece(Player player, ChessPiece piece, int row, int col) {
-        String imageName = (player == Player.WHITE ? "w" : "b") + piece.toString().toLowerCase() + ".png";
-        ImageView image = loadImage(imageName);
-        grid[row][col].getChildren().add(image);
-        image.setFitWidth(SQUARE_SIZE);
-        image.setFitHeight(SQUARE_SIZE);
-    }
-
-    private ImageView loadImage(String name) {
-        return new ImageView(getClass().getResource("/assets/" + name).toExternalForm());
+    // Both history updates touch only the last row, so each move costs the same however long the game.
+    private void logMove(String san, Player mover, int moveNumber) {
+        List<String> rows = moveList.getItems();
+        if (mover == Player.WHITE || rows.isEmpty()) {
+            rows.add(moveNumber + (mover == Player.WHITE ? ". " : "... ") + san);
+        } else {
+            int last = rows.size() - 1;
+            rows.set(last, rows.get(last) + " " + san);
+        }
+        moveHistory.add(san);
+        moveList.scrollTo(rows.size() - 1);
+    }
+
+    private void unlogMove() {
+        String san = moveHistory.remove(moveHistory.size() - 1);
+        List<String> rows = moveList.getItems();
+        int last = rows.size() - 1;
+        String row = rows.get(last);
+        // A black move shares its row with white's unless the game started with black to move.
+        if (position.sideToMove() == Player.BLACK && !row.contains("...")) {
+            rows.set(last, row.substring(0, row.length() - san.length() - 1));
+        } else {
+            rows.remove(last);
+        }
     }
 
     private MenuBar createMenuBar() {
@@ -458,13 +472,21 @@ public class App extends Application {
         Menu fileMenu = new Menu("File");
 
         addMenuItem(fileMenu, "Load from file", () -> {
-            System.out.println("Load from file");
+            loadFromFile();
         });
 
         addMenuItem(fileMenu, "Initial Board", () -> {
             drawInitialBoard();
         });
 
+        addMenuItem(fileMenu, "Load opening book", () -> {
+            loadOpeningBook();
+        });
+
+        addMenuItem(fileMenu, "Load tablebases", () -> {
+            loadTablebases();
+        });
+
         Menu UndoMenu = new Menu("Undo");
         addMenuItem(UndoMenu, "Undo", () -> {
             undoMove();
@@ -479,12 +501,130 @@ public class App extends Application {
             playAgainstAI = true;
             drawInitialBoard();
         });
+        addMenuItem(gameModeMenu, "Toggle Pondering", () -> {
+            ponder = !ponder;
+            if (!ponder && ponderLimits != null) {
+                cancelAiMove();
+            }
+        });
 
-        menuBar.getMenus().addAll(fileMenu, gameModeMenu, UndoMenu);
+        Menu viewMenu = new Menu("View");
+        addMenuItem(viewMenu, "Engine metrics", () -> {
+            toggleMetrics();
+        });
+
+        menuBar.getMenus().addAll(fileMenu, gameModeMenu, UndoMenu, viewMenu);
 
         return menuBar;
     }
 
+    private void loadFromFile() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Load Game or Position");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("PGN and FEN files", "*.pgn", "*.fen", "*.epd"),
+                new FileChooser.ExtensionFilter("All files", "*.*"));
+        File file = chooser.showOpenDialog(root.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        Path path = file.toPath();
+        try {
+            if (file.getName().toLowerCase().endsWith(".pgn")) {
+                // Only the first game is needed, so the reader stops long before the end of an archive.
+                try (PgnReader reader = PgnReader.open(path)) {
+                    PgnGame game = reader.next();
+                    if (game == null) {
+                        String reason = reader.lastError() == null ? "The file contains no games." : reader.lastError();
+                        showAlert("Load Failed", reason);
+                        return;
+                    }
+                    loadGame(game.startPosition(), game.moves());
+                }
+            } else {
+                String fen;
+                try (Stream<String> lines = Files.lines(path)) {
+                    fen = lines.map(String::trim).filter(line -> !line.isEmpty()).findFirst().orElse("");
+                }
+                loadGame(Fen.parse(Fen.fromEpd(fen)), new int[0]);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            showAlert("Load Failed", e.getMessage());
+        }
+    }
+
+    private void loadOpeningBook() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Load Polyglot Opening Book");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Polyglot books", "*.bin"));
+        File file = chooser.showOpenDialog(root.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        try {
+            PolyglotBook book = PolyglotBook.open(file.toPath());
+            closeOpeningBook();
+            openingBook = book;
+            engineInfoLabel.setText(String.format("Opening book: %s, %d entries", file.getName(), book.size()));
+        } catch (IOException e) {
+            showAlert("Load Failed", e.getMessage());
+        }
+    }
+
+    // The pool is only reconfigured between searches, so the swap is queued on the engine thread.
+    private void loadTablebases() {
+        DirectoryChooser chooser = new DirectoryChooser();
+        chooser.setTitle("Load Tablebase Directory");
+        File directory = chooser.showDialog(root.getScene().getWindow());
+        if (directory == null) {
+            return;
+        }
+        try {
+            Tablebase tablebase = Tablebase.open(directory.toPath());
+            engineThread.execute(() -> {
+                Tablebase previous = engine.tablebase();
+                engine.setTablebase(tablebase, 1);
+                if (previous != null) {
+                    previous.close();
+                }
+            });
+            engineInfoLabel.setText(String.format("Tablebases: %d tables up to %d pieces", tablebase.size(),
+                    tablebase.maxPieces()));
+        } catch (IOException e) {
+            showAlert("Load Failed", e.getMessage());
+        }
+    }
+
+    private void closeOpeningBook() {
+        if (openingBook != null) {
+            try {
+                openingBook.close();
+            } catch (IOException e) {
+                // Read-only mapping; nothing is lost if closing fails.
+            }
+            openingBook = null;
+        }
+    }
+
+    private void loadGame(Position start, int[] moves) {
+        cancelAiMove();
+        engineInfoLabel.setText("");
+        position = start;
+        moveHistory.clear();
+        moveList.getItems().clear();
+        for (int move : moves) {
+            makeAndLogMove(move);
+        }
+        renderChanges();
+
+        currentPlayer = position.sideToMove();
+        restartClock();
+        if (!checkGameOver() && currentPlayer == Player.BLACK && playAgainstAI) {
+            startAiMove();
+        }
+    }
+
     private void addMenuItem(Menu menu, String name, Runnable action) {
         MenuItem menuItem = new MenuItem(name);
         menuItem.setOnAction(event -> action.run());
@@ -499,44 +639,72 @@ public class App extends Application {
         alert.showAndWait();
     }
 
-    private void startWhiteTimer() {
-        if (blackTimer != null) {
-            blackTimer.stop();
+    // A new or loaded game gets full time and no flag, and the display runs again if a flag fall stopped it.
+    private void restartClock() {
+        clock.reset();
+        clock.start(currentPlayer);
+        if (clockDisplay != null) {
+            startClockDisplay();
         }
-        if (whiteTimer == null) {
-            whiteTimer = new Timeline(new KeyFrame(Duration.seconds(1), e -> {
-                whiteTimeSeconds--;
-                whiteTimeLabel.setText(formatTime(whiteTimeSeconds));
-                if (whiteTimeSeconds <= 0) {
-                    showAlert("Time's Up!", "Black wins by timeout!");
-                }
-            }));
-            whiteTimer.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    // A tenth of a second is enough for the display; flag falls are caught to within one poll.
+    private void startClockDisplay() {
+        if (clockDisplay == null) {
+            clockDisplay = new Timeline(new KeyFrame(Duration.millis(100), e -> updateClockDisplay()));
+            clockDisplay.setCycleCount(Timeline.INDEFINITE);
         }
-        whiteTimer.play();
+        updateClockDisplay();
+        clockDisplay.play();
+    }
+
+    // Showing the overlay turns the counters on; hiding it turns them off again.
+    private void toggleMetrics() {
+        boolean show = !metricsLabel.isVisible();
+        EngineMetrics.setEnabled(show);
+        metricsLabel.setVisible(show);
+        updateMetrics();
     }
 
-    private void startBlackTimer() {
-        if (whiteTimer != null) {
-            whiteTimer.stop();
+    private void updateMetrics() {
+        if (!metricsLabel.isVisible()) {
+            return;
         }
-        if (blackTimer == null) {
-            blackTimer = new Timeline(new KeyFrame(Duration.seconds(1), e -> {
-                blackTimeSeconds--;
-                blackTimeLabel.setText(formatTime(blackTimeSeconds));
-                if (blackTimeSeconds <= 0) {
-                    showAlert("Time's Up!", "White wins by timeout!");
-                }
-            }));
-            blackTimer.setCycleCount(Timeline.INDEFINITE);
+        Map<String, Number> metrics = EngineMetrics.snapshot();
+        metricsLabel.setText(String.format(
+                "searches %d  nodes %d  qnodes %d  EBF %.2f  iteration p50 %.1f ms%n"
+                        + "TT hits %.1f%%  TT cutoffs %d  first-move cutoffs %.1f%%  movegen p50 %d ns  eval p50 %d ns",
+                metrics.get("searches").longValue(), metrics.get("nodes").longValue(),
+                metrics.get("qnodes").longValue(),
+                metrics.get("branching_factor").doubleValue(), metrics.get("iteration_p50_us").longValue() / 1000.0,
+                100 * metrics.get("tt_hit_rate").doubleValue(), metrics.get("tt_cutoffs").longValue(),
+                100 * metrics.get("first_move_cutoff_rate").doubleValue(), metrics.get("movegen_p50_ns").longValue(),
+                metrics.get("eval_p50_ns").longValue()));
+    }
+
+    private void updateClockDisplay() {
+        updateMetrics();
+        whiteTimeLabel.setText(formatTime(clock.remainingMillis(Player.WHITE)));
+        blackTimeLabel.setText(formatTime(clock.remainingMillis(Player.BLACK)));
+        Player flagged = clock.flagged();
+        if (flagged != null) {
+            clock.stop();
+            clockDisplay.stop();
+            cancelAiMove();
+            String winner = flagged == Player.WHITE ? "Black" : "White";
+            // showAndWait is not allowed while the timeline is being processed
+            Platform.runLater(() -> showAlert("Time's Up!", winner + " wins by timeout!"));
         }
-        blackTimer.play();
     }
 
-    private String formatTime(int totalSeconds) {
-        int minutes = totalSeconds / 60;
-        int seconds = totalSeconds % 60;
-        return String.format("%02d:%02d", minutes, seconds);
+    // Tenths of a second show once under ten seconds.
+    private static String formatTime(long millis) {
+        millis = Math.max(0, millis);
+        if (millis < 10_000) {
+            return String.format("%02d.%d", millis / 1000, millis % 1000 / 100);
+        }
+        long totalSeconds = millis / 1000;
+        return String.format("%02d:%02d", totalSeconds / 60, totalSeconds % 60);
     }
 
     private void showTimeControlDialog(Stage primaryStage) {
@@ -548,27 +716,28 @@ public class App extends Application {
         TextField timeField = new TextField("10");
         Label incrementLabel = new Label("Increment (seconds): ");
         TextField incrementField = new TextField("0");
+        Label delayLabel = new Label("Delay (seconds): ");
+        TextField delayField = new TextField("0");
 
         GridPane grid = new GridPane();
         grid.add(timeLabel, 0, 0);
         grid.add(timeField, 1, 0);
         grid.add(incrementLabel, 0, 1);
         grid.add(incrementField, 1, 1);
+        grid.add(delayLabel, 0, 2);
+        grid.add(delayField, 1, 2);
         dialog.getDialogPane().setContent(grid);
 
         dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
 
         dialog.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                int initialTime = Integer.parseInt(timeField.getText()) * 60;
-                int increment = Integer.parseInt(incrementField.getText());
-                whiteTimeSeconds = initialTime;
-                blackTimeSeconds = initialTime;
-                timeIncrement = increment;
-                whiteTimeLabel.setText(formatTime(whiteTimeSeconds));
-                blackTimeLabel.setText(formatTime(blackTimeSeconds));
+                long initialTime = Long.parseLong(timeField.getText()) * 60_000;
+                long increment = Long.parseLong(incrementField.getText()) * 1000;
+                long delay = Long.parseLong(delayField.getText()) * 1000;
+                clock.reset(initialTime, increment, delay);
                 drawInitialBoard();
-                startWhiteTimer();
+                startClockDisplay();
             } else {
                 primaryStage.close();
             }
@@ -579,18 +748,3 @@ public class App extends Application {
         launch(args);
     }
 }
-
-class Move {
-    int fromRow, fromCol, toRow, toCol;
-    ImageView piece;
-
-    public Move(int fromRow, int fromCol, int toRow, int toCol, ImageView piece) {
-        this.fromRow = fromRow;
-        this.fromCol = fromCol;
-        this.toRow = toRow;
-        this.toCol = toCol;
-        this.piece = piece;
-    }
-}
-
-
@@ -0,0 +1,311 @@
+package game.template;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Headless batch analysis. Positions are queued with {@link #submit} and searched by a fixed
+ * pool of workers, each with its own {@link Search} (so its own killers, history and buffers)
+ * over one shared {@link TranspositionTable}, aged once for the whole batch so entries from one
+ * position still help the next on any worker. The queue is bounded, so a producer that reads
+ * faster than the workers search simply blocks. Every result is written as one JSON line as
+ * soon as it is ready, tagged with the position's input {@code id}, so output order follows
+ * completion rather than input. A position that does not parse, or whose search throws,
+ * gets a line with an {@code error} field instead, and the batch goes on.
+ *
+ * <p>The command line reads FEN or EPD lines (an EPD {@code id} is echoed back) or, for a
+ * {@code .pgn} file, every position of every game, from a file or standard input ({@code -}).
+ * Usage: {@code BatchAnalyzer input [depth] [threads] [hashMb] [nodes]}; a throughput
+ * summary goes to standard error.
+ */
+public final class BatchAnalyzer implements Closeable {
+    private static final Job END = new Job(-1, null, null, -1, -1);
+    private static final Pattern EPD_ID = Pattern.compile("\\bid\\s+\"([^\"]*)\"");
+
+    private final SearchLimits limits;
+    private final Writer out;
+    private final BlockingQueue<Job> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private final TranspositionTable table;
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicLong analyzed = new AtomicLong();
+    private final AtomicLong nodes = new AtomicLong();
+    private volatile Throwable failure;
+    private boolean finished;
+
+    /** Starts {@code threads} workers that search within {@code limits} and write to {@code out}. */
+    public BatchAnalyzer(int threads, int hashMegabytes, SearchLimits limits, Writer out) {
+        this.limits = limits;
+        this.out = out;
+        threads = Math.max(1, threads);
+        table = new TranspositionTable(hashMegabytes);
+        table.newSearch();
+        queue = new ArrayBlockingQueue<>(4 * threads);
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::work, "batch-worker-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String input = args.length > 0 ? args[0] : "-";
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int hash = args.length > 3 ? Integer.parseInt(args[3]) : TranspositionTable.DEFAULT_MEGABYTES * threads;
+        long nodeLimit = args.length > 4 ? Long.parseLong(args[4]) : 0;
+        SearchLimits limits = SearchLimits.depth(depth).withNodes(nodeLimit);
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        long start = System.nanoTime();
+        long positions;
+        long totalNodes;
+        try (BatchAnalyzer analyzer = new BatchAnalyzer(threads, hash, limits, out)) {
+            if (input.toLowerCase().endsWith(".pgn")) {
+                analyzer.submitGames(Paths.get(input));
+            } else if (input.equals("-")) {
+                analyzer.submitLines(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
+            } else {
+                try (BufferedReader reader = Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8)) {
+                    analyzer.submitLines(reader);
+                }
+            }
+            positions = analyzer.finish();
+            totalNodes = analyzer.nodes();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d positions in %.1f s: %.1f positions/s, %.0f nodes/s, %d threads%n", positions, seconds,
+                positions / seconds, totalNodes / seconds, threads);
+    }
+
+    /** Queues every FEN or EPD line of {@code reader}; blank lines and {@code #} comments are skipped. */
+    public void submitLines(BufferedReader reader) throws IOException, InterruptedException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            Matcher id = EPD_ID.matcher(line);
+            submit(Fen.fromEpd(line), id.find() ? id.group(1) : null, -1, -1);
+        }
+    }
+
+    /** Queues every position of every game in a PGN file, from the start position to the final one. */
+    public void submitGames(Path pgn) throws IOException, InterruptedException {
+        try (PgnReader reader = PgnReader.open(pgn)) {
+            PgnGame game;
+            int index = 0;
+            while ((game = reader.next()) != null) {
+                Position position = game.startPosition();
+                for (int ply = 0; ; ply++) {
+                    submit(Fen.format(position), null, index, ply);
+                    if (ply == game.moveCount()) {
+                        break;
+                    }
+                    position.makeMove(game.move(ply));
+                }
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Queues one position and returns its id, blocking while the queue is full. {@code label}
+     * (or null) is echoed as {@code "label"}; {@code game} and {@code ply} are echoed when not
+     * negative.
+     */
+    public long submit(String fen, String label, int game, int ply) throws InterruptedException {
+        long id = nextId.getAndIncrement();
+        enqueue(new Job(id, fen, label, game, ply));
+        return id;
+    }
+
+    /** Waits for every queued position to be written, stops the workers and returns how many were analyzed. */
+    public long finish() throws InterruptedException {
+        if (!finished) {
+            finished = true;
+            for (int i = 0; i < workers.size(); i++) {
+                enqueue(END);
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            synchronized (out) {
+                try {
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        checkFailure();
+        return analyzed.get();
+    }
+
+    /** Nodes searched so far over all workers. */
+    public long nodes() {
+        return nodes.get();
+    }
+
+    @Override
+    public void close() {
+        if (!finished) {
+            finished = true;
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+        }
+    }
+
+    /** The table all workers share. */
+    TranspositionTable table() {
+        return table;
+    }
+
+    private void work() {
+        Search search = new Search(table, false);
+        try {
+            Job job;
+            while ((job = queue.take()) != END) {
+                String line;
+                try {
+                    line = analyze(search, job);
+                } catch (RuntimeException e) {
+                    // One bad position costs its own line, not the batch. The search that threw
+                    // may be left mid-tree, so the next job gets a fresh one.
+                    line = error(job, e.toString());
+                    search = new Search(table, false);
+                }
+                synchronized (out) {
+                    out.write(line);
+                    out.write('\n');
+                }
+                analyzed.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            // Closed without finishing: drop what is left in the queue.
+        } catch (IOException e) {
+            failure = e;
+            queue.clear();
+        }
+    }
+
+    private String analyze(Search search, Job job) {
+        Position position;
+        try {
+            position = Fen.parse(job.fen);
+        } catch (IllegalArgumentException e) {
+            return error(job, e.getMessage());
+        }
+
+        StringBuilder json = record(job);
+        SearchStats stats = search.search(position, limits);
+        nodes.addAndGet(stats.nodes());
+        json.append(",\"bestmove\":");
+        if (stats.bestMove() == Moves.NONE) {
+            json.append("null");
+        } else {
+            appendString(json, Moves.toUci(stats.bestMove()));
+        }
+        json.append(stats.isMate() ? ",\"mate\":" + stats.mateIn() : ",\"cp\":" + stats.score());
+        json.append(",\"depth\":").append(stats.depth())
+                .append(",\"seldepth\":").append(stats.selectiveDepth())
+                .append(",\"nodes\":").append(stats.nodes())
+                .append(",\"time_ms\":").append(stats.elapsedMillis())
+                .append(",\"pv\":[");
+        int[] pv = stats.principalVariation();
+        for (int i = 0; i < pv.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendString(json, Moves.toUci(pv[i]));
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String error(Job job, String message) {
+        StringBuilder json = record(job).append(",\"error\":");
+        appendString(json, message);
+        return json.append('}').toString();
+    }
+
+    // The fields every output line starts with: the id and whatever identifies the input.
+    private static StringBuilder record(Job job) {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"id\":").append(job.id);
+        if (job.label != null) {
+            json.append(",\"label\":");
+            appendString(json, job.label);
+        }
+        if (job.game >= 0) {
+            json.append(",\"game\":").append(job.game).append(",\"ply\":").append(job.ply);
+        }
+        json.append(",\"fen\":");
+        appendString(json, job.fen);
+        return json;
+    }
+
+    // Waits in short steps so a failed worker cannot leave the producer blocked on a full queue.
+    private void enqueue(Job job) throws InterruptedException {
+        do {
+            checkFailure();
+        } while (!queue.offer(job, 100, TimeUnit.MILLISECONDS));
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new IllegalStateException("Batch worker failed", failure);
+        }
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    private static final class Job {
+        final long id;
+        final String fen;
+        final String label;
+        final int game;
+        final int ply;
+
+        Job(long id, String fen, String label, int game, int ply) {
+            this.id = id;
+            this.fen = fen;
+            this.label = label;
+            this.game = game;
+            this.ply = ply;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package game.template;
+
+/**
+ * Precomputed attack tables. Knight, king and pawn attacks are plain lookups; rook and
+ * bishop attacks use fancy magic bitboards, so every slider query is a multiply, a shift
+ * and one array load regardless of how far the ray reaches.
+ */
+public final class Bitboards {
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_2 = RANK_1 << 8;
+    public static final long RANK_4 = RANK_1 << 24;
+    public static final long RANK_5 = RANK_1 << 32;
+    public static final long RANK_7 = RANK_1 << 48;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    static final long[] KNIGHT_ATTACKS = new long[64];
+    static final long[] KING_ATTACKS = new long[64];
+    static final long[][] PAWN_ATTACKS = new long[2][64];
+    static final long[][] BETWEEN = new long[64][64];
+    static final long[][] LINE = new long[64][64];
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static final long[] ROOK_MAGICS = {
+        0x1080004008801020L, 0x0840092002C03000L, 0x1900200010400900L, 0x0880100008000480L,
+        0x4200100420080200L, 0x8100020100080400L, 0x0200040110886200L, 0x0200008040220411L,
+        0x0404800084400220L, 0x0000401000402000L, 0x0086001081220440L, 0x0408800800100280L,
+        0x000A001201040820L, 0x8848800200840080L, 0x4001000100040200L, 0x0442000102105084L,
+        0x9080010020804100L, 0x0040404000201009L, 0x0000808010002009L, 0x2200090021D00100L,
+        0x0008008008040080L, 0x0004004002010040L, 0x0011040008015042L, 0x00000A0001768104L,
+        0x0000800080204009L, 0x2010004140002001L, 0x9800200280100080L, 0x1000100080080080L,
+        0x0442000A00049020L, 0x2100040080020080L, 0x0800120400900148L, 0x0010040A00128541L,
+        0x2800804000800030L, 0x1010002000400041L, 0x4000200011004100L, 0x0610008410800800L,
+        0x0400802402800800L, 0xC100020080800400L, 0x0002000802000401L, 0x0182085882000401L,
+        0x0220204000808000L, 0x2860100040024022L, 0x0001002004110040L, 0x99101042000A0020L,
+        0x0004080004008080L, 0x0010040002008080L, 0x2012004881020004L, 0x8300842444820011L,
+        0x0088403882010200L, 0x0820400080210100L, 0x0110910040A00300L, 0x0801100280080480L,
+        0x0242009008200600L, 0x1002000489500200L, 0x0040800200010080L, 0x0091800041000080L,
+        0x0000209300488001L, 0x04C1002414824001L, 0x020020000B001041L, 0x7000100004200901L,
+        0x8002002004100802L, 0x30010002084C0007L, 0x0888221800813004L, 0x4000002840840112L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+        0xA010041108003100L, 0x006082020A002900L, 0x6810010619200000L, 0x08281A0520000408L,
+        0x0001104001000400L, 0x0018901008048400L, 0x00040A0210245280L, 0x000200210808A402L,
+        0x9140048410821200L, 0x0800091010820041L, 0x20504804832202C0L, 0x0100091401081000L,
+        0x8021011140000012L, 0x0810020804450400L, 0x208B0542109008A2L, 0x0080084A08040204L,
+        0x0040E2A80811244CL, 0x2505022008008108L, 0x0430220100420040L, 0x010A040420220040L,
+        0x1105000290400000L, 0x0093001200822120L, 0x4000A62048043004L, 0x280120048A015004L,
+        0x006090002A020814L, 0x44042000240800D0L, 0x01102800040A4400L, 0x1004080080220040L,
+        0x0001001011004024L, 0x0010044000805040L, 0x0914041200820100L, 0x0004821012821480L,
+        0x0024040500C05021L, 0x0088611002080200L, 0x0116080A00040020L, 0x4000020080080080L,
+        0x2450450140840040L, 0x0000880201484100L, 0x0222020404020092L, 0x8081110600002E00L,
+        0x2842101105000801L, 0x1100809008001025L, 0x00020202221C0400L, 0x0422014022009020L,
+        0x0210046102100C00L, 0xC004008082029102L, 0x00AA461801101200L, 0x0404080080201108L,
+        0x020542108C205002L, 0x0410544804100100L, 0x0040910841100000L, 0x0400200042021100L,
+        0x00004204850400C0L, 0x0200100410A42102L, 0x1040020801210102L, 0x0805040410420000L,
+        0x2884804130100200L, 0x800C262201242000L, 0x1058000194108800L, 0x0014221054420204L,
+        0x0104000012A02200L, 0x0200881003300100L, 0x0140400202840100L, 0x0402020801010201L
+    };
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+    private static final long[] BISHOP_TABLE;
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = leaperAttacks(square, new int[][] {
+                {1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}
+            });
+            KING_ATTACKS[square] = leaperAttacks(square, new int[][] {
+                {1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}
+            });
+            PAWN_ATTACKS[0][square] = leaperAttacks(square, new int[][] {{-1, 1}, {1, 1}});
+            PAWN_ATTACKS[1][square] = leaperAttacks(square, new int[][] {{-1, -1}, {1, -1}});
+        }
+        ROOK_TABLE = new long[initMagics(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_SHIFTS, ROOK_OFFSETS)];
+        BISHOP_TABLE = new long[initMagics(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_OFFSETS)];
+        fillMagics(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS, ROOK_TABLE);
+        fillMagics(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS, BISHOP_TABLE);
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                if (a == b) {
+                    continue;
+                }
+                long ends = (1L << a) | (1L << b);
+                if ((rookAttacks(a, 0) & (1L << b)) != 0) {
+                    LINE[a][b] = (rookAttacks(a, 0) & rookAttacks(b, 0)) | ends;
+                    BETWEEN[a][b] = rookAttacks(a, 1L << b) & rookAttacks(b, 1L << a);
+                } else if ((bishopAttacks(a, 0) & (1L << b)) != 0) {
+                    LINE[a][b] = (bishopAttacks(a, 0) & bishopAttacks(b, 0)) | ends;
+                    BETWEEN[a][b] = bishopAttacks(a, 1L << b) & bishopAttacks(b, 1L << a);
+                }
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    public static long pawnAttacks(Player player, int square) {
+        return PAWN_ATTACKS[player.ordinal()][square];
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        return ROOK_TABLE[ROOK_OFFSETS[square]
+                + (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return BISHOP_TABLE[BISHOP_OFFSETS[square]
+                + (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /** Squares strictly between two squares on a shared rank, file or diagonal; empty otherwise. */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /** The full rank, file or diagonal through two aligned squares; empty otherwise. */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    private static long leaperAttacks(int square, int[][] deltas) {
+        long attacks = 0;
+        for (int[] delta : deltas) {
+            int file = (square & 7) + delta[0];
+            int rank = (square >>> 3) + delta[1];
+            if (file >= 0 && file < 8 && rank >= 0 && rank < 8) {
+                attacks |= 1L << (rank * 8 + file);
+            }
+        }
+        return attacks;
+    }
+
+    private static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int file = (square & 7) + direction[0];
+            int rank = (square >>> 3) + direction[1];
+            while (file >= 0 && file < 8 && rank >= 0 && rank < 8) {
+                long bit = 1L << (rank * 8 + file);
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                file += direction[0];
+                rank += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    // Relevant occupancy: the ray squares excluding the board edge at the end of each ray.
+    private static long relevantMask(int square, int[][] directions) {
+        long mask = 0;
+        for (int[] direction : directions) {
+            int file = (square & 7) + direction[0];
+            int rank = (square >>> 3) + direction[1];
+            while (file + direction[0] >= 0 && file + direction[0] < 8
+                    && rank + direction[1] >= 0 && rank + direction[1] < 8) {
+                mask |= 1L << (rank * 8 + file);
+                file += direction[0];
+                rank += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static int initMagics(int[][] directions, long[] masks, int[] shifts, int[] offsets) {
+        int size = 0;
+        for (int square = 0; square < 64; square++) {
+            masks[square] = relevantMask(square, directions);
+            int bits = Long.bitCount(masks[square]);
+            shifts[square] = 64 - bits;
+            offsets[square] = size;
+            size += 1 << bits;
+        }
+        return size;
+    }
+
+    private static void fillMagics(int[][] directions, long[] masks, long[] magics, int[] shifts,
+            int[] offsets, long[] table) {
+        for (int square = 0; square < 64; square++) {
+            long mask = masks[square];
+            long subset = 0;
+            do {
+                int index = offsets[square] + (int) ((subset * magics[square]) >>> shifts[square]);
+                table[index] = slidingAttacks(square, subset, directions);
+                subset = (subset - mask) & mask;
+            } while (subset != 0);
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package game.template;
 
-import javafx.scene.image.ImageView;
-
 public enum ChessPiece
 {
     PAWN,
@@ -0,0 +1,179 @@
+package game.template;
+
+/**
+ * Hand-written evaluation: material and piece-square tables (maintained incrementally by
+ * {@link Position}), pawn structure (cached in a {@link PawnHashTable}), mobility and king
+ * safety. Every term has a middlegame and an endgame weight, blended by the game phase so the
+ * score moves smoothly as pieces come off.
+ */
+public final class ClassicEvaluator implements Evaluator {
+    private static final int TEMPO = 10;
+
+    // Mobility is scored per reachable square beyond a typical count, for knight to queen.
+    private static final int[] MOBILITY_MIDDLEGAME = {0, 4, 5, 2, 1, 0};
+    private static final int[] MOBILITY_ENDGAME = {0, 4, 5, 4, 2, 0};
+    private static final int[] MOBILITY_BASELINE = {0, 4, 6, 7, 13, 0};
+
+    private static final int DOUBLED_MIDDLEGAME = -10;
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDDLEGAME = -10;
+    private static final int ISOLATED_ENDGAME = -15;
+    // Passed pawn bonus by rank, counted from the pawn's own side.
+    private static final int[] PASSED_MIDDLEGAME = {0, 5, 10, 15, 25, 40, 60, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 20, 35, 60, 90, 130, 0};
+
+    private static final int[] KING_ATTACK_WEIGHT = {0, 2, 2, 3, 5, 0};
+    private static final int KING_DANGER_LIMIT = 300;
+    private static final int SHIELD_BONUS = 10;
+
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    /** Squares in front of a pawn on its own and the adjacent files, per side. */
+    private static final long[][] PASSED_MASKS = new long[2][64];
+    /** The two ranks in front of a king still on its first two ranks, on its own and adjacent files. */
+    private static final long[][] SHIELD_MASKS = new long[2][64];
+
+    static {
+        for (int file = 0; file < 8; file++) {
+            FILES[file] = Bitboards.FILE_A << file;
+        }
+        for (int file = 0; file < 8; file++) {
+            ADJACENT_FILES[file] = (file > 0 ? FILES[file - 1] : 0) | (file < 7 ? FILES[file + 1] : 0);
+        }
+        for (int square = 0; square < 64; square++) {
+            int file = square & 7;
+            int rank = square >>> 3;
+            long span = FILES[file] | ADJACENT_FILES[file];
+            for (int r = 0; r < 8; r++) {
+                long rankSpan = span & (Bitboards.RANK_1 << (8 * r));
+                if (r > rank) {
+                    PASSED_MASKS[0][square] |= rankSpan;
+                }
+                if (r < rank) {
+                    PASSED_MASKS[1][square] |= rankSpan;
+                }
+                if (rank <= 1 && (r == rank + 1 || r == rank + 2)) {
+                    SHIELD_MASKS[0][square] |= rankSpan;
+                }
+                if (rank >= 6 && (r == rank - 1 || r == rank - 2)) {
+                    SHIELD_MASKS[1][square] |= rankSpan;
+                }
+            }
+        }
+    }
+
+    private final PawnHashTable pawnTable;
+
+    public ClassicEvaluator() {
+        this(PawnHashTable.DEFAULT_ENTRIES);
+    }
+
+    public ClassicEvaluator(int pawnHashEntries) {
+        pawnTable = new PawnHashTable(pawnHashEntries);
+    }
+
+    public double pawnHashHitRate() {
+        return pawnTable.hitRate();
+    }
+
+    @Override
+    public int evaluate(Position position) {
+        int pawns = pawnStructure(position);
+        int white = pieceActivity(position, 0);
+        int black = pieceActivity(position, 1);
+        int middlegame = position.middlegame + PawnHashTable.middlegame(pawns)
+                + PawnHashTable.middlegame(white) - PawnHashTable.middlegame(black);
+        int endgame = position.endgame + PawnHashTable.endgame(pawns)
+                + PawnHashTable.endgame(white) - PawnHashTable.endgame(black);
+
+        int phase = Math.min(position.phase, PieceSquareTables.TOTAL_PHASE);
+        int score = (middlegame * phase + endgame * (PieceSquareTables.TOTAL_PHASE - phase))
+                / PieceSquareTables.TOTAL_PHASE;
+        return (position.side == 0 ? score : -score) + TEMPO;
+    }
+
+    private int pawnStructure(Position position) {
+        int packed = pawnTable.probe(position.pawnKey);
+        if (packed == PawnHashTable.MISSING) {
+            packed = evaluatePawns(position.pieces[0], position.pieces[6]);
+            pawnTable.store(position.pawnKey, packed);
+        }
+        return packed;
+    }
+
+    /** Doubled, isolated and passed pawns, from white's point of view. */
+    private static int evaluatePawns(long whitePawns, long blackPawns) {
+        int middlegame = 0;
+        int endgame = 0;
+        for (int side = 0; side < 2; side++) {
+            long own = side == 0 ? whitePawns : blackPawns;
+            long enemy = side == 0 ? blackPawns : whitePawns;
+            int sign = side == 0 ? 1 : -1;
+
+            for (long pawns = own; pawns != 0; pawns &= pawns - 1) {
+                int square = Long.numberOfTrailingZeros(pawns);
+                int file = square & 7;
+                if ((own & ADJACENT_FILES[file]) == 0) {
+                    middlegame += sign * ISOLATED_MIDDLEGAME;
+                    endgame += sign * ISOLATED_ENDGAME;
+                }
+                long front = PASSED_MASKS[side][square];
+                if ((front & enemy) == 0 && (front & FILES[file] & own) == 0) {
+                    int rank = side == 0 ? square >>> 3 : 7 - (square >>> 3);
+                    middlegame += sign * PASSED_MIDDLEGAME[rank];
+                    endgame += sign * PASSED_ENDGAME[rank];
+                }
+            }
+            for (int file = 0; file < 8; file++) {
+                int count = Long.bitCount(own & FILES[file]);
+                if (count > 1) {
+                    middlegame += sign * DOUBLED_MIDDLEGAME * (count - 1);
+                    endgame += sign * DOUBLED_ENDGAME * (count - 1);
+                }
+            }
+        }
+        return PawnHashTable.pack(middlegame, endgame);
+    }
+
+    /** Mobility, attacks on the enemy king and the pawn shield of one side, packed. */
+    private static int pieceActivity(Position position, int us) {
+        int them = us ^ 1;
+        long occupied = position.occupied;
+        long available = ~position.occupancy[us] & ~pawnAttacks(position.pieces[them * 6], them);
+        int enemyKing = Long.numberOfTrailingZeros(position.pieces[them * 6 + 5]);
+        long kingZone = Bitboards.KING_ATTACKS[enemyKing] | (1L << enemyKing);
+
+        int middlegame = 0;
+        int endgame = 0;
+        int attackers = 0;
+        int attackWeight = 0;
+        for (int type = 1; type <= 4; type++) {
+            for (long pieces = position.pieces[us * 6 + type]; pieces != 0; pieces &= pieces - 1) {
+                long attacks = MoveGenerator.pieceAttacks(type, Long.numberOfTrailingZeros(pieces), occupied);
+                int moves = Long.bitCount(attacks & available) - MOBILITY_BASELINE[type];
+                middlegame += MOBILITY_MIDDLEGAME[type] * moves;
+                endgame += MOBILITY_ENDGAME[type] * moves;
+                long kingHits = attacks & kingZone;
+                if (kingHits != 0) {
+                    attackers++;
+                    attackWeight += KING_ATTACK_WEIGHT[type] * Long.bitCount(kingHits);
+                }
+            }
+        }
+        // A lone attacker or an attack without the queen rarely gets through.
+        if (attackers >= 2 && position.pieces[us * 6 + 4] != 0) {
+            middlegame += Math.min(attackWeight * attackWeight / 6, KING_DANGER_LIMIT);
+        }
+
+        int king = Long.numberOfTrailingZeros(position.pieces[us * 6 + 5]);
+        middlegame += SHIELD_BONUS * Long.bitCount(SHIELD_MASKS[us][king] & position.pieces[us * 6]);
+        return PawnHashTable.pack(middlegame, endgame);
+    }
+
+    private static long pawnAttacks(long pawns, int side) {
+        if (side == 0) {
+            return ((pawns & ~Bitboards.FILE_A) << 7) | ((pawns & ~Bitboards.FILE_H) << 9);
+        }
+        return ((pawns & ~Bitboards.FILE_A) >>> 9) | ((pawns & ~Bitboards.FILE_H) >>> 7);
+    }
+}
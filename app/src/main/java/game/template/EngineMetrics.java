@@ -0,0 +1,325 @@
+package game.template;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide search instrumentation, off by default. Each {@link Search} counts into its
+ * own {@link Recorder} with plain field increments (one writer per recorder, no sharing, no
+ * atomics), and the totals are summed over all recorders only when someone asks: the JMX
+ * bean, {@link #toJson}, {@link #toPrometheus} or the UI overlay. A search picks up the
+ * switch when it starts, so while metrics are off its hot path pays one null check.
+ *
+ * <p>Move generation and evaluation are timed on one call in {@link #SAMPLE_INTERVAL}, since
+ * reading the clock would cost about as much as a fast evaluation. Totals read while searches
+ * run are approximate, as the counters are read without synchronization.
+ *
+ * <p>A recorder is held only as long as the search that owns it: once that search is garbage
+ * collected its counts move into a running total and the recorder is dropped, so short-lived
+ * searches do not pile up. The JMX bean is registered the first time metrics are switched on,
+ * by {@code -Dengine.metrics=true} or {@link #setEnabled}, which keeps the platform MBean
+ * server out of startup otherwise.
+ */
+public final class EngineMetrics {
+    public static final String OBJECT_NAME = "game.template:type=EngineMetrics";
+    /** Timings sample one call in this many. */
+    public static final int SAMPLE_INTERVAL = 64;
+
+    private static final Set<Owned> RECORDERS = ConcurrentHashMap.newKeySet();
+    private static final ReferenceQueue<Object> COLLECTED = new ReferenceQueue<>();
+    private static final long[] RETIRED = new long[Recorder.COUNTERS]; // Counts of collected searches
+    private static final LatencyHistogram MOVE_GENERATION = new LatencyHistogram(TimeUnit.NANOSECONDS);
+    private static final LatencyHistogram EVALUATION = new LatencyHistogram(TimeUnit.NANOSECONDS);
+    private static final LatencyHistogram ITERATIONS = new LatencyHistogram(TimeUnit.MICROSECONDS);
+    private static volatile boolean enabled = Boolean.getBoolean("engine.metrics");
+    private static volatile double branchingFactor;
+    private static boolean registered;
+
+    static {
+        if (enabled) {
+            registerMBean();
+        }
+    }
+
+    private EngineMetrics() {
+    }
+
+    public static boolean enabled() {
+        return enabled;
+    }
+
+    /** Takes effect from the next search of every thread; turning metrics on registers the JMX bean. */
+    public static void setEnabled(boolean on) {
+        if (on) {
+            registerMBean();
+        }
+        enabled = on;
+    }
+
+    /** Zeroes every counter and histogram; counts from searches in progress may survive. */
+    public static void reset() {
+        retireCollected();
+        synchronized (RETIRED) {
+            Arrays.fill(RETIRED, 0);
+        }
+        for (Owned owned : RECORDERS) {
+            owned.recorder.clear();
+        }
+        MOVE_GENERATION.reset();
+        EVALUATION.reset();
+        ITERATIONS.reset();
+        branchingFactor = 0;
+    }
+
+    /** Registers the {@link EngineMetricsMXBean} with the platform MBean server, once. */
+    public static synchronized void registerMBean() {
+        if (registered) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Registered by another class loader's copy.
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register " + OBJECT_NAME, e);
+        }
+        registered = true;
+    }
+
+    /** A recorder for {@code owner}'s searches, counted for as long as {@code owner} is reachable and summed after. */
+    static Recorder newRecorder(Object owner) {
+        retireCollected();
+        Recorder recorder = new Recorder();
+        RECORDERS.add(new Owned(owner, recorder, COLLECTED));
+        return recorder;
+    }
+
+    // Nothing writes a collected owner's recorder any more, so its counts can be folded in for good.
+    private static void retireCollected() {
+        Object collected;
+        while ((collected = COLLECTED.poll()) != null) {
+            Owned owned = (Owned) collected;
+            if (RECORDERS.remove(owned)) {
+                synchronized (RETIRED) {
+                    owned.recorder.addTo(RETIRED);
+                }
+            }
+        }
+    }
+
+    /** How many recorders are still counted one by one. */
+    static int liveRecorders() {
+        retireCollected();
+        return RECORDERS.size();
+    }
+
+    /** Records a sampled move generation call, in nanoseconds. */
+    static void moveGenerationTook(long nanos) {
+        MOVE_GENERATION.recordNanos(nanos);
+    }
+
+    /** Records a sampled evaluation, in nanoseconds. */
+    static void evaluationTook(long nanos) {
+        EVALUATION.recordNanos(nanos);
+    }
+
+    static void iterationFinished(long nanos, long nodes, long previousNodes) {
+        ITERATIONS.recordNanos(nanos);
+        if (previousNodes > 0) {
+            branchingFactor = (double) nodes / previousNodes;
+        }
+    }
+
+    /** Every metric by name, counters summed over all searches so far; names are stable. */
+    public static Map<String, Number> snapshot() {
+        retireCollected();
+        long[] totals;
+        synchronized (RETIRED) {
+            totals = RETIRED.clone();
+        }
+        for (Owned owned : RECORDERS) {
+            owned.recorder.addTo(totals);
+        }
+        long nodes = totals[Recorder.NODES];
+        long probes = totals[Recorder.TT_PROBES];
+        long cutoffs = totals[Recorder.BETA_CUTOFFS];
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        metrics.put("searches", totals[Recorder.SEARCHES]);
+        metrics.put("iterations", totals[Recorder.ITERATIONS]);
+        metrics.put("nodes", nodes);
+        metrics.put("qnodes", totals[Recorder.QUIESCENCE_NODES]);
+        metrics.put("tt_probes", probes);
+        metrics.put("tt_hits", totals[Recorder.TT_HITS]);
+        metrics.put("tt_cutoffs", totals[Recorder.TT_CUTOFFS]);
+        metrics.put("tt_hit_rate", probes == 0 ? 0.0 : (double) totals[Recorder.TT_HITS] / probes);
+        metrics.put("beta_cutoffs", cutoffs);
+        metrics.put("first_move_cutoff_rate",
+                cutoffs == 0 ? 0.0 : (double) totals[Recorder.FIRST_MOVE_CUTOFFS] / cutoffs);
+        metrics.put("branching_factor", branchingFactor);
+        putHistogram(metrics, "iteration", "us", ITERATIONS);
+        putHistogram(metrics, "movegen", "ns", MOVE_GENERATION);
+        putHistogram(metrics, "eval", "ns", EVALUATION);
+        return metrics;
+    }
+
+    // Values are in the histogram's own unit, named by the key suffix.
+    private static void putHistogram(Map<String, Number> metrics, String name, String unit,
+            LatencyHistogram histogram) {
+        metrics.put(name + "_count", histogram.count());
+        metrics.put(name + "_p50_" + unit, histogram.percentile(50));
+        metrics.put(name + "_p99_" + unit, histogram.percentile(99));
+        metrics.put(name + "_max_" + unit, histogram.max());
+    }
+
+    /** The {@link #snapshot()} as one JSON object. */
+    public static String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        for (Map.Entry<String, Number> metric : snapshot().entrySet()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append('"').append(metric.getKey()).append("\":").append(metric.getValue());
+        }
+        return json.append('}').toString();
+    }
+
+    /** The {@link #snapshot()} in the Prometheus text format, one {@code engine_} gauge per metric. */
+    public static String toPrometheus() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Number> metric : snapshot().entrySet()) {
+            String name = "engine_" + metric.getKey();
+            text.append("# TYPE ").append(name).append(" gauge\n");
+            text.append(name).append(' ').append(metric.getValue()).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * One search thread's counters. Only the owning {@link Search} writes them, between its
+     * own searches or during them; readers sum them without locking.
+     */
+    static final class Recorder {
+        static final int SEARCHES = 0;
+        static final int ITERATIONS = 1;
+        static final int NODES = 2;
+        static final int QUIESCENCE_NODES = 3;
+        static final int TT_PROBES = 4;
+        static final int TT_HITS = 5;
+        static final int TT_CUTOFFS = 6;
+        static final int BETA_CUTOFFS = 7;
+        static final int FIRST_MOVE_CUTOFFS = 8;
+        static final int COUNTERS = 9;
+
+        long searches;
+        long iterations;
+        long nodes;
+        long quiescenceNodes;
+        long ttProbes;
+        long ttHits;
+        long ttCutoffs;
+        long betaCutoffs;
+        long firstMoveCutoffs;
+        private int calls;
+
+        private Recorder() {
+        }
+
+        /** True on one call in {@link #SAMPLE_INTERVAL}: time this one. */
+        boolean sample() {
+            return (++calls & (SAMPLE_INTERVAL - 1)) == 0;
+        }
+
+        void addTo(long[] totals) {
+            totals[SEARCHES] += searches;
+            totals[ITERATIONS] += iterations;
+            totals[NODES] += nodes;
+            totals[QUIESCENCE_NODES] += quiescenceNodes;
+            totals[TT_PROBES] += ttProbes;
+            totals[TT_HITS] += ttHits;
+            totals[TT_CUTOFFS] += ttCutoffs;
+            totals[BETA_CUTOFFS] += betaCutoffs;
+            totals[FIRST_MOVE_CUTOFFS] += firstMoveCutoffs;
+        }
+
+        void clear() {
+            searches = 0;
+            iterations = 0;
+            nodes = 0;
+            quiescenceNodes = 0;
+            ttProbes = 0;
+            ttHits = 0;
+            ttCutoffs = 0;
+            betaCutoffs = 0;
+            firstMoveCutoffs = 0;
+        }
+    }
+
+    // A recorder and a weak reference to the search that writes it.
+    private static final class Owned extends WeakReference<Object> {
+        final Recorder recorder;
+
+        Owned(Object owner, Recorder recorder, ReferenceQueue<Object> queue) {
+            super(owner, queue);
+            this.recorder = recorder;
+        }
+    }
+
+    private static final class Bean implements EngineMetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return EngineMetrics.enabled();
+        }
+
+        @Override
+        public void setEnabled(boolean on) {
+            EngineMetrics.setEnabled(on);
+        }
+
+        @Override
+        public long getNodes() {
+            return snapshot().get("nodes").longValue();
+        }
+
+        @Override
+        public double getTtHitRate() {
+            return snapshot().get("tt_hit_rate").doubleValue();
+        }
+
+        @Override
+        public double getFirstMoveCutoffRate() {
+            return snapshot().get("first_move_cutoff_rate").doubleValue();
+        }
+
+        @Override
+        public double getBranchingFactor() {
+            return branchingFactor;
+        }
+
+        @Override
+        public String getJson() {
+            return toJson();
+        }
+
+        @Override
+        public String getPrometheus() {
+            return toPrometheus();
+        }
+
+        @Override
+        public void reset() {
+            EngineMetrics.reset();
+        }
+    }
+}
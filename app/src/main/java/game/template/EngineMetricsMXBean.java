@@ -0,0 +1,25 @@
+package game.template;
+
+/** JMX view of {@link EngineMetrics}, registered as {@value EngineMetrics#OBJECT_NAME}. */
+public interface EngineMetricsMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean on);
+
+    long getNodes();
+
+    double getTtHitRate();
+
+    double getFirstMoveCutoffRate();
+
+    /** Nodes of the last finished iteration over those of the one before. */
+    double getBranchingFactor();
+
+    /** Every metric as one JSON object. */
+    String getJson();
+
+    /** Every metric in the Prometheus text exposition format. */
+    String getPrometheus();
+
+    void reset();
+}
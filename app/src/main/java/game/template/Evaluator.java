@@ -0,0 +1,10 @@
+package game.template;
+
+/**
+ * Static evaluation used at the leaves of the search. Implementations may keep caches and are
+ * not expected to be thread-safe, so every search thread gets its own instance.
+ */
+public interface Evaluator {
+    /** Score in centipawns from the side to move's point of view. */
+    int evaluate(Position position);
+}
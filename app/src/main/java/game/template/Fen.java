@@ -0,0 +1,184 @@
+package game.template;
+
+/** Reads and writes positions in Forsyth-Edwards Notation. */
+public final class Fen {
+    public static final String INITIAL = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String PIECE_CHARS = "PNBRQKpnbrqk";
+
+    private Fen() {
+    }
+
+    /**
+     * Parses a FEN, rejecting it with an {@link IllegalArgumentException} when it is malformed,
+     * lacks a king per side, or leaves the side not to move in check.
+     */
+    public static Position parse(String fen) {
+        return parse(fen, new Position());
+    }
+
+    /**
+     * Parses into {@code position}, which is cleared first, so readers can refill one instance
+     * instead of allocating a position and its undo stacks per FEN. Returns {@code position}.
+     */
+    public static Position parse(String fen, Position position) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+
+        position.clear();
+        int rank = 7;
+        int file = 0;
+        for (int i = 0; i < fields[0].length(); i++) {
+            char c = fields[0].charAt(i);
+            if (c == '/') {
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+            } else {
+                int code = PIECE_CHARS.indexOf(c);
+                if (code < 0 || rank < 0 || file > 7) {
+                    throw new IllegalArgumentException("Invalid FEN placement: " + fields[0]);
+                }
+                position.put(code, rank * 8 + file);
+                file++;
+            }
+        }
+        if (Long.bitCount(position.pieces[5]) != 1 || Long.bitCount(position.pieces[11]) != 1) {
+            throw new IllegalArgumentException("FEN must have exactly one king per side: " + fields[0]);
+        }
+
+        switch (fields[1]) {
+            case "w":
+                position.setSideToMove(Player.WHITE);
+                break;
+            case "b":
+                position.setSideToMove(Player.BLACK);
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid side to move: " + fields[1]);
+        }
+        // The side that just moved cannot have left its king in check; searching such a
+        // position would capture the king.
+        int us = position.sideToMove().ordinal();
+        int theirKing = Long.numberOfTrailingZeros(position.pieces[(us ^ 1) * 6 + 5]);
+        if (MoveGenerator.isAttacked(position, theirKing, us, position.occupied())) {
+            throw new IllegalArgumentException("Side not to move is in check: " + fen);
+        }
+
+        int rights = 0;
+        for (char c : fields[2].toCharArray()) {
+            switch (c) {
+                case 'K':
+                    rights |= Position.WHITE_KINGSIDE;
+                    break;
+                case 'Q':
+                    rights |= Position.WHITE_QUEENSIDE;
+                    break;
+                case 'k':
+                    rights |= Position.BLACK_KINGSIDE;
+                    break;
+                case 'q':
+                    rights |= Position.BLACK_QUEENSIDE;
+                    break;
+                case '-':
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid castling rights: " + fields[2]);
+            }
+        }
+        position.setCastlingRights(rights);
+        position.setEnPassantSquare(fields[3].equals("-") ? Position.NO_SQUARE : parseEnPassant(position, fields[3]));
+
+        try {
+            position.halfmoveClock = fields.length > 4 ? Integer.parseInt(fields[4]) : 0;
+            position.fullmoveNumber = fields.length > 5 ? Integer.parseInt(fields[5]) : 1;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid move counters: " + fen, e);
+        }
+        return position;
+    }
+
+    public static String format(Position position) {
+        StringBuilder sb = new StringBuilder();
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                int code = position.pieceAt(rank * 8 + file);
+                if (code == Position.NO_PIECE) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                sb.append(PIECE_CHARS.charAt(code));
+            }
+            if (empty > 0) {
+                sb.append(empty);
+            }
+            if (rank > 0) {
+                sb.append('/');
+            }
+        }
+
+        sb.append(position.sideToMove() == Player.WHITE ? " w " : " b ");
+        int rights = position.castlingRights();
+        if (rights == 0) {
+            sb.append('-');
+        } else {
+            if ((rights & Position.WHITE_KINGSIDE) != 0) {
+                sb.append('K');
+            }
+            if ((rights & Position.WHITE_QUEENSIDE) != 0) {
+                sb.append('Q');
+            }
+            if ((rights & Position.BLACK_KINGSIDE) != 0) {
+                sb.append('k');
+            }
+            if ((rights & Position.BLACK_QUEENSIDE) != 0) {
+                sb.append('q');
+            }
+        }
+        int ep = position.enPassantSquare();
+        sb.append(' ').append(ep == Position.NO_SQUARE ? "-" : Moves.squareName(ep));
+        sb.append(' ').append(position.halfmoveClock()).append(' ').append(position.fullmoveNumber());
+        return sb.toString();
+    }
+
+    /**
+     * The FEN part of an EPD line: the four position fields, plus the move counters when the
+     * line has them, without operations such as {@code bm} or {@code id}. A FEN comes back whole.
+     */
+    public static String fromEpd(String line) {
+        String[] fields = line.trim().split("\\s+");
+        if (fields.length >= 6 && fields[4].matches("\\d+") && fields[5].matches("\\d+")) {
+            return String.join(" ", fields[0], fields[1], fields[2], fields[3], fields[4], fields[5]);
+        }
+        return fields.length >= 4 ? String.join(" ", fields[0], fields[1], fields[2], fields[3]) : line;
+    }
+
+    // Only a square a pawn of the side not to move just skipped over: the generator trusts it.
+    private static int parseEnPassant(Position position, String name) {
+        int square = parseSquare(name);
+        int them = position.sideToMove().ordinal() ^ 1;
+        int pawn = them == 0 ? square + 8 : square - 8;
+        int origin = them == 0 ? square - 8 : square + 8;
+        if ((square >>> 3) != (them == 0 ? 2 : 5) || position.pieceAt(pawn) != them * 6
+                || position.pieceAt(square) != Position.NO_PIECE || position.pieceAt(origin) != Position.NO_PIECE) {
+            throw new IllegalArgumentException("Invalid en passant square: " + name);
+        }
+        return square;
+    }
+
+    public static int parseSquare(String name) {
+        if (name.length() != 2 || name.charAt(0) < 'a' || name.charAt(0) > 'h'
+                || name.charAt(1) < '1' || name.charAt(1) > '8') {
+            throw new IllegalArgumentException("Invalid square: " + name);
+        }
+        return (name.charAt(1) - '1') * 8 + (name.charAt(0) - 'a');
+    }
+}
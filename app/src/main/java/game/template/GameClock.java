@@ -0,0 +1,138 @@
+package game.template;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A two-sided chess clock on the monotonic {@link System#nanoTime} clock, with Fischer
+ * increment and simple (US) delay. Time is charged once per turn from the turn's start, so
+ * nothing is lost to rounding however often the sides switch, and nothing depends on the FX
+ * pulse: the UI polls {@link #remainingMillis} for display, headless games just press it.
+ * All methods are synchronized, so the engine thread and the UI may share one clock.
+ */
+public final class GameClock {
+    private static final long NANOS_PER_MILLI = 1_000_000;
+
+    private final LongSupplier ticker;
+    private final long[] remainingNanos = new long[2];
+    private long initialNanos;
+    private long incrementNanos;
+    private long delayNanos;
+    private Player running; // Null while stopped
+    private long turnStart;
+    private Player flagged;
+
+    /**
+     * @param incrementMillis added to a side's time after each of its moves (Fischer)
+     * @param delayMillis     how long each turn runs before the clock starts counting down
+     */
+    public GameClock(long initialMillis, long incrementMillis, long delayMillis) {
+        this(initialMillis, incrementMillis, delayMillis, System::nanoTime);
+    }
+
+    GameClock(long initialMillis, long incrementMillis, long delayMillis, LongSupplier ticker) {
+        this.ticker = ticker;
+        reset(initialMillis, incrementMillis, delayMillis);
+    }
+
+    public synchronized long incrementMillis() {
+        return incrementNanos / NANOS_PER_MILLI;
+    }
+
+    public synchronized long delayMillis() {
+        return delayNanos / NANOS_PER_MILLI;
+    }
+
+    /** A new game on the same time control: both sides back to base time, stopped, no flag. */
+    public synchronized void reset() {
+        remainingNanos[0] = initialNanos;
+        remainingNanos[1] = initialNanos;
+        running = null;
+        flagged = null;
+    }
+
+    /** A new game on a new time control; see {@link #reset()}. */
+    public synchronized void reset(long initialMillis, long incrementMillis, long delayMillis) {
+        initialNanos = initialMillis * NANOS_PER_MILLI;
+        incrementNanos = incrementMillis * NANOS_PER_MILLI;
+        delayNanos = delayMillis * NANOS_PER_MILLI;
+        reset();
+    }
+
+    /** Starts {@code side}'s turn without crediting the side that was running (game start, takeback). */
+    public synchronized void start(Player side) {
+        long now = ticker.getAsLong();
+        charge(now);
+        running = side;
+        turnStart = now;
+    }
+
+    /** The running side has moved: charge its turn, add its increment, start the opponent. */
+    public synchronized void press() {
+        if (running == null) {
+            return;
+        }
+        Player mover = running;
+        long now = ticker.getAsLong();
+        charge(now);
+        if (flagged == null) {
+            remainingNanos[mover.ordinal()] += incrementNanos;
+        }
+        running = mover == Player.WHITE ? Player.BLACK : Player.WHITE;
+        turnStart = now;
+    }
+
+    /** Stops the running side's clock; {@link #start} resumes. */
+    public synchronized void stop() {
+        charge(ticker.getAsLong());
+        running = null;
+    }
+
+    /** The side whose clock runs, or null while stopped. */
+    public synchronized Player running() {
+        return running;
+    }
+
+    /** Time left for {@code side} right now, the current turn included; negative once flagged. */
+    public synchronized long remainingMillis(Player side) {
+        long remaining = remainingNanos[side.ordinal()];
+        if (side == running) {
+            remaining -= used(ticker.getAsLong());
+        }
+        return Math.floorDiv(remaining, NANOS_PER_MILLI);
+    }
+
+    /** The first side to run out of time, or null. Polling this is what detects a flag fall. */
+    public synchronized Player flagged() {
+        if (flagged == null && running != null && remainingNanos[running.ordinal()] - used(ticker.getAsLong()) <= 0) {
+            flagged = running;
+        }
+        return flagged;
+    }
+
+    /**
+     * Search limits for {@code side}'s move from its time left now, thinking at most
+     * {@code maxMillis}. The delay is spent before the clock counts down, so it is added to
+     * both limits as free time.
+     */
+    public SearchLimits limits(Player side, int movesToGo, long maxMillis) {
+        long delay = delayMillis();
+        SearchLimits limits = TimeManager.forClock(Math.max(0, remainingMillis(side)), incrementMillis(), movesToGo);
+        return limits.withTime(Math.min(limits.softTimeMillis() + delay, maxMillis / 2),
+                Math.min(limits.hardTimeMillis() + delay, maxMillis));
+    }
+
+    private void charge(long now) {
+        if (running != null) {
+            remainingNanos[running.ordinal()] -= used(now);
+            if (flagged == null && remainingNanos[running.ordinal()] <= 0) {
+                flagged = running;
+            }
+            turnStart = now;
+        }
+    }
+
+    // Time the running side has used this turn, after the delay.
+    private long used(long now) {
+        return Math.max(0, now - turnStart - delayNanos);
+    }
+}
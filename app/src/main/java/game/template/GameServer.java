@@ -0,0 +1,281 @@
+package game.template;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts many concurrent games, human against engine or engine against engine. Every
+ * {@link GameSession} runs on its own thread: a virtual thread on Java 21 and later (found
+ * by reflection, so the code still builds for older releases), otherwise a small-stack
+ * platform thread. Engine moves for all games share one {@link SearchScheduler}, so the CPU
+ * work is bounded by its thread count however many games are open.
+ *
+ * <p>Games are driven in-process through {@link #newGame} and {@link GameSession#play}, or
+ * over a local socket ({@link #listen}) with one command per line and one reply line each:
+ * <pre>
+ *   new human|engine human|engine [fen]   game ID
+ *   move ID UCI                           ok REPLY|-, or error MESSAGE
+ *   fen ID                                fen FEN
+ *   result ID                             result RESULT|playing
+ *   close ID                              closed ID
+ *   stats                                 stats ...
+ *   quit
+ * </pre>
+ * Usage: {@code GameServer port [searchThreads] [nodesPerMove] [maxPlies]}.
+ */
+public final class GameServer implements Closeable {
+    public static final long DEFAULT_NODES_PER_MOVE = 20_000;
+    /** Nodes a search may run before the next waiting game gets its turn. */
+    static final long SLICE_NODES = 4_096;
+
+    private final ExecutorService sessionThreads = newSessionExecutor();
+    private final SearchScheduler scheduler;
+    private final long nodesPerMove;
+    private final int maxPlies;
+    private final Map<Long, GameSession> sessions = new ConcurrentHashMap<>();
+    private final Map<Long, Future<?>> sessionTasks = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final AtomicLong finishedGames = new AtomicLong();
+    private final LatencyHistogram engineLatency = new LatencyHistogram();
+    private final LatencyHistogram humanLatency = new LatencyHistogram();
+    private volatile ServerSocket listener;
+
+    /**
+     * {@code nodesPerMove} is each engine move's search budget; games are adjudicated
+     * unfinished ("*") after {@code maxPlies} plies, or never when 0.
+     */
+    public GameServer(int searchThreads, int hashMegabytes, long nodesPerMove, int maxPlies) {
+        scheduler = new SearchScheduler(searchThreads, new TranspositionTable(hashMegabytes), SLICE_NODES);
+        this.nodesPerMove = nodesPerMove;
+        this.maxPlies = maxPlies;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = Integer.parseInt(args[0]);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long nodes = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_NODES_PER_MOVE;
+        int maxPlies = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        GameServer server = new GameServer(threads, TranspositionTable.DEFAULT_MEGABYTES * threads, nodes, maxPlies);
+        System.out.printf("Listening on 127.0.0.1:%d with %d search threads, %s session threads%n", port, threads,
+                usesVirtualThreads() ? "virtual" : "platform");
+        server.listen(port);
+    }
+
+    /** True when sessions run on virtual threads (Java 21 and later). */
+    public static boolean usesVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /** One thread per task, virtual when the runtime has them. */
+    static ExecutorService newSessionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // Sessions mostly wait, so small stacks let thousands of platform threads fit.
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(null, runnable, "game-session", 256 * 1024);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public GameSession newGame(boolean whiteEngine, boolean blackEngine) {
+        return newGame(Position.initial(), whiteEngine, blackEngine);
+    }
+
+    /** Starts a game from {@code start}, which the session takes over. */
+    public GameSession newGame(Position start, boolean whiteEngine, boolean blackEngine) {
+        GameSession session = new GameSession(nextId.getAndIncrement(), this, start, whiteEngine, blackEngine);
+        sessions.put(session.id(), session);
+        sessionTasks.put(session.id(), sessionThreads.submit(session::run));
+        return session;
+    }
+
+    /** The open game with this id, or null. */
+    public GameSession session(long id) {
+        return sessions.get(id);
+    }
+
+    /** Ends a game if it is still running ("*"), engine moves included, and forgets it. */
+    public void close(long id) {
+        GameSession session = sessions.remove(id);
+        if (session != null) {
+            session.cancel();
+        }
+        Future<?> task = sessionTasks.remove(id);
+        if (task != null) {
+            task.cancel(true);
+        }
+    }
+
+    /** Open games, finished or not, until they are {@link #close(long) closed}. */
+    public int sessions() {
+        return sessions.size();
+    }
+
+    public long finishedGames() {
+        return finishedGames.get();
+    }
+
+    /** Time from asking the scheduler for an engine move to playing it, queueing included. */
+    public LatencyHistogram engineLatency() {
+        return engineLatency;
+    }
+
+    /** Time from {@link GameSession#play} to its reply, the engine's answer included. */
+    public LatencyHistogram humanLatency() {
+        return humanLatency;
+    }
+
+    SearchScheduler scheduler() {
+        return scheduler;
+    }
+
+    long nodesPerMove() {
+        return nodesPerMove;
+    }
+
+    int maxPlies() {
+        return maxPlies;
+    }
+
+    void ended(GameSession session) {
+        finishedGames.incrementAndGet();
+        sessionTasks.remove(session.id());
+    }
+
+    /** Serves the line protocol on the loopback interface until {@link #close()}; blocks the caller. */
+    public void listen(int port) throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 128, InetAddress.getLoopbackAddress())) {
+            listener = server;
+            while (!server.isClosed()) {
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (IOException e) {
+                    if (server.isClosed()) {
+                        break;
+                    }
+                    throw e;
+                }
+                sessionThreads.submit(() -> serve(socket));
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket connection = socket;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(connection.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] tokens = line.trim().split("\\s+");
+                if (tokens[0].equals("quit")) {
+                    break;
+                }
+                out.println(command(tokens));
+            }
+        } catch (IOException e) {
+            // The client went away; its games keep running until closed.
+        }
+    }
+
+    private String command(String[] tokens) {
+        try {
+            switch (tokens[0]) {
+                case "new": {
+                    Position start = tokens.length > 3
+                            ? Fen.parse(String.join(" ", java.util.Arrays.copyOfRange(tokens, 3, tokens.length)))
+                            : Position.initial();
+                    return "game " + newGame(start, isEngine(tokens[1]), isEngine(tokens[2])).id();
+                }
+                case "move": {
+                    String reply = game(tokens[1]).play(tokens[2]).join();
+                    return "ok " + (reply.isEmpty() ? "-" : reply);
+                }
+                case "fen":
+                    return "fen " + game(tokens[1]).fen();
+                case "result": {
+                    String result = game(tokens[1]).result();
+                    return "result " + (result == null ? "playing" : result);
+                }
+                case "close":
+                    close(Long.parseLong(tokens[1]));
+                    return "closed " + tokens[1];
+                case "stats":
+                    return stats();
+                default:
+                    return "error unknown command: " + tokens[0];
+            }
+        } catch (CompletionException e) {
+            return "error " + e.getCause().getMessage();
+        } catch (ArrayIndexOutOfBoundsException e) {
+            return "error missing argument";
+        } catch (IllegalArgumentException e) {
+            return "error " + e.getMessage();
+        }
+    }
+
+    private static boolean isEngine(String player) {
+        switch (player) {
+            case "engine":
+                return true;
+            case "human":
+                return false;
+            default:
+                throw new IllegalArgumentException("expected human or engine: " + player);
+        }
+    }
+
+    private GameSession game(String id) {
+        GameSession session = sessions.get(Long.parseLong(id));
+        if (session == null) {
+            throw new IllegalArgumentException("no game " + id);
+        }
+        return session;
+    }
+
+    /** One line with the session counts, scheduler load and both latency summaries. */
+    public String stats() {
+        return String.format(
+                "stats sessions %d finished %d pending-searches %d searches %d | engine move %s | human move %s",
+                sessions(), finishedGames(), scheduler.pending(), scheduler.searches(), engineLatency.summary(),
+                humanLatency.summary());
+    }
+
+    /** Stops listening, ends every game and the search threads. */
+    @Override
+    public void close() {
+        ServerSocket server = listener;
+        if (server != null) {
+            try {
+                server.close();
+            } catch (IOException e) {
+                // Already closed.
+            }
+        }
+        sessionThreads.shutdownNow();
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,208 @@
+package game.template;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * One game hosted by a {@link GameServer}: the position, which sides the engine plays, and
+ * an inbox of human moves. All game state is confined to the session's own thread (virtual
+ * where available), which sleeps on the inbox while a human is to move and on the
+ * {@link SearchScheduler} while the engine thinks; other threads only see the published
+ * FEN, ply count and result.
+ */
+public final class GameSession {
+    private final long id;
+    private final GameServer server;
+    private final Position position;
+    private final boolean[] engine;
+    private final BlockingQueue<MoveRequest> inbox = new LinkedBlockingQueue<>();
+    private final CompletableFuture<String> finished = new CompletableFuture<>();
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private volatile String fen;
+    private volatile int plies;
+    private volatile String result;
+    private volatile boolean closed;
+    private volatile boolean cancelled;
+
+    GameSession(long id, GameServer server, Position start, boolean whiteEngine, boolean blackEngine) {
+        this.id = id;
+        this.server = server;
+        this.position = start;
+        this.engine = new boolean[] {whiteEngine, blackEngine};
+        this.fen = Fen.format(start);
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public String fen() {
+        return fen;
+    }
+
+    public int plies() {
+        return plies;
+    }
+
+    /** "1-0", "0-1", "1/2-1/2", "*" for an abandoned or adjudicated game, or null while playing. */
+    public String result() {
+        return result;
+    }
+
+    /** Completes with the {@link #result()} when the game ends. */
+    public CompletableFuture<String> finished() {
+        return finished;
+    }
+
+    public boolean isEngine(Player side) {
+        return engine[side.ordinal()];
+    }
+
+    /**
+     * Plays a human move given in UCI notation. The future completes with the engine's reply
+     * in UCI notation, or an empty string if there is none (a human opponent, or the game
+     * ended). Moves sent while the engine is thinking wait their turn. The future fails with
+     * {@link IllegalArgumentException} for an illegal move and with
+     * {@link IllegalStateException} once the game is over.
+     */
+    public CompletableFuture<String> play(String uci) {
+        MoveRequest request = new MoveRequest(uci);
+        if (closed) {
+            request.reply.completeExceptionally(new IllegalStateException("Game " + id + " is over"));
+            return request.reply;
+        }
+        inbox.add(request);
+        // The loop may have closed after the check above and before the add: fail what it left behind.
+        if (closed && inbox.remove(request)) {
+            request.reply.completeExceptionally(new IllegalStateException("Game " + id + " is over"));
+        }
+        return request.reply;
+    }
+
+    /** Ends the game unfinished ("*") at its next move, even an engine move in progress. */
+    void cancel() {
+        cancelled = true;
+    }
+
+    // Runs on the session thread until the game ends, is cancelled or the server shuts down.
+    void run() {
+        MoveRequest request = null;
+        try {
+            while (result == null) {
+                if (cancelled || Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                if (engine[position.sideToMove().ordinal()]) {
+                    engineMove();
+                    continue;
+                }
+                request = inbox.take();
+                int move = MoveGenerator.fromUci(position, request.uci);
+                if (move == Moves.NONE) {
+                    request.reply.completeExceptionally(new IllegalArgumentException("Illegal move: " + request.uci));
+                    continue;
+                }
+                makeMove(move);
+                String reply = "";
+                if (result == null && engine[position.sideToMove().ordinal()]) {
+                    reply = Moves.toUci(engineMove());
+                }
+                request.reply.complete(reply);
+                server.humanLatency().recordNanos(System.nanoTime() - request.created);
+            }
+        } catch (InterruptedException e) {
+            result = "*";
+        } catch (RuntimeException e) {
+            result = "*";
+            finished.completeExceptionally(e);
+        } finally {
+            closed = true;
+            if (request != null) {
+                // Answered already unless the game ended while the engine was replying to it.
+                request.reply.completeExceptionally(new IllegalStateException("Game " + id + " is over"));
+            }
+            MoveRequest left;
+            while ((left = inbox.poll()) != null) {
+                left.reply.completeExceptionally(new IllegalStateException("Game " + id + " is over"));
+            }
+            finished.complete(result);
+            server.ended(this);
+        }
+    }
+
+    // Waits interruptibly, so closing the game also abandons the search.
+    private int engineMove() throws InterruptedException {
+        long start = System.nanoTime();
+        CompletableFuture<SearchStats> search = server.scheduler().submit(position, server.nodesPerMove());
+        SearchStats stats;
+        try {
+            stats = search.get();
+        } catch (InterruptedException e) {
+            search.cancel(false);
+            throw e;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                    : new IllegalStateException(e.getCause());
+        }
+        int move = stats.bestMove();
+        makeMove(move);
+        server.engineLatency().recordNanos(System.nanoTime() - start);
+        return move;
+    }
+
+    private void makeMove(int move) {
+        position.makeMove(move);
+        plies++;
+        fen = Fen.format(position);
+        String outcome = result(position, moves);
+        // Adjudicated unfinished at the server's limit, or when the position's move history is full.
+        int limit = Math.min(server.maxPlies() > 0 ? server.maxPlies() : Integer.MAX_VALUE,
+                Position.MAX_GAME_PLIES - 1);
+        if (outcome == null && plies >= limit) {
+            outcome = "*";
+        }
+        result = outcome;
+    }
+
+    /**
+     * The result if the game is over in {@code position}: checkmate, stalemate, the fifty-move
+     * rule, threefold repetition or bare kings; null otherwise. {@code scratch} holds moves.
+     */
+    static String result(Position position, int[] scratch) {
+        if (MoveGenerator.generate(position, scratch) == 0) {
+            if (!MoveGenerator.isInCheck(position)) {
+                return "1/2-1/2";
+            }
+            return position.sideToMove() == Player.WHITE ? "0-1" : "1-0";
+        }
+        if (position.halfmoveClock() >= 100 || repetitions(position) >= 2
+                || Long.bitCount(position.occupied()) == 2) {
+            return "1/2-1/2";
+        }
+        return null;
+    }
+
+    // Earlier occurrences of the current position since the last irreversible move.
+    private static int repetitions(Position position) {
+        int count = 0;
+        int ply = position.ply();
+        for (int i = ply - 2; i >= Math.max(0, ply - position.halfmoveClock()); i -= 2) {
+            if (position.keyAt(i) == position.key()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static final class MoveRequest {
+        final String uci;
+        final long created = System.nanoTime();
+        final CompletableFuture<String> reply = new CompletableFuture<>();
+
+        MoveRequest(String uci) {
+            this.uci = uci;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package game.template;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact archive of games for self-play and imported databases, read through memory-mapped
+ * files so any game is reachable in O(1) without loading the rest.
+ *
+ * <p>The data file starts with an 8-byte header (magic, version) followed by one record per
+ * game, all little-endian:
+ * <pre>
+ *   u16  plies
+ *   u8   result: 0 = *, 1 = 1-0, 2 = 0-1, 3 = 1/2-1/2
+ *   u8   flags: bit 0 = start FEN follows, bit 1 = tag pairs follow
+ *   [u8 length, ASCII FEN]
+ *   [u16 length, UTF-8 "name\0value\0" pairs]
+ *   u16  move * plies, as {@link Moves#pack}
+ * </pre>
+ * The index file ({@code <data>.idx}) has the same header followed by the u64 offset of
+ * every record. Moves carry only from, to and promotion, so a game costs two bytes per ply
+ * plus four; reading one replays it to recover flags and captures, which also checks that
+ * every stored move is legal.
+ */
+public final class GameStore implements Closeable {
+    static final int MAGIC = 0x53474843; // "CHGS" little-endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    static final String[] RESULTS = {"*", "1-0", "0-1", "1/2-1/2"};
+
+    private static final int FLAG_FEN = 1;
+    private static final int FLAG_TAGS = 2;
+    private static final int MAX_PLIES = 0xFFFF;
+    private static final int MAX_RECORD_BYTES = 4 + 1 + 0xFF + 2 + 0xFFFF + 2 * MAX_PLIES;
+
+    private final FileChannel dataChannel;
+    private final FileChannel indexChannel;
+    private final MappedSegments data;
+    private final MappedSegments index;
+    private final int size;
+
+    private GameStore(Path path) throws IOException {
+        dataChannel = FileChannel.open(path, StandardOpenOption.READ);
+        indexChannel = FileChannel.open(indexPath(path), StandardOpenOption.READ);
+        data = new MappedSegments(dataChannel, MAX_RECORD_BYTES);
+        index = new MappedSegments(indexChannel, 0);
+        checkHeader(data, path);
+        checkHeader(index, indexPath(path));
+        size = (int) ((index.size() - HEADER_BYTES) / 8);
+    }
+
+    public static GameStore open(Path path) throws IOException {
+        return new GameStore(path);
+    }
+
+    public static Writer create(Path path) throws IOException {
+        return new Writer(path);
+    }
+
+    static Path indexPath(Path data) {
+        return data.resolveSibling(data.getFileName() + ".idx");
+    }
+
+    private static void checkHeader(MappedSegments file, Path path) throws IOException {
+        ByteBuffer header = file.segment(0);
+        if (file.size() < HEADER_BYTES || header.getInt(0) != MAGIC) {
+            throw new IOException("Not a game store: " + path);
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IOException("Unsupported game store version " + header.getInt(4) + ": " + path);
+        }
+    }
+
+    /** Number of games. */
+    public int size() {
+        return size;
+    }
+
+    /** Plies in game {@code i}, read from the record header without decoding moves. */
+    public int plies(int i) {
+        long offset = offset(i);
+        return data.segment(offset).getShort(MappedSegments.index(offset)) & 0xFFFF;
+    }
+
+    /** Decodes game {@code i}; safe to call from several threads at once. */
+    public PgnGame game(int i) {
+        long offset = offset(i);
+        ByteBuffer buffer = data.segment(offset);
+        int at = MappedSegments.index(offset);
+        int plies = buffer.getShort(at) & 0xFFFF;
+        int result = buffer.get(at + 2) & 3;
+        int flags = buffer.get(at + 3);
+        at += 4;
+
+        String fen = Fen.INITIAL;
+        if ((flags & FLAG_FEN) != 0) {
+            int length = buffer.get(at) & 0xFF;
+            fen = string(buffer, at + 1, length, false);
+            at += 1 + length;
+        }
+        Map<String, String> tags = new LinkedHashMap<>();
+        if ((flags & FLAG_TAGS) != 0) {
+            int end = at + 2 + (buffer.getShort(at) & 0xFFFF);
+            at += 2;
+            while (at < end) {
+                int nameEnd = indexOfZero(buffer, at, end);
+                int valueEnd = indexOfZero(buffer, nameEnd + 1, end);
+                tags.put(string(buffer, at, nameEnd - at, false),
+                        string(buffer, nameEnd + 1, valueEnd - nameEnd - 1, true));
+                at = valueEnd + 1;
+            }
+        }
+        if ((flags & FLAG_FEN) != 0) {
+            tags.put("SetUp", "1");
+            tags.put("FEN", fen);
+        }
+
+        Position position = Fen.parse(fen);
+        int[] moves = new int[plies];
+        int[] scratch = new int[MoveGenerator.MAX_MOVES];
+        for (int ply = 0; ply < plies; ply++) {
+            int move = MoveGenerator.fromPacked(position, buffer.getShort(at + 2 * ply) & 0xFFFF, scratch);
+            if (move == Moves.NONE) {
+                throw new IllegalStateException("Game " + i + " has an illegal move at ply " + (ply + 1));
+            }
+            position.makeMove(move);
+            moves[ply] = move;
+        }
+        return new PgnGame(tags, fen, moves, RESULTS[result]);
+    }
+
+    private long offset(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Game " + i + " of " + size);
+        }
+        long at = HEADER_BYTES + 8L * i;
+        return index.segment(at).getLong(MappedSegments.index(at));
+    }
+
+    private static int indexOfZero(ByteBuffer buffer, int from, int end) {
+        while (from < end && buffer.get(from) != 0) {
+            from++;
+        }
+        return from;
+    }
+
+    private static String string(ByteBuffer buffer, int at, int length, boolean utf8) {
+        byte[] bytes = new byte[length];
+        buffer.get(at, bytes);
+        return new String(bytes, utf8 ? StandardCharsets.UTF_8 : StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public void close() throws IOException {
+        dataChannel.close();
+        indexChannel.close();
+    }
+
+    /** Converts every game of a PGN file; returns the number stored. */
+    public static long importPgn(Path pgn, Path store) throws IOException {
+        try (PgnReader reader = PgnReader.open(pgn); Writer writer = create(store)) {
+            PgnGame game;
+            while ((game = reader.next()) != null) {
+                writer.append(game);
+            }
+            return reader.games();
+        }
+    }
+
+    public static void exportPgn(Path store, Path pgn) throws IOException {
+        try (GameStore games = open(store); BufferedWriter out = Files.newBufferedWriter(pgn, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < games.size(); i++) {
+                PgnWriter.write(out, games.game(i));
+                out.write('\n');
+            }
+        }
+    }
+
+    /** Appends games to a new store; the index is written alongside. Not thread-safe. */
+    public static final class Writer implements Closeable {
+        private final OutputStream data;
+        private final OutputStream index;
+        private ByteBuffer record = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        private final ByteBuffer offset = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        private long position = HEADER_BYTES;
+        private long games;
+
+        private Writer(Path path) throws IOException {
+            data = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16);
+            index = new BufferedOutputStream(Files.newOutputStream(indexPath(path)), 1 << 16);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION);
+            data.write(header.array());
+            index.write(header.array());
+        }
+
+        public void append(PgnGame game) throws IOException {
+            Map<String, String> tags = new LinkedHashMap<>(game.tags());
+            tags.remove("SetUp");
+            tags.remove("FEN");
+            append(game.startFen(), game.moves(), game.moveCount(), game.result(), tags);
+        }
+
+        /**
+         * Appends {@code moves[0, plies)} played from {@code startFen} (null for the initial
+         * position); {@code tags} may be empty, as is usual for self-play.
+         */
+        public void append(String startFen, int[] moves, int plies, String result, Map<String, String> tags)
+                throws IOException {
+            if (plies > MAX_PLIES) {
+                throw new IllegalArgumentException("Games are limited to " + MAX_PLIES + " plies");
+            }
+            int resultCode = Arrays.asList(RESULTS).indexOf(result);
+            boolean hasFen = startFen != null && !startFen.equals(Fen.INITIAL);
+            byte[] fen = hasFen ? startFen.getBytes(StandardCharsets.US_ASCII) : new byte[0];
+            byte[] tagBytes = encodeTags(tags);
+            if (fen.length > 0xFF || tagBytes.length > 0xFFFF) {
+                throw new IllegalArgumentException("FEN or tags too long to store");
+            }
+
+            int length = 4 + (hasFen ? 1 + fen.length : 0) + (tagBytes.length > 0 ? 2 + tagBytes.length : 0)
+                    + 2 * plies;
+            if (record.capacity() < length) {
+                record = ByteBuffer.allocate(Math.max(length, 2 * record.capacity())).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            record.clear();
+            record.putShort((short) plies);
+            record.put((byte) Math.max(0, resultCode));
+            record.put((byte) ((hasFen ? FLAG_FEN : 0) | (tagBytes.length > 0 ? FLAG_TAGS : 0)));
+            if (hasFen) {
+                record.put((byte) fen.length).put(fen);
+            }
+            if (tagBytes.length > 0) {
+                record.putShort((short) tagBytes.length).put(tagBytes);
+            }
+            for (int i = 0; i < plies; i++) {
+                record.putShort((short) Moves.pack(moves[i]));
+            }
+            data.write(record.array(), 0, record.position());
+
+            offset.clear();
+            offset.putLong(position);
+            index.write(offset.array());
+            position += record.position();
+            games++;
+        }
+
+        private static byte[] encodeTags(Map<String, String> tags) {
+            if (tags.isEmpty()) {
+                return new byte[0];
+            }
+            StringBuilder sb = new StringBuilder();
+            for (Map.Entry<String, String> tag : tags.entrySet()) {
+                sb.append(tag.getKey()).append('\0').append(tag.getValue()).append('\0');
+            }
+            return sb.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        public long games() {
+            return games;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (OutputStream d = data; OutputStream i = index) {
+                d.flush();
+                i.flush();
+            }
+        }
+    }
+}
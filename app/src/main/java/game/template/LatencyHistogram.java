@@ -0,0 +1,136 @@
+package game.template;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations with about 3% resolution: 32 linear buckets per power of
+ * two, like HdrHistogram with two significant digits. Recording is a few atomic adds, so any
+ * number of threads can record while another reads percentiles.
+ *
+ * <p>Buckets count whole units of the histogram's {@link #unit()}, microseconds unless given:
+ * a nanosecond histogram resolves sub-microsecond calls that a microsecond one rounds to zero.
+ * {@link #percentile} and {@link #max} answer in that unit, the {@code Micros} methods in
+ * microseconds whatever it is.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKETS = 32;
+    private static final int SUB_BITS = 5;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final TimeUnit unit;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram() {
+        this(TimeUnit.MICROSECONDS);
+    }
+
+    public LatencyHistogram(TimeUnit unit) {
+        this.unit = unit;
+    }
+
+    public TimeUnit unit() {
+        return unit;
+    }
+
+    public void recordNanos(long nanos) {
+        record(unit.convert(nanos, TimeUnit.NANOSECONDS));
+    }
+
+    /** Records a duration in the histogram's {@link #unit()}. */
+    public void record(long duration) {
+        duration = Math.max(0, duration);
+        counts.incrementAndGet(bucket(duration));
+        count.incrementAndGet();
+        sum.addAndGet(duration);
+        max.accumulateAndGet(duration, Math::max);
+    }
+
+    public long count() {
+        return count.get();
+    }
+
+    /** The longest duration recorded, in the histogram's {@link #unit()}. */
+    public long max() {
+        return max.get();
+    }
+
+    public long maxMicros() {
+        return TimeUnit.MICROSECONDS.convert(max(), unit);
+    }
+
+    /** The mean duration, in the histogram's {@link #unit()}. */
+    public double mean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    public double meanMicros() {
+        return mean() * TimeUnit.NANOSECONDS.convert(1, unit) / 1000;
+    }
+
+    public long percentileMicros(double percentile) {
+        return TimeUnit.MICROSECONDS.convert(percentile(percentile), unit);
+    }
+
+    /**
+     * The smallest bucket bound below which {@code percentile} percent of the samples fall, in
+     * the histogram's {@link #unit()}; 0 if empty.
+     */
+    public long percentile(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(n * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /** {@code p50/p90/p99/max} in milliseconds, for reports. */
+    public String summary() {
+        return String.format("n %d  p50 %.2f  p90 %.2f  p99 %.2f  max %.2f ms", count(), millis(percentile(50)),
+                millis(percentile(90)), millis(percentile(99)), millis(max()));
+    }
+
+    private double millis(long duration) {
+        return duration * (double) TimeUnit.NANOSECONDS.convert(1, unit) / 1e6;
+    }
+
+    static int bucket(long duration) {
+        if (duration < SUB_BUCKETS) {
+            return (int) duration;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(duration);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS
+                + (int) ((duration >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1));
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long low = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BITS);
+        return low + (1L << (exponent - SUB_BITS)) - 1;
+    }
+}
@@ -0,0 +1,48 @@
+package game.template;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only file mapped as 1 GB segments, since one mapping cannot exceed 2 GB. Each
+ * segment also maps {@code overlap} bytes of the next one, so any record no longer than that
+ * which starts in a segment can be read from it without crossing a boundary. Reads use
+ * absolute offsets only, so one instance can be shared by many threads.
+ */
+final class MappedSegments {
+    private static final int SEGMENT_SHIFT = 30;
+
+    private final ByteBuffer[] segments;
+    private final long size;
+
+    MappedSegments(FileChannel channel, int overlap) throws IOException {
+        this(channel, overlap, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    MappedSegments(FileChannel channel, int overlap, ByteOrder order) throws IOException {
+        size = channel.size();
+        int count = (int) ((size + (1L << SEGMENT_SHIFT) - 1) >>> SEGMENT_SHIFT);
+        segments = new ByteBuffer[Math.max(1, count)];
+        for (int i = 0; i < segments.length; i++) {
+            long start = (long) i << SEGMENT_SHIFT;
+            long length = Math.min(size - start, (1L << SEGMENT_SHIFT) + overlap);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.max(0, length))
+                    .order(order);
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    /** The segment holding {@code offset}; index it with {@link #index(long)}. */
+    ByteBuffer segment(long offset) {
+        return segments[(int) (offset >>> SEGMENT_SHIFT)];
+    }
+
+    static int index(long offset) {
+        return (int) (offset & ((1L << SEGMENT_SHIFT) - 1));
+    }
+}
@@ -0,0 +1,14 @@
+package game.template;
+
+/** Plain material count; a baseline for comparing evaluators and evaluation speed. */
+public final class MaterialEvaluator implements Evaluator {
+    @Override
+    public int evaluate(Position position) {
+        int score = 0;
+        for (int type = 0; type < 5; type++) {
+            score += Search.PIECE_VALUES[type]
+                    * (Long.bitCount(position.pieces[type]) - Long.bitCount(position.pieces[type + 6]));
+        }
+        return position.side == 0 ? score : -score;
+    }
+}
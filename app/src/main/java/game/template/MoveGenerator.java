@@ -0,0 +1,350 @@
+package game.template;
+
+/**
+ * Legal move generation over a {@link Position}. Pins and check evasions are resolved with
+ * bitboard masks while generating, so every emitted move is legal without a make/test
+ * round trip. Moves are written into a caller-supplied buffer and generation never allocates.
+ */
+public final class MoveGenerator {
+    public static final int MAX_MOVES = 256;
+
+    private static final ChessPiece[] PROMOTIONS = {
+        ChessPiece.QUEEN, ChessPiece.ROOK, ChessPiece.BISHOP, ChessPiece.KNIGHT
+    };
+
+    private MoveGenerator() {
+    }
+
+    /** Writes every legal move for the side to move into {@code moves}; returns the count. */
+    public static int generate(Position position, int[] moves) {
+        return generate(position, moves, false, -1L);
+    }
+
+    /** Writes only the legal captures and promotions, as needed by quiescence search. */
+    public static int generateCaptures(Position position, int[] moves) {
+        return generate(position, moves, true, -1L);
+    }
+
+    /** Writes only the legal moves landing on {@code to}, for resolving notation such as SAN. */
+    static int generateTo(Position position, int[] moves, int to) {
+        return generate(position, moves, false, 1L << to);
+    }
+
+    private static int generate(Position position, int[] moves, boolean capturesOnly, long destinations) {
+        int us = position.side;
+        int them = us ^ 1;
+        long own = position.occupancy[us];
+        long occupied = position.occupied;
+        int king = Long.numberOfTrailingZeros(position.pieces[us * 6 + 5]);
+        long checkers = attackersTo(position, king, occupied) & position.occupancy[them];
+
+        int count = 0;
+        long kingTargets = Bitboards.KING_ATTACKS[king] & (capturesOnly ? position.occupancy[them] : ~own)
+                & destinations;
+        long withoutKing = occupied ^ (1L << king);
+        while (kingTargets != 0) {
+            int to = Long.numberOfTrailingZeros(kingTargets);
+            kingTargets &= kingTargets - 1;
+            if (!isAttacked(position, to, them, withoutKing)) {
+                moves[count++] = encode(position, king, to);
+            }
+        }
+        if ((checkers & (checkers - 1)) != 0) {
+            return count;
+        }
+
+        long mask = ~own;
+        if (checkers != 0) {
+            mask = checkers | Bitboards.BETWEEN[king][Long.numberOfTrailingZeros(checkers)];
+        }
+        mask &= destinations;
+        long pinned = pinnedPieces(position, us, king);
+
+        count = generatePawnMoves(position, moves, count, us, king, mask, pinned, capturesOnly, destinations);
+        long pieceMask = capturesOnly ? mask & position.occupancy[them] : mask;
+        int base = us * 6;
+        count = addPieceMoves(moves, count, position, position.pieces[base + 1] & ~pinned, king, pieceMask, pinned, 1);
+        count = addPieceMoves(moves, count, position, position.pieces[base + 2], king, pieceMask, pinned, 2);
+        count = addPieceMoves(moves, count, position, position.pieces[base + 3], king, pieceMask, pinned, 3);
+        count = addPieceMoves(moves, count, position, position.pieces[base + 4], king, pieceMask, pinned, 4);
+        if (checkers == 0 && !capturesOnly) {
+            count = generateCastling(position, moves, count, us, destinations);
+        }
+        return count;
+    }
+
+    /** Destination squares of the piece on {@code from}, as a bitboard of legal targets. */
+    public static long targets(Position position, int from) {
+        int[] moves = new int[MAX_MOVES];
+        int count = generate(position, moves);
+        long targets = 0;
+        for (int i = 0; i < count; i++) {
+            if (Moves.from(moves[i]) == from) {
+                targets |= 1L << Moves.to(moves[i]);
+            }
+        }
+        return targets;
+    }
+
+    /** Finds the legal move matching {@code from}/{@code to}, preferring a queen promotion. */
+    public static int find(Position position, int from, int to) {
+        int[] moves = new int[MAX_MOVES];
+        int count = generate(position, moves);
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (Moves.from(move) == from && Moves.to(move) == to) {
+                return move;
+            }
+        }
+        return Moves.NONE;
+    }
+
+    /** The legal move written in UCI notation, e.g. {@code e7e8n}, or {@link Moves#NONE}. */
+    public static int fromUci(Position position, String uci) {
+        int[] moves = new int[MAX_MOVES];
+        int count = generate(position, moves);
+        for (int i = 0; i < count; i++) {
+            if (Moves.toUci(moves[i]).equals(uci)) {
+                return moves[i];
+            }
+        }
+        return Moves.NONE;
+    }
+
+    /** The legal move stored as {@link Moves#pack}, or {@link Moves#NONE}. */
+    public static int fromPacked(Position position, int packed) {
+        return fromPacked(position, packed, new int[MAX_MOVES]);
+    }
+
+    static int fromPacked(Position position, int packed, int[] moves) {
+        int count = generateTo(position, moves, (packed >>> 6) & 63);
+        for (int i = 0; i < count; i++) {
+            if (Moves.pack(moves[i]) == packed) {
+                return moves[i];
+            }
+        }
+        return Moves.NONE;
+    }
+
+    public static boolean isInCheck(Position position) {
+        int us = position.side;
+        int king = Long.numberOfTrailingZeros(position.pieces[us * 6 + 5]);
+        return isAttacked(position, king, us ^ 1, position.occupied);
+    }
+
+    /** Pieces of both colours attacking {@code square} given the occupancy {@code occupied}. */
+    public static long attackersTo(Position position, int square, long occupied) {
+        long[] pieces = position.pieces;
+        long bishops = pieces[2] | pieces[4] | pieces[8] | pieces[10];
+        long rooks = pieces[3] | pieces[4] | pieces[9] | pieces[10];
+        return (Bitboards.PAWN_ATTACKS[1][square] & pieces[0])
+                | (Bitboards.PAWN_ATTACKS[0][square] & pieces[6])
+                | (Bitboards.KNIGHT_ATTACKS[square] & (pieces[1] | pieces[7]))
+                | (Bitboards.KING_ATTACKS[square] & (pieces[5] | pieces[11]))
+                | (Bitboards.bishopAttacks(square, occupied) & bishops)
+                | (Bitboards.rookAttacks(square, occupied) & rooks);
+    }
+
+    static boolean isAttacked(Position position, int square, int by, long occupied) {
+        long[] pieces = position.pieces;
+        int base = by * 6;
+        return (Bitboards.PAWN_ATTACKS[by ^ 1][square] & pieces[base]) != 0
+                || (Bitboards.KNIGHT_ATTACKS[square] & pieces[base + 1]) != 0
+                || (Bitboards.KING_ATTACKS[square] & pieces[base + 5]) != 0
+                || (Bitboards.bishopAttacks(square, occupied) & (pieces[base + 2] | pieces[base + 4])) != 0
+                || (Bitboards.rookAttacks(square, occupied) & (pieces[base + 3] | pieces[base + 4])) != 0;
+    }
+
+    static long pieceAttacks(int type, int square, long occupied) {
+        switch (type) {
+            case 1:
+                return Bitboards.KNIGHT_ATTACKS[square];
+            case 2:
+                return Bitboards.bishopAttacks(square, occupied);
+            case 3:
+                return Bitboards.rookAttacks(square, occupied);
+            case 4:
+                return Bitboards.queenAttacks(square, occupied);
+            default:
+                return Bitboards.KING_ATTACKS[square];
+        }
+    }
+
+    // A piece is pinned when it is the only blocker between its king and an enemy slider.
+    private static long pinnedPieces(Position position, int us, int king) {
+        long[] pieces = position.pieces;
+        int base = (us ^ 1) * 6;
+        long enemy = position.occupancy[us ^ 1];
+        long snipers = (Bitboards.rookAttacks(king, enemy) & (pieces[base + 3] | pieces[base + 4]))
+                | (Bitboards.bishopAttacks(king, enemy) & (pieces[base + 2] | pieces[base + 4]));
+        long pinned = 0;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Bitboards.BETWEEN[king][sniper] & position.occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+                pinned |= blockers & position.occupancy[us];
+            }
+        }
+        return pinned;
+    }
+
+    private static int addPieceMoves(int[] moves, int count, Position position, long pieces, int king,
+            long mask, long pinned, int type) {
+        long occupied = position.occupied;
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            long targets = pieceAttacks(type, from, occupied) & mask;
+            if ((pinned & (1L << from)) != 0) {
+                targets &= Bitboards.LINE[king][from];
+            }
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                moves[count++] = encode(position, from, to);
+            }
+        }
+        return count;
+    }
+
+    private static int encode(Position position, int from, int to) {
+        int captured = position.board[to];
+        return Moves.withCaptured(Moves.encode(from, to, captured == Position.NO_PIECE ? Moves.QUIET : Moves.CAPTURE),
+                captured);
+    }
+
+    private static int generatePawnMoves(Position position, int[] moves, int count, int us, int king,
+            long mask, long pinned, boolean capturesOnly, long destinations) {
+        long allPawns = position.pieces[us * 6];
+        long pawns = allPawns & ~pinned;
+        long enemy = position.occupancy[us ^ 1] & mask;
+        long empty = ~position.occupied;
+        long promotionRank = us == 0 ? Bitboards.RANK_8 : Bitboards.RANK_1;
+        int up = us == 0 ? 8 : -8;
+
+        long single = (us == 0 ? pawns << 8 : pawns >>> 8) & empty;
+        long doubles = (us == 0 ? (single << 8) & Bitboards.RANK_4 : (single >>> 8) & Bitboards.RANK_5) & empty & mask;
+        single &= mask;
+        if (capturesOnly) {
+            single &= promotionRank;
+            doubles = 0;
+        }
+        long left = (us == 0 ? (pawns & ~Bitboards.FILE_A) << 7 : (pawns & ~Bitboards.FILE_A) >>> 9) & enemy;
+        long right = (us == 0 ? (pawns & ~Bitboards.FILE_H) << 9 : (pawns & ~Bitboards.FILE_H) >>> 7) & enemy;
+        int leftDelta = us == 0 ? 7 : -9;
+        int rightDelta = us == 0 ? 9 : -7;
+
+        int[] board = position.board;
+        count = addPawnMoves(moves, count, board, single & ~promotionRank, up, Moves.QUIET);
+        count = addPawnMoves(moves, count, board, doubles, 2 * up, Moves.DOUBLE_PUSH);
+        count = addPawnMoves(moves, count, board, left & ~promotionRank, leftDelta, Moves.CAPTURE);
+        count = addPawnMoves(moves, count, board, right & ~promotionRank, rightDelta, Moves.CAPTURE);
+        count = addPromotions(moves, count, board, single & promotionRank, up, Moves.PROMOTION);
+        count = addPromotions(moves, count, board, left & promotionRank, leftDelta, Moves.PROMOTION_CAPTURE);
+        count = addPromotions(moves, count, board, right & promotionRank, rightDelta, Moves.PROMOTION_CAPTURE);
+
+        long pinnedPawns = allPawns & pinned;
+        while (pinnedPawns != 0) {
+            int from = Long.numberOfTrailingZeros(pinnedPawns);
+            pinnedPawns &= pinnedPawns - 1;
+            long pinMask = mask & Bitboards.LINE[king][from];
+            if (capturesOnly) {
+                pinMask &= position.occupancy[us ^ 1] | promotionRank;
+            }
+            count = addPinnedPawnMoves(position, moves, count, us, from, pinMask);
+        }
+
+        int ep = position.enPassantSquare;
+        int captured = ep - up;
+        if (ep != Position.NO_SQUARE && (destinations & (1L << ep)) != 0 && position.board[captured] == (us ^ 1) * 6) {
+            long attackers = Bitboards.PAWN_ATTACKS[us ^ 1][ep] & allPawns;
+            while (attackers != 0) {
+                int from = Long.numberOfTrailingZeros(attackers);
+                attackers &= attackers - 1;
+                // Rare enough to verify directly: both pawns leave, one lands, king must be safe.
+                long occupied = (position.occupied ^ (1L << from) ^ (1L << captured)) | (1L << ep);
+                long checks = attackersTo(position, king, occupied) & position.occupancy[us ^ 1] & ~(1L << captured);
+                if (checks == 0) {
+                    moves[count++] = Moves.withCaptured(Moves.encode(from, ep, Moves.EN_PASSANT), (us ^ 1) * 6);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int addPinnedPawnMoves(Position position, int[] moves, int count, int us, int from, long mask) {
+        long occupied = position.occupied;
+        long targets = Bitboards.PAWN_ATTACKS[us][from] & position.occupancy[us ^ 1];
+        int forward = us == 0 ? from + 8 : from - 8;
+        if ((occupied & (1L << forward)) == 0) {
+            targets |= 1L << forward;
+            int twoForward = us == 0 ? from + 16 : from - 16;
+            if ((from >>> 3) == (us == 0 ? 1 : 6) && (occupied & (1L << twoForward)) == 0) {
+                targets |= 1L << twoForward;
+            }
+        }
+        targets &= mask;
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            int captured = position.board[to];
+            boolean capture = captured != Position.NO_PIECE;
+            if (to >= 56 || to < 8) {
+                for (ChessPiece promotion : PROMOTIONS) {
+                    int flags = capture ? Moves.PROMOTION_CAPTURE : Moves.PROMOTION;
+                    moves[count++] = Moves.withCaptured(Moves.encode(from, to, flags, promotion), captured);
+                }
+            } else if (capture) {
+                moves[count++] = Moves.withCaptured(Moves.encode(from, to, Moves.CAPTURE), captured);
+            } else {
+                moves[count++] = Moves.encode(from, to, Math.abs(to - from) == 16 ? Moves.DOUBLE_PUSH : Moves.QUIET);
+            }
+        }
+        return count;
+    }
+
+    private static int addPawnMoves(int[] moves, int count, int[] board, long targets, int delta, int flags) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves[count++] = Moves.withCaptured(Moves.encode(to - delta, to, flags), board[to]);
+        }
+        return count;
+    }
+
+    private static int addPromotions(int[] moves, int count, int[] board, long targets, int delta, int flags) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            for (ChessPiece promotion : PROMOTIONS) {
+                moves[count++] = Moves.withCaptured(Moves.encode(to - delta, to, flags, promotion), board[to]);
+            }
+        }
+        return count;
+    }
+
+    private static int generateCastling(Position position, int[] moves, int count, int us, long destinations) {
+        int king = us == 0 ? 4 : 60;
+        int rook = us * 6 + 3;
+        int them = us ^ 1;
+        int rights = position.castlingRights;
+        long occupied = position.occupied;
+        int kingside = us == 0 ? Position.WHITE_KINGSIDE : Position.BLACK_KINGSIDE;
+        int queenside = us == 0 ? Position.WHITE_QUEENSIDE : Position.BLACK_QUEENSIDE;
+        if (position.board[king] != us * 6 + 5) {
+            return count;
+        }
+        if ((rights & kingside) != 0 && (destinations & (1L << (king + 2))) != 0
+                && position.board[king + 3] == rook && (occupied & (3L << (king + 1))) == 0
+                && !isAttacked(position, king + 1, them, occupied) && !isAttacked(position, king + 2, them, occupied)) {
+            moves[count++] = Moves.encode(king, king + 2, Moves.KING_CASTLE);
+        }
+        if ((rights & queenside) != 0 && (destinations & (1L << (king - 2))) != 0
+                && position.board[king - 4] == rook && (occupied & (7L << (king - 3))) == 0
+                && !isAttacked(position, king - 1, them, occupied) && !isAttacked(position, king - 2, them, occupied)) {
+            moves[count++] = Moves.encode(king, king - 2, Moves.QUEEN_CASTLE);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,96 @@
+package game.template;
+
+/**
+ * Moves are packed into a single {@code int} so move lists are plain {@code int[]} buffers:
+ * bits 0-5 hold the origin square, 6-11 the destination, 12-15 the flags, 16-18 the
+ * promotion piece ({@link ChessPiece} ordinal) and 19-22 the captured piece code plus one.
+ */
+public final class Moves {
+    public static final int NONE = 0;
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+    public static final int PROMOTION_CAPTURE = 12;
+
+    private static final ChessPiece[] PIECES = ChessPiece.values();
+
+    private Moves() {
+    }
+
+    public static int encode(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    public static int encode(int from, int to, int flags, ChessPiece promotion) {
+        return from | (to << 6) | (flags << 12) | (promotion.ordinal() << 16);
+    }
+
+    /** Records the captured piece code; {@link Position#NO_PIECE} leaves the move unchanged. */
+    public static int withCaptured(int move, int captured) {
+        return move | ((captured + 1) << 19);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 15;
+    }
+
+    /** The captured piece code, or {@link Position#NO_PIECE} for non-captures. */
+    public static int captured(int move) {
+        return ((move >>> 19) & 15) - 1;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & (CAPTURE << 12)) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move & (PROMOTION << 12)) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        int flags = flags(move);
+        return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+    }
+
+    public static ChessPiece promotion(int move) {
+        return isPromotion(move) ? PIECES[(move >>> 16) & 7] : null;
+    }
+
+    /**
+     * The 16-bit storage form: from (bits 0-5), to (6-11) and the promotion piece (12-14, zero
+     * when none). Flags and the captured piece follow from the position, see
+     * {@link MoveGenerator#fromPacked}.
+     */
+    public static int pack(int move) {
+        return (move & 0xFFF) | (isPromotion(move) ? ((move >>> 16) & 7) << 12 : 0);
+    }
+
+    public static String squareName(int square) {
+        return "" + (char) ('a' + (square & 7)) + (char) ('1' + (square >>> 3));
+    }
+
+    /** Long algebraic notation as used by UCI, e.g. {@code e2e4} or {@code e7e8q}. */
+    public static String toUci(int move) {
+        if (move == NONE) {
+            return "0000";
+        }
+        String uci = squareName(from(move)) + squareName(to(move));
+        if (isPromotion(move)) {
+            uci += "pnbrqk".charAt((move >>> 16) & 7);
+        }
+        return uci;
+    }
+}
@@ -0,0 +1,161 @@
+package game.template;
+
+import java.util.Arrays;
+
+/**
+ * Evaluates with an {@link NnueNetwork}. The feature transformer output (the accumulator) is
+ * kept per ply and per perspective and updated lazily: a position reuses the accumulator of
+ * the nearest earlier ply that is still valid and replays the pieces added and removed since,
+ * which during search is usually the parent one ply up. Only a king move of the perspective's
+ * own side, which changes every HalfKP feature, forces a refresh from the board.
+ *
+ * <p>The search evaluates leaves but not interior nodes, so after a refresh the changes are
+ * also replayed backwards to rebuild the last few ancestors; the refreshed position's
+ * siblings then update from their parent instead of refreshing in turn.
+ */
+public final class NnueEvaluator implements Evaluator {
+    /** Longest replay before a refresh from the board is cheaper. */
+    private static final int MAX_REPLAY = 16;
+    private static final int REBUILT_ANCESTORS = 4;
+
+    private final NnueNetwork network;
+    private final NnueKernel kernel = NnueKernel.create();
+    // Slot 2 * ply + perspective holds the accumulator for the position at that ply, valid
+    // while its key matches the position's key at that ply.
+    private short[][] accumulators = new short[0][];
+    private long[] keys = new long[0];
+    private long refreshes;
+    private long updates;
+
+    public NnueEvaluator(NnueNetwork network) {
+        this.network = network;
+    }
+
+    public NnueNetwork network() {
+        return network;
+    }
+
+    /** Name of the inference kernel in use, for diagnostics. */
+    public String kernelName() {
+        return kernel instanceof ScalarNnueKernel ? "scalar" : "vector";
+    }
+
+    /** Fraction of accumulators rebuilt from the board rather than updated incrementally. */
+    public double refreshRate() {
+        long total = refreshes + updates;
+        return total == 0 ? 0 : (double) refreshes / total;
+    }
+
+    @Override
+    public int evaluate(Position position) {
+        short[] white = accumulator(position, 0);
+        short[] black = accumulator(position, 1);
+        return position.side == 0 ? kernel.forward(network, white, black) : kernel.forward(network, black, white);
+    }
+
+    private short[] accumulator(Position position, int perspective) {
+        int ply = position.ply();
+        ensureCapacity(ply);
+        int slot = 2 * ply + perspective;
+        if (keys[slot] == position.key) {
+            return accumulators[slot];
+        }
+
+        int king = Long.numberOfTrailingZeros(position.pieces[perspective * 6 + 5]);
+        int start = ply;
+        boolean found = false;
+        while (start > 0 && ply - start < MAX_REPLAY && position.movedPieceAt(start - 1) != perspective * 6 + 5) {
+            start--;
+            if (keys[2 * start + perspective] == position.keyAt(start)) {
+                found = true;
+                break;
+            }
+        }
+        if (!found) {
+            refresh(position, perspective, king, accumulators[slot]);
+            keys[slot] = position.key;
+            refreshes++;
+            int oldest = Math.max(0, ply - REBUILT_ANCESTORS);
+            for (int index = ply - 1; index >= oldest && position.movedPieceAt(index) != perspective * 6 + 5; index--) {
+                short[] previous = accumulators[2 * index + perspective];
+                System.arraycopy(accumulators[2 * (index + 1) + perspective], 0, previous, 0, previous.length);
+                replay(position, index, perspective, king, previous, false);
+                keys[2 * index + perspective] = position.keyAt(index);
+            }
+            return accumulators[slot];
+        }
+
+        for (int index = start; index < ply; index++) {
+            short[] next = accumulators[2 * (index + 1) + perspective];
+            System.arraycopy(accumulators[2 * index + perspective], 0, next, 0, next.length);
+            replay(position, index, perspective, king, next, true);
+            keys[2 * (index + 1) + perspective] = position.keyAt(index + 1);
+            updates++;
+        }
+        return accumulators[slot];
+    }
+
+    private void refresh(Position position, int perspective, int king, short[] accumulator) {
+        System.arraycopy(network.featureBiases, 0, accumulator, 0, accumulator.length);
+        long pieces = position.occupied & ~position.pieces[5] & ~position.pieces[11];
+        for (; pieces != 0; pieces &= pieces - 1) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            update(accumulator, NnueNetwork.feature(perspective, king, position.board[square], square), true);
+        }
+    }
+
+    /**
+     * Applies the feature changes of the move played at {@code index}, or takes them back when
+     * not {@code forward}; the perspective's king on {@code king} did not move.
+     */
+    private void replay(Position position, int index, int perspective, int king, short[] accumulator, boolean forward) {
+        int move = position.moveAt(index);
+        int moved = position.movedPieceAt(index);
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int flags = Moves.flags(move);
+        int us = moved / 6;
+
+        if (moved % 6 != 5) {
+            int placed = Moves.isPromotion(move)
+                    ? Position.code(Position.ownerOf(moved), Moves.promotion(move))
+                    : moved;
+            update(accumulator, NnueNetwork.feature(perspective, king, moved, from), !forward);
+            update(accumulator, NnueNetwork.feature(perspective, king, placed, to), forward);
+        } else if (flags == Moves.KING_CASTLE || flags == Moves.QUEEN_CASTLE) {
+            int rook = us * 6 + 3;
+            int rookFrom = flags == Moves.KING_CASTLE ? to + 1 : to - 2;
+            int rookTo = flags == Moves.KING_CASTLE ? to - 1 : to + 1;
+            update(accumulator, NnueNetwork.feature(perspective, king, rook, rookFrom), !forward);
+            update(accumulator, NnueNetwork.feature(perspective, king, rook, rookTo), forward);
+        }
+
+        int captured = position.capturedAt(index);
+        if (captured != Position.NO_PIECE) {
+            int square = flags == Moves.EN_PASSANT ? (us == 0 ? to - 8 : to + 8) : to;
+            update(accumulator, NnueNetwork.feature(perspective, king, captured, square), !forward);
+        }
+    }
+
+    private void update(short[] accumulator, int feature, boolean add) {
+        if (add) {
+            kernel.add(accumulator, network.featureWeights, feature * network.hidden);
+        } else {
+            kernel.subtract(accumulator, network.featureWeights, feature * network.hidden);
+        }
+    }
+
+    private void ensureCapacity(int ply) {
+        int slots = 2 * (ply + 1);
+        if (slots <= accumulators.length) {
+            return;
+        }
+        int size = Math.max(slots, 2 * accumulators.length);
+        int old = accumulators.length;
+        accumulators = Arrays.copyOf(accumulators, size);
+        keys = Arrays.copyOf(keys, size);
+        for (int i = old; i < size; i++) {
+            accumulators[i] = new short[network.hidden];
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package game.template;
+
+/**
+ * The arithmetic of NNUE inference: accumulator updates and the forward pass. A kernel may
+ * keep scratch buffers, so each evaluator creates its own.
+ */
+interface NnueKernel {
+    /** {@code accumulator[i] += weights[offset + i]} for every neuron. */
+    void add(short[] accumulator, short[] weights, int offset);
+
+    /** {@code accumulator[i] -= weights[offset + i]} for every neuron. */
+    void subtract(short[] accumulator, short[] weights, int offset);
+
+    /** Network output in centipawns for the side whose accumulator is {@code us}. */
+    int forward(NnueNetwork network, short[] us, short[] them);
+
+    /**
+     * The Vector API kernel when {@code jdk.incubator.vector} was added to the boot layer
+     * (run with {@code --add-modules jdk.incubator.vector}), otherwise the scalar one.
+     */
+    static NnueKernel create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Loaded by name so the scalar path never links against the incubator module.
+                return (NnueKernel) Class.forName("game.template.VectorNnueKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Fall back to the scalar kernel.
+            }
+        }
+        return new ScalarNnueKernel();
+    }
+}
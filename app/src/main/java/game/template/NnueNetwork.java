@@ -0,0 +1,181 @@
+package game.template;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/**
+ * Quantized weights of a small HalfKP network: a feature transformer from 40960 sparse
+ * (king square, piece, square) inputs per perspective to {@code hidden} int16 neurons, a
+ * dense layer from both perspectives to {@code layerSize} neurons and a single output.
+ * Immutable once loaded, so one network can back the evaluators of every search thread.
+ *
+ * <p>File layout, little-endian: magic {@code "NNUE"}, version, hidden, layer size and output
+ * divisor as ints; feature transformer biases and weights as int16 (weights feature-major,
+ * {@code hidden} per feature); dense biases as int32 and weights as int8 (one row of
+ * {@code 2 * hidden} per neuron); output bias as int32 and weights as int8.
+ */
+public final class NnueNetwork {
+    public static final int FEATURES = 64 * 10 * 64;
+
+    static final int MAGIC = 0x45554E4E; // "NNUE" read little-endian
+    static final int VERSION = 1;
+    /** Neurons are clipped to [0, {@value}] after the feature transformer and the dense layer. */
+    static final int ACTIVATION_MAX = 127;
+    static final int DENSE_SHIFT = 6;
+
+    final int hidden;
+    final int layerSize;
+    final int divisor;
+    final short[] featureBiases;
+    final short[] featureWeights;
+    final int[] denseBiases;
+    final short[] denseWeights; // int8 in the file, widened so vector lanes line up with the activations
+    int outputBias;
+    final int[] outputWeights;
+
+    private NnueNetwork(int hidden, int layerSize, int divisor) {
+        if (hidden <= 0 || hidden % 32 != 0 || layerSize <= 0 || divisor <= 0) {
+            throw new IllegalArgumentException(
+                    "Unsupported network shape: " + hidden + "x" + layerSize + "/" + divisor);
+        }
+        this.hidden = hidden;
+        this.layerSize = layerSize;
+        this.divisor = divisor;
+        featureBiases = new short[hidden];
+        featureWeights = new short[FEATURES * hidden];
+        denseBiases = new int[layerSize];
+        denseWeights = new short[layerSize * 2 * hidden];
+        outputWeights = new int[layerSize];
+    }
+
+    public int hidden() {
+        return hidden;
+    }
+
+    public int layerSize() {
+        return layerSize;
+    }
+
+    /**
+     * Reads a network through a read-only memory mapping, so the file is paged in by the OS
+     * rather than streamed through a heap buffer; the weights are then copied into arrays.
+     */
+    public static NnueNetwork load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.remaining() < 20 || buffer.getInt() != MAGIC) {
+                throw new IOException(path + " is not an NNUE network");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException(path + ": unsupported network version " + version);
+            }
+            NnueNetwork network;
+            try {
+                network = new NnueNetwork(buffer.getInt(), buffer.getInt(), buffer.getInt());
+            } catch (IllegalArgumentException e) {
+                throw new IOException(path + ": " + e.getMessage(), e);
+            }
+            if (buffer.remaining() != network.payloadBytes()) {
+                throw new IOException(path + ": expected " + network.payloadBytes() + " bytes of weights, found "
+                        + buffer.remaining());
+            }
+            buffer.asShortBuffer().get(network.featureBiases).get(network.featureWeights);
+            buffer.position(buffer.position() + 2 * (network.featureBiases.length + network.featureWeights.length));
+            buffer.asIntBuffer().get(network.denseBiases);
+            buffer.position(buffer.position() + 4 * network.denseBiases.length);
+            for (int i = 0; i < network.denseWeights.length; i++) {
+                network.denseWeights[i] = buffer.get();
+            }
+            network.outputBias = buffer.getInt();
+            for (int i = 0; i < network.outputWeights.length; i++) {
+                network.outputWeights[i] = buffer.get();
+            }
+            return network;
+        }
+    }
+
+    public void save(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(20 + (int) payloadBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(hidden).putInt(layerSize).putInt(divisor);
+        for (short bias : featureBiases) {
+            buffer.putShort(bias);
+        }
+        for (short weight : featureWeights) {
+            buffer.putShort(weight);
+        }
+        for (int bias : denseBiases) {
+            buffer.putInt(bias);
+        }
+        for (short weight : denseWeights) {
+            buffer.put((byte) weight);
+        }
+        buffer.putInt(outputBias);
+        for (int weight : outputWeights) {
+            buffer.put((byte) weight);
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * An untrained network for benchmarks and for checking the incremental updates. Weights
+     * are random except for one hand-set path: the first neuron of each perspective counts
+     * its own material and the first dense neuron takes the difference. The output is roughly
+     * the material balance plus noise from the random part, so searches with it stay
+     * well-behaved while doing the full amount of arithmetic.
+     */
+    public static NnueNetwork random(long seed, int hidden, int layerSize) {
+        SplittableRandom random = new SplittableRandom(seed);
+        NnueNetwork network = new NnueNetwork(hidden, layerSize, 2);
+        int[] material = {2, 5, 5, 8, 14}; // Pawn to queen in units of 64 centipawns
+        for (int i = 1; i < hidden; i++) {
+            network.featureBiases[i] = (short) random.nextInt(0, 32);
+        }
+        for (int feature = 0; feature < FEATURES; feature++) {
+            int piece = (feature / 64) % 10;
+            network.featureWeights[feature * hidden] = (short) (piece % 2 == 0 ? material[piece / 2] : 0);
+            for (int i = 1; i < hidden; i++) {
+                network.featureWeights[feature * hidden + i] = (short) random.nextInt(-8, 9);
+            }
+        }
+
+        // Dense neuron 0 is 64 + own material - their material, in units of 64 centipawns.
+        network.denseBiases[0] = 64 << DENSE_SHIFT;
+        network.denseWeights[0] = 64;
+        network.denseWeights[hidden] = -64;
+        for (int i = 2 * hidden; i < network.denseWeights.length; i++) {
+            network.denseWeights[i] = (short) random.nextInt(-16, 17);
+        }
+        network.outputBias = -64 * 127;
+        network.outputWeights[0] = 127;
+        for (int i = 1; i < layerSize; i++) {
+            network.outputWeights[i] = random.nextInt(-1, 2);
+        }
+        return network;
+    }
+
+    private long payloadBytes() {
+        return 2L * (featureBiases.length + featureWeights.length) + 4L * denseBiases.length
+                + denseWeights.length + 4 + outputWeights.length;
+    }
+
+    /** Input index of {@code code} on {@code square} seen from {@code perspective} with its king on {@code king}. */
+    static int feature(int perspective, int king, int code, int square) {
+        int flip = perspective == 0 ? 0 : 56;
+        int piece = (code % 6) * 2 + (code / 6 == perspective ? 0 : 1);
+        return ((king ^ flip) * 10 + piece) * 64 + (square ^ flip);
+    }
+}
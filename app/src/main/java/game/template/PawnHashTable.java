@@ -0,0 +1,73 @@
+package game.template;
+
+/**
+ * Caches pawn-structure scores by {@link Position#pawnKey()}. Pawn structure changes on few
+ * moves, so most probes hit and the file-by-file pawn analysis runs rarely. Entries are
+ * overwritten on collision; not thread-safe.
+ */
+final class PawnHashTable {
+    /** Returned by {@link #probe(long)} when the key is not cached. */
+    static final int MISSING = Integer.MIN_VALUE;
+
+    static final int DEFAULT_ENTRIES = 1 << 14;
+
+    private final long[] keys;
+    private final int[] scores;
+    private final int mask;
+    private long probes;
+    private long hits;
+
+    PawnHashTable() {
+        this(DEFAULT_ENTRIES);
+    }
+
+    /** @param entries table size, rounded down to a power of two */
+    PawnHashTable(int entries) {
+        int size = Integer.highestOneBit(Math.max(1, entries));
+        keys = new long[size];
+        scores = new int[size];
+        mask = size - 1;
+        // Key 1 never maps to slot 0, so this keeps the pawnless key 0 from matching an empty table.
+        keys[0] = 1;
+    }
+
+    /** The packed score stored for {@code key}, or {@link #MISSING}. */
+    int probe(long key) {
+        probes++;
+        int index = (int) key & mask;
+        if (keys[index] != key) {
+            return MISSING;
+        }
+        hits++;
+        return scores[index];
+    }
+
+    void store(long key, int score) {
+        int index = (int) key & mask;
+        keys[index] = key;
+        scores[index] = score;
+    }
+
+    long probes() {
+        return probes;
+    }
+
+    double hitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    // Middlegame and endgame scores share one int: the endgame half is added on top of the
+    // middlegame half, so the two unpack independently even when negative.
+
+    static int pack(int middlegame, int endgame) {
+        return (endgame << 16) + middlegame;
+    }
+
+    static int middlegame(int packed) {
+        return (short) packed;
+    }
+
+    static int endgame(int packed) {
+        return (short) ((packed + 0x8000) >> 16);
+    }
+}
@@ -0,0 +1,104 @@
+package game.template;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Move-path enumeration used as the correctness gate for {@link MoveGenerator} and as the
+ * raw nodes-per-second benchmark. Run {@code main} to check the standard suite.
+ */
+public final class Perft {
+    // FEN, then the expected node counts from depth 1 upwards.
+    static final Object[][] SUITE = {
+        {Fen.INITIAL, new long[] {20, 400, 8902, 197281, 4865609, 119060324}},
+        {"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            new long[] {48, 2039, 97862, 4085603, 193690690}},
+        {"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", new long[] {14, 191, 2812, 43238, 674624, 11030083}},
+        {"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            new long[] {6, 264, 9467, 422333, 15833292}},
+        {"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", new long[] {44, 1486, 62379, 2103487, 89941194}},
+        {"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            new long[] {46, 2079, 89890, 3894594, 164075551}},
+    };
+
+    private Perft() {
+    }
+
+    public static long perft(Position position, int depth) {
+        return perft(position, depth, new int[depth + 1][MoveGenerator.MAX_MOVES]);
+    }
+
+    /** Node count below each root move, keyed by the move in UCI notation. */
+    public static Map<String, Long> divide(Position position, int depth) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generate(position, moves);
+        int[][] buffers = new int[Math.max(depth, 1)][MoveGenerator.MAX_MOVES];
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            result.put(Moves.toUci(moves[i]), depth <= 1 ? 1 : perft(position, depth - 1, buffers));
+            position.unmakeMove();
+        }
+        return result;
+    }
+
+    private static long perft(Position position, int depth, int[][] buffers) {
+        if (depth == 0) {
+            return 1;
+        }
+        int[] moves = buffers[depth];
+        int count = MoveGenerator.generate(position, moves);
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            nodes += perft(position, depth - 1, buffers);
+            position.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Usage: {@code Perft [maxDepth]} runs the suite, or {@code Perft <depth> <fen>} prints a
+     * divide for one position. Exits non-zero on any mismatch.
+     */
+    public static void main(String[] args) {
+        if (args.length > 1) {
+            Position position = Fen.parse(String.join(" ", java.util.Arrays.copyOfRange(args, 1, args.length)));
+            int depth = Integer.parseInt(args[0]);
+            long total = 0;
+            for (Map.Entry<String, Long> entry : divide(position, depth).entrySet()) {
+                System.out.println(entry.getKey() + ": " + entry.getValue());
+                total += entry.getValue();
+            }
+            System.out.println("Nodes: " + total);
+            return;
+        }
+
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        boolean failed = false;
+        long totalNodes = 0;
+        long totalNanos = 0;
+        for (Object[] test : SUITE) {
+            String fen = (String) test[0];
+            long[] expected = (long[]) test[1];
+            int depth = Math.min(maxDepth, expected.length);
+            long start = System.nanoTime();
+            long nodes = perft(Fen.parse(fen), depth);
+            long elapsed = System.nanoTime() - start;
+            totalNodes += nodes;
+            totalNanos += elapsed;
+            boolean ok = nodes == expected[depth - 1];
+            failed |= !ok;
+            System.out.printf("%s depth %d: %d nodes (%s) %.0f knps  %s%n", ok ? "OK  " : "FAIL", depth, nodes,
+                    ok ? "expected" : "expected " + expected[depth - 1], nodes / (elapsed / 1e6), fen);
+        }
+        System.out.printf("Total: %d nodes in %d ms, %.0f knps%n", totalNodes, totalNanos / 1_000_000,
+                totalNodes / (totalNanos / 1e6));
+        if (failed) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package game.template;
+
+import java.util.Collections;
+import java.util.Map;
+
+/** One game read from a PGN archive: its tag pairs, starting position and mainline moves. */
+public final class PgnGame {
+    private final Map<String, String> tags;
+    private final String startFen;
+    private final int[] moves;
+    private final String result;
+
+    PgnGame(Map<String, String> tags, String startFen, int[] moves, String result) {
+        this.tags = Collections.unmodifiableMap(tags);
+        this.startFen = startFen;
+        this.moves = moves;
+        this.result = result;
+    }
+
+    /** Tag pairs in file order, e.g. {@code White}, {@code Event} or {@code ECO}. */
+    public Map<String, String> tags() {
+        return tags;
+    }
+
+    public String tag(String name) {
+        return tags.get(name);
+    }
+
+    /** The {@code FEN} tag when the game does not start from the initial position. */
+    public String startFen() {
+        return startFen;
+    }
+
+    public Position startPosition() {
+        return Fen.parse(startFen);
+    }
+
+    /** A position that has played every move, so it can still be unmade back to the start. */
+    public Position finalPosition() {
+        Position position = startPosition();
+        for (int move : moves) {
+            position.makeMove(move);
+        }
+        return position;
+    }
+
+    /** Mainline moves as encoded by {@link Moves}; variations and comments are dropped. */
+    public int[] moves() {
+        return moves.clone();
+    }
+
+    public int moveCount() {
+        return moves.length;
+    }
+
+    public int move(int index) {
+        return moves[index];
+    }
+
+    /** {@code 1-0}, {@code 0-1}, {@code 1/2-1/2} or {@code *}. */
+    public String result() {
+        return result;
+    }
+}
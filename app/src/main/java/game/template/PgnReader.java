@@ -0,0 +1,556 @@
+package game.template;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Streaming PGN reader for archives of any size. Input is read through a fixed 64 KB buffer
+ * into one reusable per-game buffer, so memory stays bounded by the longest game rather than
+ * the file; games longer than {@link #MAX_GAME_BYTES} are skipped. Every mainline move is
+ * checked against the board model through {@link San}; games with malformed tags or illegal
+ * moves are skipped and counted in {@link #errors()}.
+ *
+ * <p>{@link #forEach} splits a file at {@code [Event} tags and parses the pieces in parallel,
+ * each with its own reader over positional reads of a shared {@link FileChannel}.
+ */
+public final class PgnReader implements Closeable {
+    public static final int MAX_GAME_BYTES = 1 << 20;
+
+    private static final int READ_BUFFER_BYTES = 1 << 16;
+    private static final byte[] EVENT_TAG = "\n[Event ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HALF_POINTS = "1/2-1/2".getBytes(StandardCharsets.US_ASCII);
+
+    private final ReadableByteChannel channel;
+    private final FileChannel file;
+    private final boolean ownsChannel;
+    private long filePosition;
+    private final long fileEnd;
+    private final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+    private boolean endOfInput;
+    private boolean startOfInput = true;
+
+    // text[0, textLength) holds the current game and possibly the start of the next one.
+    private byte[] text = new byte[1 << 14];
+    private int textLength;
+    private int lineStart;
+    private int scan;
+    private boolean movetextSeen;
+    private boolean contentSeen;
+    private boolean oversized;
+
+    private final Ascii ascii = new Ascii();
+    private final int[] scratch = new int[MoveGenerator.MAX_MOVES];
+    private final Position position = new Position(); // Refilled for every game
+    private int[] moves = new int[256];
+
+    private long games;
+    private long errors;
+    private String lastError;
+
+    /** Reads a stream such as stdin or a socket; the channel is closed with the reader. */
+    public PgnReader(ReadableByteChannel channel) {
+        this(channel, null, 0, 0, true);
+    }
+
+    /** Reads {@code file[start, end)} with positional reads; the channel is left open. */
+    PgnReader(FileChannel file, long start, long end) {
+        this(null, file, start, end, false);
+    }
+
+    private PgnReader(ReadableByteChannel channel, FileChannel file, long start, long end, boolean ownsChannel) {
+        this.channel = channel;
+        this.file = file;
+        this.filePosition = start;
+        this.fileEnd = end;
+        this.ownsChannel = ownsChannel;
+    }
+
+    public static PgnReader open(Path path) throws IOException {
+        FileChannel file = FileChannel.open(path, StandardOpenOption.READ);
+        return new PgnReader(null, file, 0, file.size(), true);
+    }
+
+    /**
+     * Parses every game in {@code path} on {@code threads} threads and hands each to
+     * {@code action}, which must be thread-safe; games arrive in no particular order.
+     * Returns the number of games parsed.
+     */
+    public static long forEach(Path path, int threads, Consumer<PgnGame> action) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = file.size();
+            // A few pieces per thread so one slow piece does not leave the others idle.
+            int pieces = size < MAX_GAME_BYTES ? 1 : Math.max(1, threads * 4);
+            List<Long> bounds = new ArrayList<>();
+            bounds.add(0L);
+            for (int i = 1; i < pieces; i++) {
+                long bound = findEventTag(file, Math.max(size * i / pieces, bounds.get(bounds.size() - 1)), size);
+                if (bound > bounds.get(bounds.size() - 1) && bound < size) {
+                    bounds.add(bound);
+                }
+            }
+            bounds.add(size);
+
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+                Thread thread = new Thread(runnable, "pgn-reader");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<Long>> futures = new ArrayList<>();
+                for (int i = 0; i + 1 < bounds.size(); i++) {
+                    long start = bounds.get(i);
+                    long end = bounds.get(i + 1);
+                    futures.add(executor.submit(() -> {
+                        try (PgnReader reader = new PgnReader(file, start, end)) {
+                            PgnGame game;
+                            while ((game = reader.next()) != null) {
+                                action.accept(game);
+                            }
+                            return reader.games();
+                        }
+                    }));
+                }
+                long total = 0;
+                for (Future<Long> future : futures) {
+                    total += future.get();
+                }
+                return total;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading " + path);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IllegalStateException("Failed to read " + path, e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /** Offset of the first line starting with {@code [Event} at or after {@code from}, or {@code size}. */
+    private static long findEventTag(FileChannel file, long from, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        // Start one byte early so a newline just before from counts.
+        long position = Math.max(0, from - 1);
+        while (position < size) {
+            window.clear();
+            int read = file.read(window, position);
+            if (read <= 0) {
+                break;
+            }
+            byte[] bytes = window.array();
+            for (int i = 0; i + EVENT_TAG.length <= read; i++) {
+                if (bytes[i] == '\n' && matches(bytes, i, EVENT_TAG)) {
+                    return position + i + 1;
+                }
+            }
+            if (position + read >= size) {
+                break;
+            }
+            // Overlap the next window so a tag split across two reads is still found.
+            position += read - EVENT_TAG.length + 1;
+        }
+        return size;
+    }
+
+    private static boolean matches(byte[] bytes, int offset, byte[] pattern) {
+        for (int i = 0; i < pattern.length; i++) {
+            if (bytes[offset + i] != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** The next well-formed game, or null at the end of the input. */
+    public PgnGame next() throws IOException {
+        while (true) {
+            int length = nextGameLength();
+            if (length < 0) {
+                return null;
+            }
+            PgnGame game = oversized ? fail("Game longer than " + MAX_GAME_BYTES + " bytes") : parse(length);
+            System.arraycopy(text, length, text, 0, textLength - length);
+            textLength -= length;
+            lineStart = 0;
+            scan = 0;
+            movetextSeen = false;
+            contentSeen = false;
+            oversized = false;
+            if (game != null) {
+                games++;
+                return game;
+            }
+        }
+    }
+
+    public long games() {
+        return games;
+    }
+
+    /** Games skipped because they were malformed, contained an illegal move or were too long. */
+    public long errors() {
+        return errors;
+    }
+
+    /** Why the most recent game was skipped, or null. */
+    public String lastError() {
+        return lastError;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (ownsChannel) {
+            (file != null ? file : channel).close();
+        }
+    }
+
+    // A game ends where a tag line follows movetext, or at the end of the input.
+    private int nextGameLength() throws IOException {
+        while (true) {
+            int newline = indexOf((byte) '\n', scan, textLength);
+            if (newline < 0) {
+                scan = textLength;
+                if (fill()) {
+                    continue;
+                }
+                if (lineStart < textLength) {
+                    int first = firstNonBlank(lineStart, textLength);
+                    if (first >= 0 && text[first] == '[' && movetextSeen) {
+                        return lineStart;
+                    }
+                    contentSeen |= first >= 0;
+                }
+                return contentSeen ? textLength : -1;
+            }
+            int first = firstNonBlank(lineStart, newline);
+            if (first >= 0) {
+                if (text[first] != '[') {
+                    movetextSeen = true;
+                } else if (movetextSeen) {
+                    return lineStart;
+                }
+                contentSeen = true;
+            }
+            lineStart = newline + 1;
+            scan = lineStart;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int read = 0;
+        while (read == 0) {
+            if (endOfInput) {
+                return false;
+            }
+            buffer.clear();
+            if (file != null) {
+                long remaining = fileEnd - filePosition;
+                if (remaining < buffer.capacity()) {
+                    buffer.limit((int) Math.max(0, remaining));
+                }
+                read = remaining > 0 ? file.read(buffer, filePosition) : -1;
+                if (read > 0) {
+                    filePosition += read;
+                }
+            } else {
+                read = channel.read(buffer);
+            }
+            if (read < 0) {
+                endOfInput = true;
+                return false;
+            }
+        }
+
+        byte[] bytes = buffer.array();
+        int offset = 0;
+        if (startOfInput && read >= 3
+                && bytes[0] == (byte) 0xEF && bytes[1] == (byte) 0xBB && bytes[2] == (byte) 0xBF) {
+            offset = 3; // UTF-8 byte order mark
+        }
+        startOfInput = false;
+        int needed = textLength + read - offset;
+        if (needed > text.length) {
+            if (needed > MAX_GAME_BYTES) {
+                // Too long to keep: drop the lines scanned so far, and the current line if even
+                // that does not fit. The game is skipped once its end is found.
+                oversized = true;
+                movetextSeen = true;
+                System.arraycopy(text, lineStart, text, 0, textLength - lineStart);
+                textLength -= lineStart;
+                scan -= lineStart;
+                lineStart = 0;
+                if (textLength + read - offset > MAX_GAME_BYTES) {
+                    textLength = 0;
+                    scan = 0;
+                }
+                needed = textLength + read - offset;
+            }
+            if (needed > text.length) {
+                text = Arrays.copyOf(text, Math.min(MAX_GAME_BYTES, Math.max(needed, text.length * 2)));
+            }
+        }
+        System.arraycopy(bytes, offset, text, textLength, read - offset);
+        textLength += read - offset;
+        return true;
+    }
+
+    private int indexOf(byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int firstNonBlank(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isBlank(text[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b >= 0 && b <= ' ';
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private PgnGame fail(String message) {
+        errors++;
+        lastError = message;
+        return null;
+    }
+
+    private PgnGame parse(int length) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        int i = 0;
+        while (true) {
+            i = firstNonBlank(i, length);
+            if (i < 0 || text[i] != '[') {
+                break;
+            }
+            i = parseTag(i, length, tags);
+            if (i < 0) {
+                return fail("Malformed tag pair");
+            }
+        }
+        if (i < 0) {
+            i = length;
+        }
+
+        String fen = tags.getOrDefault("FEN", Fen.INITIAL);
+        try {
+            Fen.parse(fen, position);
+        } catch (IllegalArgumentException e) {
+            return fail(e.getMessage());
+        }
+
+        ascii.text = text;
+        int count = 0;
+        String result = "*";
+        while (i < length) {
+            byte b = text[i];
+            if (isBlank(b)) {
+                i++;
+                continue;
+            }
+            switch (b) {
+                case '{':
+                    i = skipPast((byte) '}', i, length);
+                    continue;
+                case ';':
+                case '%':
+                    i = skipPast((byte) '\n', i, length);
+                    continue;
+                case '(':
+                    i = skipVariation(i, length);
+                    continue;
+                case ')':
+                    i++;
+                    continue;
+                case '$':
+                    i++;
+                    while (i < length && isDigit(text[i])) {
+                        i++;
+                    }
+                    continue;
+                default:
+                    break;
+            }
+
+            int start = i;
+            int end = i;
+            while (end < length && !isBlank(text[end]) && "{}();$".indexOf(text[end]) < 0) {
+                end++;
+            }
+            i = end;
+
+            // Move numbers such as "12." or "12..." may be glued to the move that follows.
+            int digits = start;
+            while (digits < end && isDigit(text[digits])) {
+                digits++;
+            }
+            if (digits < end && text[digits] == '.') {
+                start = digits;
+                while (start < end && text[start] == '.') {
+                    start++;
+                }
+                if (start == end) {
+                    continue;
+                }
+            }
+
+            if (isResult(start, end)) {
+                result = new String(text, start, end - start, StandardCharsets.US_ASCII);
+                continue;
+            }
+            int move = San.parse(position, ascii, start, end, scratch);
+            if (move == Moves.NONE) {
+                return fail("Illegal move " + new String(text, start, end - start, StandardCharsets.UTF_8)
+                        + " at ply " + (count + 1));
+            }
+            position.makeMove(move);
+            if (count == moves.length) {
+                moves = Arrays.copyOf(moves, count * 2);
+            }
+            moves[count++] = move;
+        }
+        return new PgnGame(tags, fen, Arrays.copyOf(moves, count), result);
+    }
+
+    /** Parses {@code [Name "value"]} at {@code i}; returns the index after {@code ]}, or -1. */
+    private int parseTag(int i, int length, Map<String, String> tags) {
+        int nameStart = i + 1;
+        int nameEnd = nameStart;
+        while (nameEnd < length && !isBlank(text[nameEnd]) && text[nameEnd] != '"') {
+            nameEnd++;
+        }
+        int quote = firstNonBlank(nameEnd, length);
+        if (nameEnd == nameStart || quote < 0 || text[quote] != '"') {
+            return -1;
+        }
+
+        byte[] value = null;
+        int valueLength = 0;
+        int j = quote + 1;
+        int valueStart = j;
+        boolean escaped = false;
+        for (; j < length && text[j] != '"' && text[j] != '\n'; j++) {
+            if (text[j] == '\\' && j + 1 < length) {
+                if (!escaped) {
+                    escaped = true;
+                    value = new byte[length - valueStart];
+                    valueLength = j - valueStart;
+                    System.arraycopy(text, valueStart, value, 0, valueLength);
+                }
+                j++;
+            }
+            if (escaped) {
+                value[valueLength++] = text[j];
+            }
+        }
+        if (j >= length || text[j] != '"') {
+            return -1;
+        }
+        int close = indexOf((byte) ']', j + 1, length);
+        if (close < 0) {
+            return -1;
+        }
+
+        String name = new String(text, nameStart, nameEnd - nameStart, StandardCharsets.US_ASCII);
+        tags.put(name, escaped
+                ? new String(value, 0, valueLength, StandardCharsets.UTF_8)
+                : new String(text, valueStart, j - valueStart, StandardCharsets.UTF_8));
+        return close + 1;
+    }
+
+    private int skipPast(byte b, int i, int length) {
+        int found = indexOf(b, i + 1, length);
+        return found < 0 ? length : found + 1;
+    }
+
+    // Variations nest and may contain comments with unbalanced parentheses.
+    private int skipVariation(int i, int length) {
+        int depth = 0;
+        while (i < length) {
+            byte b = text[i];
+            if (b == '{') {
+                i = skipPast((byte) '}', i, length);
+                continue;
+            }
+            if (b == ';') {
+                i = skipPast((byte) '\n', i, length);
+                continue;
+            }
+            i++;
+            if (b == '(') {
+                depth++;
+            } else if (b == ')' && --depth == 0) {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private boolean isResult(int start, int end) {
+        int length = end - start;
+        if (length == 1) {
+            return text[start] == '*';
+        }
+        if (length == 3) {
+            return (text[start] == '1' && text[start + 1] == '-' && text[start + 2] == '0')
+                    || (text[start] == '0' && text[start + 1] == '-' && text[start + 2] == '1');
+        }
+        return length == 7 && matches(text, start, HALF_POINTS);
+    }
+
+    /** Lets {@link San} read the game buffer without copying each move into a String. */
+    private static final class Ascii implements CharSequence {
+        byte[] text;
+
+        @Override
+        public int length() {
+            return text.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (text[index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(text, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return new String(text, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
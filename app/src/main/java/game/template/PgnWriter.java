@@ -0,0 +1,92 @@
+package game.template;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Map;
+
+/** Writes games in PGN export format: the seven tag roster first, movetext in SAN under 80 columns. */
+public final class PgnWriter {
+    private static final String[] SEVEN_TAG_ROSTER = {"Event", "Site", "Date", "Round", "White", "Black", "Result"};
+    private static final int LINE_LENGTH = 79;
+
+    private PgnWriter() {
+    }
+
+    public static void write(Writer out, PgnGame game) throws IOException {
+        Map<String, String> tags = game.tags();
+        for (String name : SEVEN_TAG_ROSTER) {
+            String value = name.equals("Result") ? game.result() : tags.get(name);
+            writeTag(out, name, value != null ? value : name.equals("Date") ? "????.??.??" : "?");
+        }
+        if (!game.startFen().equals(Fen.INITIAL) && !tags.containsKey("FEN")) {
+            writeTag(out, "SetUp", "1");
+            writeTag(out, "FEN", game.startFen());
+        }
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            if (!isRosterTag(tag.getKey())) {
+                writeTag(out, tag.getKey(), tag.getValue());
+            }
+        }
+        out.write('\n');
+
+        StringBuilder line = new StringBuilder(LINE_LENGTH + 16);
+        Position position = game.startPosition();
+        for (int i = 0; i < game.moveCount(); i++) {
+            StringBuilder token = new StringBuilder(16);
+            if (position.sideToMove() == Player.WHITE) {
+                token.append(position.fullmoveNumber()).append(". ");
+            } else if (i == 0) {
+                token.append(position.fullmoveNumber()).append("... ");
+            }
+            int move = game.move(i);
+            token.append(San.format(position, move));
+            position.makeMove(move);
+            append(out, line, token);
+        }
+        append(out, line, game.result());
+        out.write(line.toString());
+        out.write('\n');
+    }
+
+    public static String toString(PgnGame game) {
+        StringWriter out = new StringWriter();
+        try {
+            write(out, game);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    // A move number travels with its move, so lines only break between moves.
+    private static void append(Writer out, StringBuilder line, CharSequence token) throws IOException {
+        if (line.length() > 0 && line.length() + 1 + token.length() > LINE_LENGTH) {
+            out.write(line.toString());
+            out.write('\n');
+            line.setLength(0);
+        }
+        if (line.length() > 0) {
+            line.append(' ');
+        }
+        line.append(token);
+    }
+
+    private static boolean isRosterTag(String name) {
+        for (String roster : SEVEN_TAG_ROSTER) {
+            if (roster.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void writeTag(Writer out, String name, String value) throws IOException {
+        out.write('[');
+        out.write(name);
+        out.write(" \"");
+        out.write(value.replace("\\", "\\\\").replace("\"", "\\\""));
+        out.write("\"]\n");
+    }
+}
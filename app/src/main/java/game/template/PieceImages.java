@@ -0,0 +1,26 @@
+package game.template;
+
+import javafx.scene.image.Image;
+
+/**
+ * The twelve piece sprites, decoded once and shared by every board: one {@link Image} can
+ * back any number of image views, so placing a piece never touches the PNG again.
+ */
+final class PieceImages {
+    private static final Image[] IMAGES = new Image[12];
+
+    static {
+        for (int code = 0; code < IMAGES.length; code++) {
+            String name = (code < 6 ? "w" : "b") + Position.typeOf(code).toString().toLowerCase() + ".png";
+            IMAGES[code] = new Image(PieceImages.class.getResource("/assets/" + name).toExternalForm());
+        }
+    }
+
+    private PieceImages() {
+    }
+
+    /** The sprite for a piece code, or null for {@link Position#NO_PIECE}. */
+    static Image of(int code) {
+        return code == Position.NO_PIECE ? null : IMAGES[code];
+    }
+}
@@ -0,0 +1,127 @@
+package game.template;
+
+/**
+ * Material plus piece-square values for the tapered evaluation, indexed by piece code and
+ * square. Black entries are mirrored and negated, so summing a position's entries gives the
+ * middlegame and endgame scores from white's point of view; {@link Position} keeps those sums
+ * up to date in {@code put}/{@code remove}.
+ */
+final class PieceSquareTables {
+    /** Game phase weight per piece type; the starting position has {@link #TOTAL_PHASE}. */
+    static final int[] PHASE = {0, 1, 1, 2, 4, 0};
+    static final int TOTAL_PHASE = 24;
+
+    static final int[] MIDDLEGAME_VALUES = {82, 337, 365, 477, 1025, 0};
+    static final int[] ENDGAME_VALUES = {94, 281, 297, 512, 936, 0};
+
+    static final int[][] MIDDLEGAME = new int[12][64];
+    static final int[][] ENDGAME = new int[12][64];
+
+    // Tables below are laid out as seen from white: the first row is rank 8, the last rank 1.
+
+    private static final int[] PAWN_MIDDLEGAME = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         50,  50,  50,  50,  50,  50,  50,  50,
+         10,  10,  20,  30,  30,  20,  10,  10,
+          5,   5,  10,  25,  25,  10,   5,   5,
+          0,   0,   0,  20,  20,   0,   0,   0,
+          5,  -5, -10,   0,   0, -10,  -5,   5,
+          5,  10,  10, -20, -20,  10,  10,   5,
+          0,   0,   0,   0,   0,   0,   0,   0
+    };
+
+    private static final int[] PAWN_ENDGAME = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         80,  80,  80,  80,  80,  80,  80,  80,
+         50,  50,  50,  50,  50,  50,  50,  50,
+         30,  30,  30,  30,  30,  30,  30,  30,
+         15,  15,  15,  15,  15,  15,  15,  15,
+          5,   5,   5,   5,   5,   5,   5,   5,
+          0,   0,   0,   0,   0,   0,   0,   0,
+          0,   0,   0,   0,   0,   0,   0,   0
+    };
+
+    private static final int[] KNIGHT = {
+        -50, -40, -30, -30, -30, -30, -40, -50,
+        -40, -20,   0,   0,   0,   0, -20, -40,
+        -30,   0,  10,  15,  15,  10,   0, -30,
+        -30,   5,  15,  20,  20,  15,   5, -30,
+        -30,   0,  15,  20,  20,  15,   0, -30,
+        -30,   5,  10,  15,  15,  10,   5, -30,
+        -40, -20,   0,   5,   5,   0, -20, -40,
+        -50, -40, -30, -30, -30, -30, -40, -50
+    };
+
+    private static final int[] BISHOP = {
+        -20, -10, -10, -10, -10, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,  10,  10,   5,   0, -10,
+        -10,   5,   5,  10,  10,   5,   5, -10,
+        -10,   0,  10,  10,  10,  10,   0, -10,
+        -10,  10,  10,  10,  10,  10,  10, -10,
+        -10,   5,   0,   0,   0,   0,   5, -10,
+        -20, -10, -10, -10, -10, -10, -10, -20
+    };
+
+    private static final int[] ROOK = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+          5,  10,  10,  10,  10,  10,  10,   5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+          0,   0,   0,   5,   5,   0,   0,   0
+    };
+
+    private static final int[] QUEEN = {
+        -20, -10, -10,  -5,  -5, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,   5,   5,   5,   0, -10,
+         -5,   0,   5,   5,   5,   5,   0,  -5,
+          0,   0,   5,   5,   5,   5,   0,  -5,
+        -10,   5,   5,   5,   5,   5,   0, -10,
+        -10,   0,   5,   0,   0,   0,   0, -10,
+        -20, -10, -10,  -5,  -5, -10, -10, -20
+    };
+
+    private static final int[] KING_MIDDLEGAME = {
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -20, -30, -30, -40, -40, -30, -30, -20,
+        -10, -20, -20, -20, -20, -20, -20, -10,
+         20,  20,   0,   0,   0,   0,  20,  20,
+         20,  30,  10,   0,   0,  10,  30,  20
+    };
+
+    private static final int[] KING_ENDGAME = {
+        -50, -40, -30, -20, -20, -30, -40, -50,
+        -30, -20, -10,   0,   0, -10, -20, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -30,   0,   0,   0,   0, -30, -30,
+        -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    static {
+        int[][] middlegame = {PAWN_MIDDLEGAME, KNIGHT, BISHOP, ROOK, QUEEN, KING_MIDDLEGAME};
+        int[][] endgame = {PAWN_ENDGAME, KNIGHT, BISHOP, ROOK, QUEEN, KING_ENDGAME};
+        for (int type = 0; type < 6; type++) {
+            for (int square = 0; square < 64; square++) {
+                // White reads the table flipped vertically (a1 is the start of the last row);
+                // black reads it as laid out, which mirrors it onto black's side.
+                MIDDLEGAME[type][square] = MIDDLEGAME_VALUES[type] + middlegame[type][square ^ 56];
+                ENDGAME[type][square] = ENDGAME_VALUES[type] + endgame[type][square ^ 56];
+                MIDDLEGAME[type + 6][square] = -(MIDDLEGAME_VALUES[type] + middlegame[type][square]);
+                ENDGAME[type + 6][square] = -(ENDGAME_VALUES[type] + endgame[type][square]);
+            }
+        }
+    }
+
+    private PieceSquareTables() {
+    }
+}
@@ -0,0 +1,256 @@
+package game.template;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Opening book in the Polyglot {@code .bin} format: 16-byte big-endian entries (key, move,
+ * weight, learn) sorted by unsigned key. The file is memory-mapped and binary-searched, so a
+ * book of any size costs no heap and opens instantly.
+ *
+ * <p>Keys follow the Polyglot hashing scheme, which needs its published table of 781 random
+ * numbers. That table ships as the classpath resource {@value #RANDOM64_RESOURCE} (781 hex
+ * values, as printed in the Polyglot book format specification). A missing or damaged table
+ * fails class initialization rather than producing keys no other tool would agree with.
+ */
+public final class PolyglotBook implements Closeable {
+    public static final int ENTRY_BYTES = 16;
+    public static final String RANDOM64_RESOURCE = "/polyglot-random64.txt";
+    public static final int DEFAULT_MAX_PLY = 30;
+
+    private static final int RANDOM64_SIZE = 781;
+    private static final int CASTLING_OFFSET = 768;
+    private static final int EN_PASSANT_OFFSET = 772;
+    private static final int TURN_OFFSET = 780;
+    /** Key of the initial position under the published table, from the format specification. */
+    private static final long INITIAL_KEY = 0x463B96181691FC9CL;
+    static final long[] RANDOM64 = loadRandom64();
+
+    static {
+        if (key(Position.initial()) != INITIAL_KEY) {
+            throw new IllegalStateException(RANDOM64_RESOURCE + " is not the Polyglot Random64 table");
+        }
+    }
+
+    private final FileChannel channel;
+    private final MappedSegments file;
+    private final long entries;
+    private volatile int maxPly = DEFAULT_MAX_PLY;
+
+    private PolyglotBook(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        file = new MappedSegments(channel, 0, ByteOrder.BIG_ENDIAN);
+        if (file.size() % ENTRY_BYTES != 0) {
+            channel.close();
+            throw new IOException("Not a Polyglot book (size is not a multiple of 16): " + path);
+        }
+        entries = file.size() / ENTRY_BYTES;
+    }
+
+    public static PolyglotBook open(Path path) throws IOException {
+        return new PolyglotBook(path);
+    }
+
+    private static long[] loadRandom64() {
+        InputStream in = PolyglotBook.class.getResourceAsStream(RANDOM64_RESOURCE);
+        if (in == null) {
+            throw new IllegalStateException(RANDOM64_RESOURCE + " is missing from the classpath");
+        }
+        long[] values = new long[RANDOM64_SIZE];
+        int count = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                for (String token : line.replaceFirst("//.*", "").split("[\\s,{}]+")) {
+                    token = token.replaceFirst("^0[xX]", "").replaceFirst("[uUlL]+$", "");
+                    if (token.isEmpty()) {
+                        continue;
+                    }
+                    if (count == RANDOM64_SIZE) {
+                        throw new IllegalStateException(
+                                RANDOM64_RESOURCE + " has more than " + RANDOM64_SIZE + " values");
+                    }
+                    values[count++] = Long.parseUnsignedLong(token, 16);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (count != RANDOM64_SIZE) {
+            throw new IllegalStateException(RANDOM64_RESOURCE + " has " + count + " values, expected " + RANDOM64_SIZE);
+        }
+        return values;
+    }
+
+    /** The Polyglot key of {@code position}; unrelated to {@link Position#key()}. */
+    public static long key(Position position) {
+        long key = 0;
+        long occupied = position.occupied();
+        while (occupied != 0) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+            int code = position.pieceAt(square);
+            // Polyglot orders pieces black pawn, white pawn, black knight, white knight...
+            int kind = 2 * (code % 6) + (code < 6 ? 1 : 0);
+            key ^= RANDOM64[64 * kind + square];
+        }
+        int rights = position.castlingRights();
+        if ((rights & Position.WHITE_KINGSIDE) != 0) {
+            key ^= RANDOM64[CASTLING_OFFSET];
+        }
+        if ((rights & Position.WHITE_QUEENSIDE) != 0) {
+            key ^= RANDOM64[CASTLING_OFFSET + 1];
+        }
+        if ((rights & Position.BLACK_KINGSIDE) != 0) {
+            key ^= RANDOM64[CASTLING_OFFSET + 2];
+        }
+        if ((rights & Position.BLACK_QUEENSIDE) != 0) {
+            key ^= RANDOM64[CASTLING_OFFSET + 3];
+        }
+        // The en-passant file counts only when a pawn of the side to move could capture there.
+        int ep = position.enPassantSquare();
+        int us = position.sideToMove().ordinal();
+        if (ep != Position.NO_SQUARE && (Bitboards.PAWN_ATTACKS[us ^ 1][ep] & position.pieces[us * 6]) != 0) {
+            key ^= RANDOM64[EN_PASSANT_OFFSET + (ep & 7)];
+        }
+        if (us == 0) {
+            key ^= RANDOM64[TURN_OFFSET];
+        }
+        return key;
+    }
+
+    /** The Polyglot move field: to (bits 0-5), from (6-11), promotion (12-14); castling as king takes rook. */
+    public static int encode(int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        if (Moves.flags(move) == Moves.KING_CASTLE) {
+            to = from + 3;
+        } else if (Moves.flags(move) == Moves.QUEEN_CASTLE) {
+            to = from - 4;
+        }
+        return to | (from << 6) | (Moves.isPromotion(move) ? ((move >>> 16) & 7) << 12 : 0);
+    }
+
+    /** The legal move a Polyglot move field denotes in {@code position}, or {@link Moves#NONE}. */
+    public static int decode(Position position, int polyglot) {
+        int to = polyglot & 63;
+        int from = (polyglot >>> 6) & 63;
+        int piece = position.pieceAt(from);
+        if (piece % 6 == 5 && position.pieceAt(to) == piece - 2) {
+            to = to > from ? from + 2 : from - 2;
+        }
+        return MoveGenerator.fromPacked(position, from | (to << 6) | (polyglot & 0x7000));
+    }
+
+    /** Positions deeper than this many plies from the start of the game are not looked up. */
+    public void setMaxPly(int maxPly) {
+        this.maxPly = maxPly;
+    }
+
+    public int maxPly() {
+        return maxPly;
+    }
+
+    public long size() {
+        return entries;
+    }
+
+    /** Book moves for {@code position} with their weights, heaviest first as stored. */
+    public List<Entry> entries(Position position) {
+        List<Entry> found = new ArrayList<>();
+        int ply = 2 * (position.fullmoveNumber() - 1) + position.sideToMove().ordinal();
+        if (ply > maxPly) {
+            return found;
+        }
+        long key = key(position);
+        for (long i = lowerBound(key); i < entries && keyAt(i) == key; i++) {
+            long offset = i * ENTRY_BYTES;
+            ByteBuffer buffer = file.segment(offset);
+            int at = MappedSegments.index(offset);
+            int move = decode(position, buffer.getShort(at + 8) & 0xFFFF);
+            if (move != Moves.NONE) {
+                found.add(new Entry(move, buffer.getShort(at + 10) & 0xFFFF));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * A book move chosen with probability proportional to its weight, or {@link Moves#NONE}
+     * when the position is not in the book, is past {@link #maxPly()}, or has only zero weights.
+     */
+    public int pick(Position position, Random random) {
+        List<Entry> candidates = entries(position);
+        int total = 0;
+        for (Entry entry : candidates) {
+            total += entry.weight;
+        }
+        if (total == 0) {
+            return Moves.NONE;
+        }
+        int choice = random.nextInt(total);
+        for (Entry entry : candidates) {
+            choice -= entry.weight;
+            if (choice < 0) {
+                return entry.move;
+            }
+        }
+        return Moves.NONE;
+    }
+
+    private long keyAt(long i) {
+        long offset = i * ENTRY_BYTES;
+        return file.segment(offset).getLong(MappedSegments.index(offset));
+    }
+
+    // First entry whose key is not below key, comparing keys as unsigned like Polyglot does.
+    private long lowerBound(long key) {
+        long low = 0;
+        long high = entries;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static final class Entry {
+        private final int move;
+        private final int weight;
+
+        Entry(int move, int weight) {
+            this.move = move;
+            this.weight = weight;
+        }
+
+        public int move() {
+            return move;
+        }
+
+        public int weight() {
+            return weight;
+        }
+    }
+}
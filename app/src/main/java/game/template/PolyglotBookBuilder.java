@@ -0,0 +1,139 @@
+package game.template;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Builds a Polyglot book from games. Every move in the first {@code maxPly} plies is counted
+ * with the game's result; moves played fewer than {@code minCount} times are dropped, and the
+ * rest are weighted like Polyglot's own book maker: two points per win and one per draw for
+ * the side that played the move (unfinished games count as draws). {@link #add} is
+ * thread-safe, so games can come straight from {@link PgnReader#forEach}.
+ * Usage: {@code PolyglotBookBuilder games.pgn book.bin [maxPly] [minCount]}.
+ */
+public final class PolyglotBookBuilder {
+    private final int maxPly;
+    private final int minCount;
+    private final Map<BookMove, Tally> tallies = new ConcurrentHashMap<>();
+
+    public PolyglotBookBuilder(int maxPly, int minCount) {
+        this.maxPly = maxPly;
+        this.minCount = minCount;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path pgn = Paths.get(args[0]);
+        Path book = Paths.get(args[1]);
+        int maxPly = args.length > 2 ? Integer.parseInt(args[2]) : PolyglotBook.DEFAULT_MAX_PLY;
+        int minCount = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        PolyglotBookBuilder builder = new PolyglotBookBuilder(maxPly, minCount);
+        long start = System.nanoTime();
+        long games = PgnReader.forEach(pgn, Runtime.getRuntime().availableProcessors(), builder::add);
+        long entries = builder.write(book);
+        System.out.printf("%d games -> %d entries in %s (%.1f s)%n", games, entries, book,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    public void add(PgnGame game) {
+        int whitePoints;
+        switch (game.result()) {
+            case "1-0":
+                whitePoints = 2;
+                break;
+            case "0-1":
+                whitePoints = 0;
+                break;
+            default:
+                whitePoints = 1;
+        }
+        Position position = game.startPosition();
+        for (int i = 0; i < game.moveCount(); i++) {
+            int ply = 2 * (position.fullmoveNumber() - 1) + position.sideToMove().ordinal();
+            if (ply > maxPly) {
+                break;
+            }
+            int move = game.move(i);
+            int points = position.sideToMove() == Player.WHITE ? whitePoints : 2 - whitePoints;
+            Tally tally = tallies.computeIfAbsent(new BookMove(PolyglotBook.key(position), PolyglotBook.encode(move)),
+                    key -> new Tally());
+            tally.count.increment();
+            tally.points.add(points);
+            position.makeMove(move);
+        }
+    }
+
+    /** Writes the book sorted as Polyglot expects; returns the number of entries. */
+    public long write(Path path) throws IOException {
+        List<Map.Entry<BookMove, Tally>> kept = new ArrayList<>();
+        for (Map.Entry<BookMove, Tally> entry : tallies.entrySet()) {
+            if (entry.getValue().count.sum() >= minCount) {
+                kept.add(entry);
+            }
+        }
+        kept.sort((a, b) -> {
+            int byKey = Long.compareUnsigned(a.getKey().key, b.getKey().key);
+            return byKey != 0 ? byKey : Long.compare(b.getValue().points.sum(), a.getValue().points.sum());
+        });
+
+        ByteBuffer entry = ByteBuffer.allocate(PolyglotBook.ENTRY_BYTES);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16)) {
+            int start = 0;
+            while (start < kept.size()) {
+                // Weights are 16 bits, so scale every move of a position by the same factor.
+                long key = kept.get(start).getKey().key;
+                int end = start;
+                while (end < kept.size() && kept.get(end).getKey().key == key) {
+                    end++;
+                }
+                long heaviest = kept.get(start).getValue().points.sum();
+                long divisor = heaviest / 0xFFFF + 1;
+                for (int i = start; i < end; i++) {
+                    entry.clear();
+                    entry.putLong(key);
+                    entry.putShort((short) kept.get(i).getKey().move);
+                    entry.putShort((short) (kept.get(i).getValue().points.sum() / divisor));
+                    entry.putInt(0);
+                    out.write(entry.array());
+                }
+                start = end;
+            }
+        }
+        return kept.size();
+    }
+
+    private static final class BookMove {
+        final long key;
+        final int move;
+
+        BookMove(long key, int move) {
+            this.key = key;
+            this.move = move;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof BookMove && ((BookMove) other).key == key && ((BookMove) other).move == move;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(key) * 31 + move;
+        }
+    }
+
+    private static final class Tally {
+        final LongAdder count = new LongAdder();
+        final LongAdder points = new LongAdder();
+    }
+}
@@ -0,0 +1,447 @@
+package game.template;
+
+/**
+ * Headless board model. Each piece type of each side is kept in its own 64-bit bitboard
+ * (bit 0 = a1, bit 63 = h8) alongside a mailbox for O(1) square lookups, so rule checks
+ * never touch the JavaFX scene graph.
+ */
+public final class Position {
+    public static final int NO_PIECE = -1;
+    public static final int NO_SQUARE = -1;
+
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+
+    /** Plies the undo stack holds before growing: a long game plus the deepest search line. */
+    public static final int MAX_GAME_PLIES = 1024;
+    public static final int MAX_SEARCH_PLY = 128;
+
+    private static final ChessPiece[] PIECES = ChessPiece.values();
+    private static final Player[] PLAYERS = Player.values();
+
+    final long[] pieces = new long[12];
+    final long[] occupancy = new long[2];
+    final int[] board = new int[64];
+    long occupied;
+
+    int side;
+    int castlingRights;
+    int enPassantSquare = NO_SQUARE;
+    int halfmoveClock;
+    int fullmoveNumber = 1;
+    long key = Zobrist.CASTLING[0];
+    long pawnKey;
+
+    // Material plus piece-square sums from white's point of view and the game phase, kept up
+    // to date by put/remove so the evaluator never rescans the board for them.
+    int middlegame;
+    int endgame;
+    int phase;
+
+    // Undo stack: the move played at each ply and the irreversible state it replaced, packed as
+    // castling rights (bits 0-3), en-passant square + 1 (4-10), captured piece + 1 (11-14) and
+    // the halfmove clock (15+), plus the piece that moved.
+    private int[] moveStack = new int[MAX_GAME_PLIES + MAX_SEARCH_PLY];
+    private int[] pieceStack = new int[MAX_GAME_PLIES + MAX_SEARCH_PLY];
+    private int[] stateStack = new int[MAX_GAME_PLIES + MAX_SEARCH_PLY];
+    private long[] keyStack = new long[MAX_GAME_PLIES + MAX_SEARCH_PLY];
+    private int ply;
+
+    public Position() {
+        java.util.Arrays.fill(board, NO_PIECE);
+    }
+
+    public Position(Position other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(other.occupancy, 0, occupancy, 0, occupancy.length);
+        System.arraycopy(other.board, 0, board, 0, board.length);
+        occupied = other.occupied;
+        side = other.side;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        key = other.key;
+        pawnKey = other.pawnKey;
+        middlegame = other.middlegame;
+        endgame = other.endgame;
+        phase = other.phase;
+        moveStack = other.moveStack.clone();
+        pieceStack = other.pieceStack.clone();
+        stateStack = other.stateStack.clone();
+        keyStack = other.keyStack.clone();
+        ply = other.ply;
+    }
+
+    public static Position initial() {
+        Position position = new Position();
+        ChessPiece[] backRank = {
+            ChessPiece.ROOK, ChessPiece.KNIGHT, ChessPiece.BISHOP, ChessPiece.QUEEN,
+            ChessPiece.KING, ChessPiece.BISHOP, ChessPiece.KNIGHT, ChessPiece.ROOK
+        };
+        for (int file = 0; file < 8; file++) {
+            position.put(code(Player.WHITE, backRank[file]), file);
+            position.put(code(Player.WHITE, ChessPiece.PAWN), 8 + file);
+            position.put(code(Player.BLACK, ChessPiece.PAWN), 48 + file);
+            position.put(code(Player.BLACK, backRank[file]), 56 + file);
+        }
+        position.setCastlingRights(ALL_CASTLING);
+        return position;
+    }
+
+    /** Empties the board and forgets the game history, so one instance can be refilled many times. */
+    public void clear() {
+        java.util.Arrays.fill(pieces, 0);
+        occupancy[0] = 0;
+        occupancy[1] = 0;
+        java.util.Arrays.fill(board, NO_PIECE);
+        occupied = 0;
+        side = 0;
+        castlingRights = 0;
+        enPassantSquare = NO_SQUARE;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        key = Zobrist.CASTLING[0];
+        pawnKey = 0;
+        middlegame = 0;
+        endgame = 0;
+        phase = 0;
+        ply = 0;
+    }
+
+    // Piece codes: 0-5 are white PAWN..KING, 6-11 are black PAWN..KING.
+
+    public static int code(Player player, ChessPiece piece) {
+        return player.ordinal() * 6 + piece.ordinal();
+    }
+
+    public static ChessPiece typeOf(int code) {
+        return PIECES[code % 6];
+    }
+
+    public static Player ownerOf(int code) {
+        return PLAYERS[code / 6];
+    }
+
+    // The UI addresses squares by (row, col) with row 0 at the top (black's back rank).
+
+    public static int square(int row, int col) {
+        return (7 - row) * 8 + col;
+    }
+
+    public static int rowOf(int square) {
+        return 7 - (square >>> 3);
+    }
+
+    public static int colOf(int square) {
+        return square & 7;
+    }
+
+    public int pieceAt(int square) {
+        return board[square];
+    }
+
+    public ChessPiece typeAt(int square) {
+        int code = board[square];
+        return code == NO_PIECE ? null : typeOf(code);
+    }
+
+    public Player ownerAt(int square) {
+        int code = board[square];
+        return code == NO_PIECE ? null : ownerOf(code);
+    }
+
+    public boolean isEmpty(int square) {
+        return board[square] == NO_PIECE;
+    }
+
+    public long pieces(int code) {
+        return pieces[code];
+    }
+
+    public long pieces(Player player, ChessPiece piece) {
+        return pieces[code(player, piece)];
+    }
+
+    public long occupancy(Player player) {
+        return occupancy[player.ordinal()];
+    }
+
+    public long occupied() {
+        return occupied;
+    }
+
+    public Player sideToMove() {
+        return PLAYERS[side];
+    }
+
+    public void setSideToMove(Player player) {
+        if (side != player.ordinal()) {
+            key ^= Zobrist.SIDE;
+        }
+        side = player.ordinal();
+    }
+
+    public int castlingRights() {
+        return castlingRights;
+    }
+
+    public void setCastlingRights(int castlingRights) {
+        key ^= Zobrist.CASTLING[this.castlingRights] ^ Zobrist.CASTLING[castlingRights];
+        this.castlingRights = castlingRights;
+    }
+
+    public int enPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public void setEnPassantSquare(int enPassantSquare) {
+        key ^= enPassantKey(this.enPassantSquare) ^ enPassantKey(enPassantSquare);
+        this.enPassantSquare = enPassantSquare;
+    }
+
+    public int halfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int fullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /** Number of moves that can be taken back with {@link #unmakeMove()}. */
+    public int ply() {
+        return ply;
+    }
+
+    /** Zobrist hash of the position, maintained incrementally. */
+    public long key() {
+        return key;
+    }
+
+    /** Zobrist hash of the pawns alone, for pawn-structure caches. */
+    public long pawnKey() {
+        return pawnKey;
+    }
+
+    /** Material plus piece-square score for the middlegame, from white's point of view. */
+    public int middlegameScore() {
+        return middlegame;
+    }
+
+    /** Material plus piece-square score for the endgame, from white's point of view. */
+    public int endgameScore() {
+        return endgame;
+    }
+
+    /** Sum of piece phase weights: 24 with all minor and major pieces on, 0 with none. */
+    public int phase() {
+        return phase;
+    }
+
+    /**
+     * True if the current position occurred before since the last irreversible move. A single
+     * earlier occurrence is enough for search purposes.
+     */
+    public boolean isRepetition() {
+        int stop = Math.max(0, ply - halfmoveClock);
+        for (int i = ply - 2; i >= stop; i -= 2) {
+            if (keyStack[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int lastMove() {
+        return ply == 0 ? Moves.NONE : moveStack[ply - 1];
+    }
+
+    // History accessors for evaluators that replay moves lazily; index 0 is the oldest ply.
+
+    /** The key of the position at {@code index}, which may be the current ply. */
+    long keyAt(int index) {
+        return index == ply ? key : keyStack[index];
+    }
+
+    /** The move played from the position at {@code index}. */
+    int moveAt(int index) {
+        return moveStack[index];
+    }
+
+    /** The code of the piece that moved from the position at {@code index}. */
+    int movedPieceAt(int index) {
+        return pieceStack[index];
+    }
+
+    /** The code of the piece captured from the position at {@code index}, or {@link #NO_PIECE}. */
+    int capturedAt(int index) {
+        return ((stateStack[index] >>> 11) & 15) - 1;
+    }
+
+    public void put(int code, int square) {
+        long bit = 1L << square;
+        pieces[code] |= bit;
+        occupancy[code / 6] |= bit;
+        occupied |= bit;
+        board[square] = code;
+        key ^= Zobrist.PIECE_SQUARE[code][square];
+        if (code % 6 == 0) {
+            pawnKey ^= Zobrist.PIECE_SQUARE[code][square];
+        }
+        middlegame += PieceSquareTables.MIDDLEGAME[code][square];
+        endgame += PieceSquareTables.ENDGAME[code][square];
+        phase += PieceSquareTables.PHASE[code % 6];
+    }
+
+    public void remove(int square) {
+        int code = board[square];
+        if (code == NO_PIECE) {
+            return;
+        }
+        long bit = ~(1L << square);
+        pieces[code] &= bit;
+        occupancy[code / 6] &= bit;
+        occupied &= bit;
+        board[square] = NO_PIECE;
+        key ^= Zobrist.PIECE_SQUARE[code][square];
+        if (code % 6 == 0) {
+            pawnKey ^= Zobrist.PIECE_SQUARE[code][square];
+        }
+        middlegame -= PieceSquareTables.MIDDLEGAME[code][square];
+        endgame -= PieceSquareTables.ENDGAME[code][square];
+        phase -= PieceSquareTables.PHASE[code % 6];
+    }
+
+    /**
+     * Plays a move produced by {@link MoveGenerator}, including the rook hop of a castle,
+     * the pawn removed by en passant and promotions, then updates side to move, castling
+     * rights, en-passant square and the move clocks. The replaced state goes on the undo
+     * stack, so the call allocates nothing.
+     */
+    public void makeMove(int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int flags = Moves.flags(move);
+        int code = board[from];
+        int captured = flags == Moves.EN_PASSANT ? (side ^ 1) * 6 : board[to];
+
+        if (ply == moveStack.length) {
+            moveStack = java.util.Arrays.copyOf(moveStack, ply * 2);
+            pieceStack = java.util.Arrays.copyOf(pieceStack, ply * 2);
+            stateStack = java.util.Arrays.copyOf(stateStack, ply * 2);
+            keyStack = java.util.Arrays.copyOf(keyStack, ply * 2);
+        }
+        keyStack[ply] = key;
+        moveStack[ply] = move;
+        pieceStack[ply] = code;
+        stateStack[ply] = castlingRights | ((enPassantSquare + 1) << 4) | ((captured + 1) << 11)
+                | (halfmoveClock << 15);
+        ply++;
+
+        if (flags == Moves.EN_PASSANT) {
+            remove(side == 0 ? to - 8 : to + 8);
+        } else if (captured != NO_PIECE) {
+            remove(to);
+        }
+        remove(from);
+        put(Moves.isPromotion(move) ? code(PLAYERS[side], Moves.promotion(move)) : code, to);
+
+        if (flags == Moves.KING_CASTLE) {
+            int rook = board[to + 1];
+            remove(to + 1);
+            put(rook, to - 1);
+        } else if (flags == Moves.QUEEN_CASTLE) {
+            int rook = board[to - 2];
+            remove(to - 2);
+            put(rook, to + 1);
+        }
+
+        key ^= enPassantKey(enPassantSquare) ^ Zobrist.CASTLING[castlingRights] ^ Zobrist.SIDE;
+        enPassantSquare = flags == Moves.DOUBLE_PUSH ? (from + to) >>> 1 : NO_SQUARE;
+        castlingRights &= castlingMask(from) & castlingMask(to);
+        key ^= enPassantKey(enPassantSquare) ^ Zobrist.CASTLING[castlingRights];
+        halfmoveClock = code % 6 == 0 || captured != NO_PIECE ? 0 : halfmoveClock + 1;
+        if (side == 1) {
+            fullmoveNumber++;
+        }
+        side ^= 1;
+    }
+
+    /** Takes back the most recent {@link #makeMove(int)}. */
+    public void unmakeMove() {
+        ply--;
+        int move = moveStack[ply];
+        int state = stateStack[ply];
+        side ^= 1;
+        if (side == 1) {
+            fullmoveNumber--;
+        }
+        castlingRights = state & 15;
+        enPassantSquare = ((state >>> 4) & 127) - 1;
+        int captured = ((state >>> 11) & 15) - 1;
+        halfmoveClock = state >>> 15;
+
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int flags = Moves.flags(move);
+        int code = Moves.isPromotion(move) ? side * 6 : board[to];
+
+        if (flags == Moves.KING_CASTLE) {
+            int rook = board[to - 1];
+            remove(to - 1);
+            put(rook, to + 1);
+        } else if (flags == Moves.QUEEN_CASTLE) {
+            int rook = board[to + 1];
+            remove(to + 1);
+            put(rook, to - 2);
+        }
+
+        remove(to);
+        put(code, from);
+        if (flags == Moves.EN_PASSANT) {
+            put(captured, side == 0 ? to - 8 : to + 8);
+        } else if (captured != NO_PIECE) {
+            put(captured, to);
+        }
+        key = keyStack[ply];
+    }
+
+    private static long enPassantKey(int square) {
+        return square == NO_SQUARE ? 0 : Zobrist.EN_PASSANT_FILE[square & 7];
+    }
+
+    static int castlingMask(int square) {
+        switch (square) {
+            case 0:
+                return ~WHITE_QUEENSIDE;
+            case 4:
+                return ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+            case 7:
+                return ~WHITE_KINGSIDE;
+            case 56:
+                return ~BLACK_QUEENSIDE;
+            case 60:
+                return ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+            case 63:
+                return ~BLACK_KINGSIDE;
+            default:
+                return ALL_CASTLING;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int rank = 7; rank >= 0; rank--) {
+            for (int file = 0; file < 8; file++) {
+                int code = board[rank * 8 + file];
+                sb.append(code == NO_PIECE ? '.' : "PNBRQKpnbrqk".charAt(code));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
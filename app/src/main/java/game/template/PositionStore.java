@@ -0,0 +1,168 @@
+package game.template;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Labelled positions for evaluator training, stored as fixed 32-byte little-endian records
+ * behind an 8-byte header (magic, version), so record {@code i} is at {@code 8 + 32 * i} and
+ * no index is needed:
+ * <pre>
+ *   u64  occupied squares
+ *   u4   piece code per occupied square, in square order (16 bytes, up to 32 pieces)
+ *   u8   castling rights (bits 0-3), black to move (bit 7)
+ *   u8   en-passant square, 0xFF for none
+ *   u8   halfmove clock, capped at 255
+ *   u8   game result from white's side: 0 = loss, 1 = draw, 2 = win, 3 = unknown
+ *   i16  score in centipawns from the side to move's point of view
+ *   u16  fullmove number
+ * </pre>
+ */
+public final class PositionStore implements Closeable {
+    public static final int RECORD_BYTES = 32;
+    public static final int UNKNOWN_RESULT = 3;
+
+    static final int MAGIC = 0x53504843; // "CHPS" little-endian
+    static final int VERSION = 1;
+
+    private final FileChannel channel;
+    private final MappedSegments file;
+    private final long size;
+
+    private PositionStore(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        file = new MappedSegments(channel, RECORD_BYTES);
+        ByteBuffer header = file.segment(0);
+        if (file.size() < GameStore.HEADER_BYTES || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not a position store: " + path);
+        }
+        size = (file.size() - GameStore.HEADER_BYTES) / RECORD_BYTES;
+    }
+
+    public static PositionStore open(Path path) throws IOException {
+        return new PositionStore(path);
+    }
+
+    public static Writer create(Path path) throws IOException {
+        return new Writer(path);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Overwrites {@code position} with record {@code i}. Reusing one position keeps bulk reads
+     * allocation-free; the position has no move history afterwards.
+     */
+    public void read(long i, Position position) {
+        long offset = offset(i);
+        ByteBuffer buffer = file.segment(offset);
+        int at = MappedSegments.index(offset);
+        position.clear();
+        long occupied = buffer.getLong(at);
+        int piece = 0;
+        while (occupied != 0) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+            int packed = buffer.get(at + 8 + (piece >>> 1)) & 0xFF;
+            position.put((piece & 1) == 0 ? packed & 15 : packed >>> 4, square);
+            piece++;
+        }
+        int state = buffer.get(at + 24) & 0xFF;
+        position.setCastlingRights(state & Position.ALL_CASTLING);
+        position.setSideToMove((state & 0x80) != 0 ? Player.BLACK : Player.WHITE);
+        int ep = buffer.get(at + 25) & 0xFF;
+        position.setEnPassantSquare(ep == 0xFF ? Position.NO_SQUARE : ep);
+        position.halfmoveClock = buffer.get(at + 26) & 0xFF;
+        position.fullmoveNumber = buffer.getShort(at + 30) & 0xFFFF;
+    }
+
+    public int score(long i) {
+        long offset = offset(i);
+        return file.segment(offset).getShort(MappedSegments.index(offset) + 28);
+    }
+
+    /** 0 = white lost, 1 = draw, 2 = white won, {@link #UNKNOWN_RESULT}. */
+    public int result(long i) {
+        long offset = offset(i);
+        return file.segment(offset).get(MappedSegments.index(offset) + 27);
+    }
+
+    private long offset(long i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Position " + i + " of " + size);
+        }
+        return GameStore.HEADER_BYTES + RECORD_BYTES * i;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /** Appends records to a new file. Not thread-safe. */
+    public static final class Writer implements Closeable {
+        private final OutputStream out;
+        private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private long positions;
+
+        private Writer(Path path) throws IOException {
+            out = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16);
+            record.putInt(MAGIC).putInt(VERSION);
+            out.write(record.array(), 0, GameStore.HEADER_BYTES);
+        }
+
+        /**
+         * Appends {@code position} labelled with {@code score} (side to move's view, clamped to
+         * 16 bits) and the game {@code result} from white's side.
+         */
+        public void append(Position position, int score, int result) throws IOException {
+            record.clear();
+            long occupied = position.occupied();
+            if (Long.bitCount(occupied) > 32) {
+                throw new IllegalArgumentException("More than 32 pieces cannot be stored");
+            }
+            record.putLong(occupied);
+            byte[] bytes = record.array();
+            int piece = 0;
+            while (occupied != 0) {
+                int square = Long.numberOfTrailingZeros(occupied);
+                occupied &= occupied - 1;
+                int index = 8 + (piece >>> 1);
+                int code = position.pieceAt(square);
+                bytes[index] = (byte) ((piece & 1) == 0 ? code : (bytes[index] & 15) | (code << 4));
+                piece++;
+            }
+            for (int index = 8 + ((piece + 1) >>> 1); index < 24; index++) {
+                bytes[index] = 0;
+            }
+            int ep = position.enPassantSquare();
+            bytes[24] = (byte) (position.castlingRights() | (position.sideToMove() == Player.BLACK ? 0x80 : 0));
+            bytes[25] = (byte) (ep == Position.NO_SQUARE ? 0xFF : ep);
+            bytes[26] = (byte) Math.min(255, position.halfmoveClock());
+            bytes[27] = (byte) result;
+            record.putShort(28, (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, score)));
+            record.putShort(30, (short) position.fullmoveNumber());
+            out.write(bytes);
+            positions++;
+        }
+
+        public long positions() {
+            return positions;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package game.template;
+
+/**
+ * Standard Algebraic Notation as used in PGN, e.g. {@code Nbd7}, {@code exd6}, {@code O-O}
+ * or {@code e8=Q+}. Parsing is lenient about check marks, annotation glyphs and castling
+ * written with zeros, and strict about ambiguity: a SAN that matches two legal moves is rejected,
+ * as is a pawn capture without its file and {@code x}.
+ */
+public final class San {
+    private static final String PIECE_LETTERS = "PNBRQK";
+
+    private San() {
+    }
+
+    /** The legal move {@code san} denotes in {@code position}, or {@link Moves#NONE}. */
+    public static int parse(Position position, String san) {
+        return parse(position, san, 0, san.length(), new int[MoveGenerator.MAX_MOVES]);
+    }
+
+    /**
+     * Parses {@code text[start, end)} using {@code moves} as scratch space for move generation,
+     * so bulk readers can parse without allocating.
+     */
+    static int parse(Position position, CharSequence text, int start, int end, int[] moves) {
+        while (end > start && "+#!?".indexOf(text.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        if (end - start < 2) {
+            return Moves.NONE;
+        }
+
+        char first = text.charAt(start);
+        if (first == 'O' || first == '0') {
+            int flags = castleFlags(text, start, end);
+            if (flags < 0) {
+                return Moves.NONE;
+            }
+            int king = Long.numberOfTrailingZeros(position.pieces(position.sideToMove(), ChessPiece.KING));
+            int count = MoveGenerator.generateTo(position, moves, flags == Moves.KING_CASTLE ? king + 2 : king - 2);
+            for (int i = 0; i < count; i++) {
+                if (Moves.flags(moves[i]) == flags) {
+                    return moves[i];
+                }
+            }
+            return Moves.NONE;
+        }
+
+        int type = 0;
+        if (PIECE_LETTERS.indexOf(first) > 0) {
+            type = PIECE_LETTERS.indexOf(first);
+            start++;
+        }
+
+        int promotion = -1;
+        char last = text.charAt(end - 1);
+        if (type == 0 && PIECE_LETTERS.indexOf(Character.toUpperCase(last)) > 0 && end - start >= 3) {
+            promotion = PIECE_LETTERS.indexOf(Character.toUpperCase(last));
+            end--;
+            if (text.charAt(end - 1) == '=') {
+                end--;
+            }
+        }
+
+        if (end - start < 2) {
+            return Moves.NONE;
+        }
+        int toFile = text.charAt(end - 2) - 'a';
+        int toRank = text.charAt(end - 1) - '1';
+        if (toFile < 0 || toFile > 7 || toRank < 0 || toRank > 7) {
+            return Moves.NONE;
+        }
+        int to = toRank * 8 + toFile;
+        end -= 2;
+
+        // Whatever is left is disambiguation, a capture mark, or the origin of long algebraic.
+        int fromFile = -1;
+        int fromRank = -1;
+        boolean capture = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromFile = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRank = c - '1';
+            } else if (c == 'x' || c == ':') {
+                capture = true;
+            } else if (c != '-') {
+                return Moves.NONE;
+            }
+        }
+        // A pawn push stays on its file, and a pawn capture must say so and name the file it
+        // leaves: "b5" is never axb5, however unambiguous that would be.
+        if (type == 0 && (capture ? fromFile < 0 : fromFile >= 0 && fromFile != toFile)) {
+            return Moves.NONE;
+        }
+
+        int found = Moves.NONE;
+        int count = MoveGenerator.generateTo(position, moves, to);
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int from = Moves.from(move);
+            if (Moves.to(move) != to || position.board[from] % 6 != type
+                    || (fromFile >= 0 && (from & 7) != fromFile)
+                    || (fromRank >= 0 && (from >>> 3) != fromRank)
+                    || (type == 0 && Moves.isCapture(move) != capture)) {
+                continue;
+            }
+            if (Moves.isPromotion(move) ? ((move >>> 16) & 7) != promotion : promotion >= 0) {
+                continue;
+            }
+            if (found != Moves.NONE) {
+                return Moves.NONE;
+            }
+            found = move;
+        }
+        return found;
+    }
+
+    private static int castleFlags(CharSequence text, int start, int end) {
+        int letters = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == 'O' || c == '0') {
+                letters++;
+            } else if (c != '-') {
+                return -1;
+            }
+        }
+        return letters == 2 ? Moves.KING_CASTLE : letters == 3 ? Moves.QUEEN_CASTLE : -1;
+    }
+
+    /** Writes the legal {@code move} in SAN, with the minimal disambiguation and a check or mate mark. */
+    public static String format(Position position, int move) {
+        StringBuilder sb = new StringBuilder(8);
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int type = position.board[from] % 6;
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        if (Moves.flags(move) == Moves.KING_CASTLE) {
+            sb.append("O-O");
+        } else if (Moves.flags(move) == Moves.QUEEN_CASTLE) {
+            sb.append("O-O-O");
+        } else if (type == 0) {
+            if (Moves.isCapture(move)) {
+                sb.append((char) ('a' + (from & 7))).append('x');
+            }
+            sb.append(Moves.squareName(to));
+            if (Moves.isPromotion(move)) {
+                sb.append('=').append(PIECE_LETTERS.charAt((move >>> 16) & 7));
+            }
+        } else {
+            sb.append(PIECE_LETTERS.charAt(type));
+            boolean ambiguous = false;
+            boolean sameFile = false;
+            boolean sameRank = false;
+            int count = MoveGenerator.generateTo(position, moves, to);
+            for (int i = 0; i < count; i++) {
+                int other = Moves.from(moves[i]);
+                if (other != from && Moves.to(moves[i]) == to && position.board[other] % 6 == type) {
+                    ambiguous = true;
+                    sameFile |= (other & 7) == (from & 7);
+                    sameRank |= (other >>> 3) == (from >>> 3);
+                }
+            }
+            if (ambiguous && (!sameFile || sameRank)) {
+                sb.append((char) ('a' + (from & 7)));
+            }
+            if (ambiguous && sameFile) {
+                sb.append((char) ('1' + (from >>> 3)));
+            }
+            if (Moves.isCapture(move)) {
+                sb.append('x');
+            }
+            sb.append(Moves.squareName(to));
+        }
+
+        position.makeMove(move);
+        if (MoveGenerator.isInCheck(position)) {
+            sb.append(MoveGenerator.generate(position, moves) == 0 ? '#' : '+');
+        }
+        position.unmakeMove();
+        return sb.toString();
+    }
+}
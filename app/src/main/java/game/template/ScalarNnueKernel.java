@@ -0,0 +1,48 @@
+package game.template;
+
+/** Plain loops; used when the Vector API module is not available. */
+final class ScalarNnueKernel implements NnueKernel {
+    private int[] activations = new int[0];
+
+    @Override
+    public void add(short[] accumulator, short[] weights, int offset) {
+        for (int i = 0; i < accumulator.length; i++) {
+            accumulator[i] += weights[offset + i];
+        }
+    }
+
+    @Override
+    public void subtract(short[] accumulator, short[] weights, int offset) {
+        for (int i = 0; i < accumulator.length; i++) {
+            accumulator[i] -= weights[offset + i];
+        }
+    }
+
+    @Override
+    public int forward(NnueNetwork network, short[] us, short[] them) {
+        int hidden = network.hidden;
+        if (activations.length != 2 * hidden) {
+            activations = new int[2 * hidden];
+        }
+        for (int i = 0; i < hidden; i++) {
+            activations[i] = clamp(us[i]);
+            activations[hidden + i] = clamp(them[i]);
+        }
+
+        short[] weights = network.denseWeights;
+        int output = network.outputBias;
+        for (int neuron = 0; neuron < network.layerSize; neuron++) {
+            int row = neuron * 2 * hidden;
+            int sum = network.denseBiases[neuron];
+            for (int i = 0; i < 2 * hidden; i++) {
+                sum += activations[i] * weights[row + i];
+            }
+            output += clamp(sum >> NnueNetwork.DENSE_SHIFT) * network.outputWeights[neuron];
+        }
+        return output / network.divisor;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(value, NnueNetwork.ACTIVATION_MAX));
+    }
+}
@@ -0,0 +1,671 @@
+package game.template;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Iterative-deepening negamax alpha-beta search with aspiration windows, principal variation
+ * search and a quiescence search over captures, backed by a {@link TranspositionTable}.
+ * Moves are ordered by hash move, MVV-LVA, killer moves and the history heuristic. One
+ * instance searches on one thread and reuses its buffers across searches, so the hot path
+ * does not allocate.
+ */
+public final class Search {
+    public static final int INFINITY = 32000;
+    public static final int MATE = 31000;
+    public static final int MATE_BOUND = MATE - Position.MAX_SEARCH_PLY;
+
+    static final int MAX_PLY = Position.MAX_SEARCH_PLY;
+    static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0};
+
+    private static final int ASPIRATION_WINDOW = 25;
+    private static final int CAPTURE_SCORE = 1 << 30;
+    private static final int KILLER_SCORE = 1 << 29;
+    private static final int TABLEBASE_LINE_PLIES = 32;
+
+    // Lazy SMP helpers skip iterations in staggered patterns so threads spread over depths.
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    private final TranspositionTable table;
+    private Position position;
+    private final int[][] moveBuffers = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    private final int[][] scoreBuffers = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][] history = new int[12][64];
+    private final int[][] pvTable = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+
+    private AtomicBoolean stopSignal;
+    private final boolean ownsStopSignal;
+    private final int threadIndex;
+    private final boolean agesTable;
+    private boolean stopped;
+    private long nodes;
+    private long quiescenceNodes;
+    private int selectiveDepth;
+    private long startNanos;
+    private long nodeLimit;
+    private long hardDeadline;
+    private long softDeadline;
+    private SearchLimits limits;
+    private boolean pondering; // Time limits wait for limits.ponderhit()
+
+    private Consumer<SearchStats> listener;
+    private Evaluator evaluator = new ClassicEvaluator();
+    private Tablebase tablebase;
+    private int tablebaseDepth = 1;
+    private long tablebaseProbes;
+    private long tablebaseHits;
+    private EngineMetrics.Recorder recorder; // Created when metrics are first on
+    private EngineMetrics.Recorder metrics; // The recorder during a search with metrics on, else null
+
+    public Search() {
+        this(new TranspositionTable());
+    }
+
+    public Search(TranspositionTable table) {
+        this(table, true);
+    }
+
+    /**
+     * A search that ages {@code table} at the start of each search only if {@code agesTable};
+     * otherwise its owner ages the table once for many searches, such as a whole batch.
+     */
+    Search(TranspositionTable table, boolean agesTable) {
+        this(table, new AtomicBoolean(), 0, true, agesTable);
+    }
+
+    /** A worker of a {@link SearchPool}: the pool owns the shared stop signal and table. */
+    Search(TranspositionTable table, AtomicBoolean stopSignal, int threadIndex) {
+        this(table, stopSignal, threadIndex, false, threadIndex == 0);
+    }
+
+    private Search(TranspositionTable table, AtomicBoolean stopSignal, int threadIndex, boolean ownsStopSignal,
+            boolean agesTable) {
+        this.table = table;
+        this.stopSignal = stopSignal;
+        this.threadIndex = threadIndex;
+        this.ownsStopSignal = ownsStopSignal;
+        this.agesTable = agesTable;
+    }
+
+    public TranspositionTable table() {
+        return table;
+    }
+
+    /** Called after every completed iteration, on the searching thread. */
+    public void setListener(Consumer<SearchStats> listener) {
+        this.listener = listener;
+    }
+
+    /** Replaces the static evaluation; must not be called while a search is running. */
+    public void setEvaluator(Evaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    public Evaluator evaluator() {
+        return evaluator;
+    }
+
+    /**
+     * Probes {@code tablebase} (or nothing, if null) at nodes with at most
+     * {@link Tablebase#maxPieces()} pieces and at least {@code probeDepth} plies left to search;
+     * a root it covers is answered from the table without searching. Must not be called while
+     * a search is running.
+     */
+    public void setTablebase(Tablebase tablebase, int probeDepth) {
+        this.tablebase = tablebase;
+        this.tablebaseDepth = Math.max(1, probeDepth);
+    }
+
+    // Set by the owning pool between searches, never while this worker is searching.
+    void useStopSignal(AtomicBoolean stopSignal) {
+        this.stopSignal = stopSignal;
+    }
+
+    /** Asks a running search to return as soon as possible; safe to call from any thread. */
+    public void stop() {
+        stopSignal.set(true);
+    }
+
+    /** Nodes searched so far by this instance; may be read from other threads while searching. */
+    public long nodes() {
+        return nodes;
+    }
+
+    /** Tablebase probes of the current or last search; may be read from other threads. */
+    public long tablebaseProbes() {
+        return tablebaseProbes;
+    }
+
+    public long tablebaseHits() {
+        return tablebaseHits;
+    }
+
+    /**
+     * Searches {@code root} (which is copied, not modified) within {@code limits} and returns
+     * the stats of the deepest completed iteration. A standalone search clears any earlier
+     * {@link #stop()} when it starts.
+     */
+    public SearchStats search(Position root, SearchLimits limits) {
+        Progress progress = new Progress(root, limits);
+        run(progress, Long.MAX_VALUE);
+        return progress.best;
+    }
+
+    /**
+     * Continues {@code progress} for whole iterations until it is done or this call has
+     * searched at least {@code sliceNodes} nodes, and returns the deepest iteration so far.
+     * Each call resumes at the next depth with the previous score as the aspiration centre,
+     * and the node limit counts over all calls, so a search run in slices ends where a single
+     * search would. Slices of one search may run on different instances, one at a time.
+     */
+    SearchStats searchSlice(Progress progress, long sliceNodes) {
+        run(progress, Math.max(1, sliceNodes));
+        return progress.best;
+    }
+
+    private void run(Progress progress, long sliceNodes) {
+        if (ownsStopSignal) {
+            stopSignal.set(false);
+        }
+        boolean first = progress.startNanos == 0;
+        if (first) {
+            progress.startNanos = System.nanoTime();
+        }
+        position = new Position(progress.root);
+        startNanos = progress.startNanos;
+        limits = progress.limits;
+        nodeLimit = limits.nodes();
+        pondering = limits.isPondering();
+        setDeadlines(pondering ? 0 : startNanos);
+        stopped = false;
+        nodes = progress.nodes;
+        quiescenceNodes = progress.quiescenceNodes;
+        selectiveDepth = progress.selectiveDepth;
+        tablebaseProbes = progress.tablebaseProbes;
+        tablebaseHits = progress.tablebaseHits;
+        if (EngineMetrics.enabled() && recorder == null) {
+            recorder = EngineMetrics.newRecorder(this);
+        }
+        metrics = EngineMetrics.enabled() ? recorder : null;
+        if (metrics != null && first) {
+            metrics.searches++;
+        }
+        if (first && tablebase != null) {
+            SearchStats solved = probeRoot();
+            if (solved != null) {
+                if (listener != null) {
+                    listener.accept(solved);
+                }
+                progress.best = solved;
+                progress.done = true;
+                return;
+            }
+        }
+        if (first && agesTable) {
+            table.newSearch();
+        }
+        // Killers and history are this instance's; another search may have used it since.
+        ageHistory();
+        for (int[] killer : killers) {
+            killer[0] = Moves.NONE;
+            killer[1] = Moves.NONE;
+        }
+
+        long sliceStart = nodes;
+        long quiescenceStart = quiescenceNodes;
+        long iterationStart = System.nanoTime();
+        long previousIterationNodes = 0;
+        SearchStats best = progress.best;
+        int score = progress.score;
+        progress.done = true;
+        for (int depth = progress.depth; depth <= limits.depth(); depth++) {
+            if (threadIndex > 0 && depth > 1 && skipDepth(depth)) {
+                continue;
+            }
+            long nodesBefore = nodes;
+            score = aspirationSearch(depth, score);
+            if (metrics != null && !stopped) {
+                long now = System.nanoTime();
+                EngineMetrics.iterationFinished(now - iterationStart, nodes - nodesBefore, previousIterationNodes);
+                metrics.iterations++;
+                iterationStart = now;
+                previousIterationNodes = nodes - nodesBefore;
+            }
+            if (stopped && best != null) {
+                break;
+            }
+            int[] pv = java.util.Arrays.copyOf(pvTable[0], pvLength[0]);
+            if (pv.length == 0) {
+                // Stopped before any root move finished: fall back to the first legal move.
+                int count = MoveGenerator.generate(position, moveBuffers[0]);
+                pv = count > 0 ? new int[] {moveBuffers[0][0]} : pv;
+            }
+            best = new SearchStats(depth, selectiveDepth, score, nodes, quiescenceNodes,
+                    System.nanoTime() - startNanos, pv, tablebaseProbes, tablebaseHits);
+            progress.best = best;
+            progress.score = score;
+            progress.depth = depth + 1;
+            if (listener != null) {
+                listener.accept(best);
+            }
+            checkPonderhit();
+            if (stopped || stopSignal.get() || (softDeadline > 0 && System.nanoTime() >= softDeadline)
+                    || (Math.abs(score) >= MATE_BOUND && MATE - Math.abs(score) <= depth)) {
+                break;
+            }
+            if (nodes - sliceStart >= sliceNodes && depth < limits.depth()) {
+                progress.done = false;
+                break;
+            }
+        }
+        progress.best = best;
+        progress.nodes = nodes;
+        progress.quiescenceNodes = quiescenceNodes;
+        progress.selectiveDepth = selectiveDepth;
+        progress.tablebaseProbes = tablebaseProbes;
+        progress.tablebaseHits = tablebaseHits;
+        if (metrics != null) {
+            metrics.nodes += nodes - sliceStart;
+            metrics.quiescenceNodes += quiescenceNodes - quiescenceStart;
+        }
+    }
+
+    // A root the tablebase covers needs no search: the table already knows the best move.
+    private SearchStats probeRoot() {
+        if (Long.bitCount(position.occupied()) > tablebase.maxPieces()) {
+            return null;
+        }
+        tablebaseProbes++;
+        int score = tablebase.probe(position);
+        if (score == Tablebase.UNKNOWN || !withinFiftyMoves(score)) {
+            return null;
+        }
+        int[] pv = tablebase.line(position, TABLEBASE_LINE_PLIES);
+        if (pv.length == 0) {
+            return null;
+        }
+        tablebaseHits++;
+        return new SearchStats(1, 0, score, nodes, quiescenceNodes, System.nanoTime() - startNanos, pv,
+                tablebaseProbes, tablebaseHits);
+    }
+
+    // Tables ignore the fifty-move rule, so only trust a mate that can be delivered before it applies.
+    private boolean withinFiftyMoves(int score) {
+        return score == 0 || position.halfmoveClock() + MATE - Math.abs(score) <= 100;
+    }
+
+    private boolean skipDepth(int depth) {
+        int index = (threadIndex - 1) % SKIP_SIZE.length;
+        return ((depth + SKIP_PHASE[index]) / SKIP_SIZE[index]) % 2 != 0;
+    }
+
+    private int aspirationSearch(int depth, int previousScore) {
+        int delta = ASPIRATION_WINDOW;
+        int alpha = -INFINITY;
+        int beta = INFINITY;
+        if (depth >= 4 && Math.abs(previousScore) < MATE_BOUND) {
+            alpha = Math.max(previousScore - delta, -INFINITY);
+            beta = Math.min(previousScore + delta, INFINITY);
+        }
+        while (true) {
+            int score = negamax(depth, alpha, beta, 0);
+            if (stopped) {
+                return score;
+            }
+            if (score <= alpha) {
+                beta = (alpha + beta) / 2;
+                alpha = Math.max(score - delta, -INFINITY);
+            } else if (score >= beta) {
+                beta = Math.min(score + delta, INFINITY);
+            } else {
+                return score;
+            }
+            delta *= 2;
+        }
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply) {
+        pvLength[ply] = ply;
+        if ((nodes & 2047) == 0) {
+            checkLimits();
+        }
+        if (stopped) {
+            return 0;
+        }
+
+        boolean inCheck = MoveGenerator.isInCheck(position);
+        if (inCheck) {
+            depth++;
+        }
+        if (depth <= 0) {
+            return quiescence(alpha, beta, ply);
+        }
+        nodes++;
+        if (ply > 0 && (position.halfmoveClock() >= 100 || position.isRepetition())) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return evaluate();
+        }
+
+        boolean pvNode = beta - alpha > 1;
+        long key = position.key();
+        long entry = table.probe(key);
+        if (metrics != null) {
+            metrics.ttProbes++;
+            metrics.ttHits += entry != 0 ? 1 : 0;
+        }
+        int hashMove = TranspositionTable.move(entry);
+        if (entry != 0 && !pvNode && TranspositionTable.depth(entry) >= depth) {
+            int score = scoreFromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.BOUND_EXACT
+                    || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                    || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+                if (metrics != null) {
+                    metrics.ttCutoffs++;
+                }
+                return score;
+            }
+        }
+
+        if (tablebase != null && ply > 0 && depth >= tablebaseDepth
+                && Long.bitCount(position.occupied()) <= tablebase.maxPieces()) {
+            tablebaseProbes++;
+            int score = tablebase.probe(position);
+            if (score != Tablebase.UNKNOWN && withinFiftyMoves(score)) {
+                tablebaseHits++;
+                table.store(key, Moves.NONE, score, depth, TranspositionTable.BOUND_EXACT);
+                return scoreFromTable(score, ply);
+            }
+        }
+
+        int[] moves = moveBuffers[ply];
+        int count = generate(moves, false);
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        scoreMoves(moves, scoreBuffers[ply], count, ply, hashMove);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = Moves.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = pickMove(moves, scoreBuffers[ply], i, count);
+            position.makeMove(move);
+            int score;
+            if (i == 0) {
+                score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+            } else {
+                score = -negamax(depth - 1, -alpha - 1, -alpha, ply + 1);
+                if (score > alpha && score < beta) {
+                    score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+                }
+            }
+            position.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    updatePv(ply, move);
+                    if (score >= beta) {
+                        if (metrics != null) {
+                            metrics.betaCutoffs++;
+                            metrics.firstMoveCutoffs += i == 0 ? 1 : 0;
+                        }
+                        if (!Moves.isCapture(move) && !Moves.isPromotion(move)) {
+                            storeKiller(ply, move);
+                            updateHistory(move, depth);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = best >= beta ? TranspositionTable.BOUND_LOWER
+                : best > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        table.store(key, bestMove, scoreToTable(best, ply), depth, bound);
+        return best;
+    }
+
+    private int quiescence(int alpha, int beta, int ply) {
+        pvLength[ply] = ply;
+        if ((nodes & 2047) == 0) {
+            checkLimits();
+        }
+        if (stopped) {
+            return 0;
+        }
+        nodes++;
+        quiescenceNodes++;
+        selectiveDepth = Math.max(selectiveDepth, ply);
+        if (ply >= MAX_PLY) {
+            return evaluate();
+        }
+
+        long entry = table.probe(position.key());
+        if (metrics != null) {
+            metrics.ttProbes++;
+            metrics.ttHits += entry != 0 ? 1 : 0;
+        }
+        if (entry != 0) {
+            int score = scoreFromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.BOUND_EXACT
+                    || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                    || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+                if (metrics != null) {
+                    metrics.ttCutoffs++;
+                }
+                return score;
+            }
+        }
+
+        boolean inCheck = MoveGenerator.isInCheck(position);
+        int best = -INFINITY;
+        if (!inCheck) {
+            best = evaluate();
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+        }
+
+        int[] moves = moveBuffers[ply];
+        int count = generate(moves, !inCheck);
+        if (inCheck && count == 0) {
+            return -MATE + ply;
+        }
+        scoreMoves(moves, scoreBuffers[ply], count, ply, TranspositionTable.move(entry));
+
+        for (int i = 0; i < count; i++) {
+            int move = pickMove(moves, scoreBuffers[ply], i, count);
+            position.makeMove(move);
+            int score = -quiescence(-beta, -alpha, ply + 1);
+            position.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (score >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    // With metrics on, one call in EngineMetrics.SAMPLE_INTERVAL is timed.
+    private int generate(int[] moves, boolean capturesOnly) {
+        if (metrics == null || !metrics.sample()) {
+            return capturesOnly
+                    ? MoveGenerator.generateCaptures(position, moves)
+                    : MoveGenerator.generate(position, moves);
+        }
+        long start = System.nanoTime();
+        int count = capturesOnly
+                ? MoveGenerator.generateCaptures(position, moves)
+                : MoveGenerator.generate(position, moves);
+        EngineMetrics.moveGenerationTook(System.nanoTime() - start);
+        return count;
+    }
+
+    private int evaluate() {
+        if (metrics == null || !metrics.sample()) {
+            return evaluator.evaluate(position);
+        }
+        long start = System.nanoTime();
+        int score = evaluator.evaluate(position);
+        EngineMetrics.evaluationTook(System.nanoTime() - start);
+        return score;
+    }
+
+    // Mate scores are stored relative to the node so they stay valid at any distance from the root.
+    private static int scoreToTable(int score, int ply) {
+        return score >= MATE_BOUND ? score + ply : score <= -MATE_BOUND ? score - ply : score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        return score >= MATE_BOUND ? score - ply : score <= -MATE_BOUND ? score + ply : score;
+    }
+
+    private void scoreMoves(int[] moves, int[] scores, int count, int ply, int hashMove) {
+        int[] board = position.board;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (move == hashMove) {
+                scores[i] = Integer.MAX_VALUE;
+            } else if (Moves.isCapture(move) || Moves.isPromotion(move)) {
+                // MVV-LVA: most valuable victim first, then least valuable attacker.
+                int victim = Moves.isCapture(move) ? PIECE_VALUES[Moves.captured(move) % 6] : 0;
+                int promotion = Moves.isPromotion(move) ? PIECE_VALUES[Moves.promotion(move).ordinal()] : 0;
+                scores[i] = CAPTURE_SCORE + (victim + promotion) * 8 - board[Moves.from(move)] % 6;
+            } else if (move == killers[ply][0]) {
+                scores[i] = KILLER_SCORE + 1;
+            } else if (move == killers[ply][1]) {
+                scores[i] = KILLER_SCORE;
+            } else {
+                scores[i] = history[board[Moves.from(move)]][Moves.to(move)];
+            }
+        }
+    }
+
+    // Selection sort step: bring the best remaining move to index i.
+    private static int pickMove(int[] moves, int[] scores, int i, int count) {
+        int bestIndex = i;
+        for (int j = i + 1; j < count; j++) {
+            if (scores[j] > scores[bestIndex]) {
+                bestIndex = j;
+            }
+        }
+        int move = moves[bestIndex];
+        moves[bestIndex] = moves[i];
+        moves[i] = move;
+        int score = scores[bestIndex];
+        scores[bestIndex] = scores[i];
+        scores[i] = score;
+        return move;
+    }
+
+    private void updatePv(int ply, int move) {
+        int[] line = pvTable[ply];
+        line[ply] = move;
+        int length = pvLength[ply + 1];
+        System.arraycopy(pvTable[ply + 1], ply + 1, line, ply + 1, length - ply - 1);
+        pvLength[ply] = Math.max(length, ply + 1);
+    }
+
+    private void storeKiller(int ply, int move) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+    }
+
+    private void updateHistory(int move, int depth) {
+        int[] row = history[position.board[Moves.from(move)]];
+        int to = Moves.to(move);
+        row[to] += depth * depth;
+        if (row[to] > KILLER_SCORE / 2) {
+            ageHistory();
+        }
+    }
+
+    private void ageHistory() {
+        for (int[] row : history) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] /= 2;
+            }
+        }
+    }
+
+    // No deadlines while pondering (origin 0); after a ponderhit they count from the hit.
+    private void setDeadlines(long origin) {
+        hardDeadline = origin > 0 && limits.hardTimeMillis() > 0 ? origin + limits.hardTimeMillis() * 1_000_000 : 0;
+        softDeadline = origin > 0 && limits.softTimeMillis() > 0 ? origin + limits.softTimeMillis() * 1_000_000 : 0;
+    }
+
+    private void checkPonderhit() {
+        if (pondering && !limits.isPondering()) {
+            pondering = false;
+            setDeadlines(limits.ponderhitNanos());
+        }
+    }
+
+    private void checkLimits() {
+        checkPonderhit();
+        if (stopSignal.get() || (nodeLimit > 0 && nodes >= nodeLimit)
+                || (hardDeadline > 0 && System.nanoTime() >= hardDeadline)) {
+            stopped = true;
+        }
+    }
+
+    /**
+     * Where a search run in {@link #searchSlice slices} stands between them: the next depth,
+     * the score to centre its aspiration window on, the deepest iteration and the counters
+     * so far. Owned by one slice at a time.
+     */
+    static final class Progress {
+        final Position root;
+        final SearchLimits limits;
+        long startNanos;
+        int depth = 1;
+        int score;
+        SearchStats best;
+        boolean done;
+        long nodes;
+        long quiescenceNodes;
+        int selectiveDepth;
+        long tablebaseProbes;
+        long tablebaseHits;
+
+        /** {@code root} is not modified; {@code limits} cover all slices together. */
+        Progress(Position root, SearchLimits limits) {
+            this.root = root;
+            this.limits = limits;
+        }
+
+        /** True once the limits are reached, a mate is proven, or there was nothing to search. */
+        boolean done() {
+            return done;
+        }
+
+        SearchStats best() {
+            return best;
+        }
+    }
+}
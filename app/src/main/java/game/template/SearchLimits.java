@@ -0,0 +1,97 @@
+package game.template;
+
+/** Budget for one search: any combination of depth, node and time limits (zero means unlimited). */
+public final class SearchLimits {
+    private int depth = Position.MAX_SEARCH_PLY - 1;
+    private long nodes;
+    private long softTimeMillis;
+    private long hardTimeMillis;
+    private volatile boolean pondering;
+    private volatile long ponderhitNanos;
+
+    public static SearchLimits infinite() {
+        return new SearchLimits();
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits().withDepth(depth);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits().withNodes(nodes);
+    }
+
+    /** A fixed time per move: no new iteration starts after half of it, the search stops at all of it. */
+    public static SearchLimits moveTime(long millis) {
+        return new SearchLimits().withTime(millis / 2, millis);
+    }
+
+    public SearchLimits withDepth(int depth) {
+        this.depth = Math.max(1, Math.min(depth, Position.MAX_SEARCH_PLY - 1));
+        return this;
+    }
+
+    public SearchLimits withNodes(long nodes) {
+        this.nodes = nodes;
+        return this;
+    }
+
+    /**
+     * {@code softMillis} is checked between iterations, {@code hardMillis} aborts the search
+     * in progress.
+     */
+    public SearchLimits withTime(long softMillis, long hardMillis) {
+        this.softTimeMillis = softMillis;
+        this.hardTimeMillis = hardMillis;
+        return this;
+    }
+
+    /**
+     * A search of the expected reply in the opponent's time: it runs on, ignoring the time
+     * limits, until {@link #ponderhit} starts the clock or the search is stopped.
+     */
+    public SearchLimits withPonder() {
+        this.pondering = true;
+        return this;
+    }
+
+    /**
+     * The opponent played the expected move: the running search goes on, with its time limits
+     * counted from now. Safe to call from any thread.
+     */
+    public void ponderhit() {
+        ponderhitNanos = System.nanoTime();
+        pondering = false;
+    }
+
+    /** Like {@link #ponderhit()}, with time limits only known now (from the game clock). */
+    public void ponderhit(long softMillis, long hardMillis) {
+        withTime(softMillis, hardMillis);
+        ponderhit();
+    }
+
+    public boolean isPondering() {
+        return pondering;
+    }
+
+    // When the time limits of a ponder search started counting; read only after isPondering() turns false.
+    long ponderhitNanos() {
+        return ponderhitNanos;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public long nodes() {
+        return nodes;
+    }
+
+    public long softTimeMillis() {
+        return softTimeMillis;
+    }
+
+    public long hardTimeMillis() {
+        return hardTimeMillis;
+    }
+}
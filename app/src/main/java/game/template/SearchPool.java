@@ -0,0 +1,204 @@
+package game.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Lazy SMP: every thread runs its own {@link Search} over the same root, sharing only the
+ * transposition table and a stop signal. Helpers skip iterations in staggered patterns; the
+ * calling thread runs the main worker, which owns the limits and stops the helpers when it
+ * finishes. With one thread this is exactly a plain {@link Search}.
+ *
+ * <p>Each search gets its own stop signal, so a cancelled search that is still unwinding
+ * cannot stop the one started after it.
+ */
+public final class SearchPool {
+    private final TranspositionTable table;
+    private volatile AtomicBoolean stopSignal = new AtomicBoolean();
+    private final List<Search> workers = new ArrayList<>();
+    private ExecutorService helpers;
+    private Consumer<SearchStats> listener;
+    private Supplier<? extends Evaluator> evaluators = ClassicEvaluator::new;
+    private volatile Tablebase tablebase;
+    private int tablebaseDepth = 1;
+
+    public SearchPool(int threads) {
+        this(threads, new TranspositionTable());
+    }
+
+    public SearchPool(int threads, TranspositionTable table) {
+        this.table = table;
+        setThreads(threads);
+    }
+
+    public TranspositionTable table() {
+        return table;
+    }
+
+    public int threads() {
+        return workers.size();
+    }
+
+    /** Resizes the pool; must not be called while a search is running. */
+    public synchronized void setThreads(int threads) {
+        threads = Math.max(1, threads);
+        if (helpers != null) {
+            helpers.shutdownNow();
+            helpers = null;
+        }
+        workers.clear();
+        for (int i = 0; i < threads; i++) {
+            Search worker = new Search(table, new AtomicBoolean(), i);
+            worker.setEvaluator(evaluators.get());
+            worker.setTablebase(tablebase, tablebaseDepth);
+            workers.add(worker);
+        }
+        if (threads > 1) {
+            helpers = Executors.newFixedThreadPool(threads - 1, runnable -> {
+                Thread thread = new Thread(runnable, "search-helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Gives every worker its own evaluator from {@code factory}, now and whenever the pool is
+     * resized; must not be called while a search is running.
+     */
+    public synchronized void setEvaluator(Supplier<? extends Evaluator> factory) {
+        evaluators = factory;
+        for (Search worker : workers) {
+            worker.setEvaluator(factory.get());
+        }
+    }
+
+    /**
+     * Shares {@code tablebase} (or none, if null) among the workers, now and whenever the pool
+     * is resized; see {@link Search#setTablebase}. Must not be called while a search is running.
+     */
+    public synchronized void setTablebase(Tablebase tablebase, int probeDepth) {
+        this.tablebase = tablebase;
+        this.tablebaseDepth = probeDepth;
+        for (Search worker : workers) {
+            worker.setTablebase(tablebase, probeDepth);
+        }
+    }
+
+    public Tablebase tablebase() {
+        return tablebase;
+    }
+
+    /** Called after every iteration the main worker completes, with node counts summed over all threads. */
+    public void setListener(Consumer<SearchStats> listener) {
+        this.listener = listener;
+    }
+
+    /** Asks the most recently started search to return as soon as possible; safe to call from any thread. */
+    public void stop() {
+        stopSignal.set(true);
+    }
+
+    /**
+     * Searches on the calling thread plus {@code threads() - 1} helpers and returns the
+     * deepest completed result.
+     */
+    public SearchStats search(Position root, SearchLimits limits) {
+        AtomicBoolean signal = new AtomicBoolean();
+        stopSignal = signal;
+        return run(root, limits, signal);
+    }
+
+    /**
+     * Starts a search whose main worker runs on {@code executor}. The root is copied before
+     * this returns, and a {@link #stop()} issued any time after this call applies to it.
+     */
+    public CompletableFuture<SearchStats> searchAsync(Position root, SearchLimits limits, Executor executor) {
+        Position snapshot = new Position(root);
+        AtomicBoolean signal = new AtomicBoolean();
+        stopSignal = signal;
+        return CompletableFuture.supplyAsync(() -> run(snapshot, limits, signal), executor);
+    }
+
+    private synchronized SearchStats run(Position root, SearchLimits limits, AtomicBoolean stopSignal) {
+        for (Search worker : workers) {
+            worker.useStopSignal(stopSignal);
+        }
+        Search main = workers.get(0);
+        main.setListener(listener == null ? null : stats -> listener.accept(withTotalNodes(stats)));
+
+        List<Future<SearchStats>> futures = new ArrayList<>();
+        SearchLimits helperLimits = SearchLimits.depth(limits.depth());
+        for (int i = 1; i < workers.size(); i++) {
+            Search helper = workers.get(i);
+            futures.add(helpers.submit(() -> helper.search(root, helperLimits)));
+        }
+
+        SearchStats best;
+        try {
+            best = main.search(root, limits);
+        } finally {
+            stopSignal.set(true);
+        }
+        for (Future<SearchStats> future : futures) {
+            try {
+                SearchStats stats = future.get();
+                // Prefer a helper only if it finished a deeper iteration than the main thread.
+                if (best == null || (stats != null && stats.depth() > best.depth() && stats.bestMove() != Moves.NONE)) {
+                    best = stats;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search helper failed", e.getCause());
+            }
+        }
+        return best == null ? null : withTotalNodes(best);
+    }
+
+    public long nodes() {
+        long nodes = 0;
+        for (Search worker : workers) {
+            nodes += worker.nodes();
+        }
+        return nodes;
+    }
+
+    public long tablebaseProbes() {
+        long probes = 0;
+        for (Search worker : workers) {
+            probes += worker.tablebaseProbes();
+        }
+        return probes;
+    }
+
+    public long tablebaseHits() {
+        long hits = 0;
+        for (Search worker : workers) {
+            hits += worker.tablebaseHits();
+        }
+        return hits;
+    }
+
+    public synchronized void shutdown() {
+        if (helpers != null) {
+            helpers.shutdownNow();
+            helpers = null;
+        }
+    }
+
+    private SearchStats withTotalNodes(SearchStats stats) {
+        return new SearchStats(stats.depth(), stats.selectiveDepth(), stats.score(), nodes(),
+                stats.quiescenceNodes(), stats.elapsedNanos(), stats.principalVariation(), tablebaseProbes(),
+                tablebaseHits());
+    }
+}
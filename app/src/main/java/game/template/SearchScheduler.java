@@ -0,0 +1,143 @@
+package game.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs engine searches for many games on a fixed number of platform threads, each with its
+ * own {@link Search} over one shared {@link TranspositionTable}. Searches are CPU-bound, so
+ * they stay off virtual threads; callers block on the returned future instead.
+ *
+ * <p>Scheduling is round-robin in node slices: a request searches whole iterations until it
+ * has used {@code sliceNodes} nodes in this turn, then goes to the back of the queue until
+ * its whole budget is spent. Its {@link Search.Progress} travels with it, so the next turn,
+ * on whichever worker, carries on at the next depth with the same aspiration score, and the
+ * table is aged once per request rather than once per turn. One expensive request therefore
+ * delays the others by at most one iteration per worker.
+ *
+ * <p>A request whose future is cancelled, or already completed, is dropped at its next turn.
+ * {@link #shutdown} fails every request still queued or between slices.
+ */
+final class SearchScheduler {
+    private static final Request STOP = new Request(null);
+
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final TranspositionTable table;
+    private final long sliceNodes;
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong nodes = new AtomicLong();
+    private volatile boolean shutdown;
+
+    SearchScheduler(int threads, TranspositionTable table, long sliceNodes) {
+        this.table = table;
+        this.sliceNodes = Math.max(1, sliceNodes);
+        for (int i = 0; i < Math.max(1, threads); i++) {
+            Thread worker = new Thread(this::work, "search-scheduler-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Searches {@code root} (copied now) for {@code nodeBudget} nodes in total. Cancelling the
+     * future abandons the search; after {@link #shutdown} it fails with {@link IllegalStateException}.
+     */
+    CompletableFuture<SearchStats> submit(Position root, long nodeBudget) {
+        Request request = new Request(
+                new Search.Progress(new Position(root), SearchLimits.nodes(Math.max(1, nodeBudget))));
+        queue.add(request);
+        // Shutdown may have drained the queue between the check in work() and the add.
+        if (shutdown && queue.remove(request)) {
+            fail(request);
+        }
+        return request.result;
+    }
+
+    /** Requests waiting for or between slices. */
+    int pending() {
+        return queue.size();
+    }
+
+    long searches() {
+        return searches.get();
+    }
+
+    long nodes() {
+        return nodes.get();
+    }
+
+    int threads() {
+        return workers.size();
+    }
+
+    TranspositionTable table() {
+        return table;
+    }
+
+    /** Fails every pending request and stops the workers once their current slices end. */
+    void shutdown() {
+        shutdown = true;
+        Request request;
+        while ((request = queue.poll()) != null) {
+            if (request != STOP) {
+                fail(request);
+            }
+        }
+        for (int i = 0; i < workers.size(); i++) {
+            queue.add(STOP);
+        }
+    }
+
+    private static void fail(Request request) {
+        request.result.completeExceptionally(new IllegalStateException("Search scheduler shut down"));
+    }
+
+    private void work() {
+        Search search = new Search(table);
+        try {
+            Request request;
+            while ((request = queue.take()) != STOP) {
+                if (request.result.isDone()) {
+                    continue;
+                }
+                try {
+                    Search.Progress progress = request.progress;
+                    long before = progress.nodes;
+                    search.searchSlice(progress, sliceNodes);
+                    nodes.addAndGet(progress.nodes - before);
+                    if (progress.done()) {
+                        // Counted first, so whoever sees the result also sees the count.
+                        if (!request.result.isDone()) {
+                            searches.incrementAndGet();
+                        }
+                        request.result.complete(progress.best());
+                    } else if (shutdown) {
+                        fail(request);
+                    } else {
+                        queue.add(request);
+                    }
+                } catch (RuntimeException e) {
+                    request.result.completeExceptionally(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Shut down.
+        }
+    }
+
+    // The progress is touched by one worker at a time; the queue hand-off orders the accesses.
+    private static final class Request {
+        final Search.Progress progress;
+        final CompletableFuture<SearchStats> result = new CompletableFuture<>();
+
+        Request(Search.Progress progress) {
+            this.progress = progress;
+        }
+    }
+}
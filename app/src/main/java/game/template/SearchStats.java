@@ -0,0 +1,110 @@
+package game.template;
+
+/** Snapshot of a search after a completed iteration. */
+public final class SearchStats {
+    private final int depth;
+    private final int selectiveDepth;
+    private final int score;
+    private final long nodes;
+    private final long quiescenceNodes;
+    private final long elapsedNanos;
+    private final int[] principalVariation;
+    private final long tablebaseProbes;
+    private final long tablebaseHits;
+
+    SearchStats(int depth, int selectiveDepth, int score, long nodes, long quiescenceNodes, long elapsedNanos,
+            int[] principalVariation, long tablebaseProbes, long tablebaseHits) {
+        this.depth = depth;
+        this.selectiveDepth = selectiveDepth;
+        this.score = score;
+        this.nodes = nodes;
+        this.quiescenceNodes = quiescenceNodes;
+        this.elapsedNanos = elapsedNanos;
+        this.principalVariation = principalVariation;
+        this.tablebaseProbes = tablebaseProbes;
+        this.tablebaseHits = tablebaseHits;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public int selectiveDepth() {
+        return selectiveDepth;
+    }
+
+    /** Centipawns from the side to move's point of view, or a mate score (see {@link #isMate()}). */
+    public int score() {
+        return score;
+    }
+
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE_BOUND;
+    }
+
+    /** Moves (not plies) until mate; negative when the side to move is getting mated. */
+    public int mateIn() {
+        int plies = Search.MATE - Math.abs(score);
+        return (score > 0 ? plies + 1 : -plies) / 2;
+    }
+
+    public long nodes() {
+        return nodes;
+    }
+
+    public long quiescenceNodes() {
+        return quiescenceNodes;
+    }
+
+    public long elapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long nodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1_000_000_000L / elapsedNanos;
+    }
+
+    public long tablebaseProbes() {
+        return tablebaseProbes;
+    }
+
+    public long tablebaseHits() {
+        return tablebaseHits;
+    }
+
+    /** Fraction of tablebase probes that found the position, 0 when nothing was probed. */
+    public double tablebaseHitRate() {
+        return tablebaseProbes == 0 ? 0 : (double) tablebaseHits / tablebaseProbes;
+    }
+
+    public int[] principalVariation() {
+        return principalVariation.clone();
+    }
+
+    public int bestMove() {
+        return principalVariation.length > 0 ? principalVariation[0] : Moves.NONE;
+    }
+
+    public String principalVariationString() {
+        StringBuilder sb = new StringBuilder();
+        for (int move : principalVariation) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(Moves.toUci(move));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        String scoreText = isMate() ? "mate " + mateIn() : "cp " + score;
+        return String.format("depth %d seldepth %d score %s nodes %d nps %d tbhits %d time %d pv %s", depth,
+                selectiveDepth, scoreText, nodes, nodesPerSecond(), tablebaseHits, elapsedMillis(),
+                principalVariationString());
+    }
+}
@@ -0,0 +1,544 @@
+package game.template;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Headless self-play match between two engine configurations, for telling a stronger engine
+ * from a merely faster one. Every worker thread plays one game at a time with its own pair
+ * of {@link Search}es and tables, so games scale with cores and never share state. Each
+ * opening is played twice with colours reversed; games end by the rules, on time, at a ply
+ * limit, or by score adjudication, and can be archived in a {@link GameStore}.
+ *
+ * <p>Results are counted from the first engine's side. With an SPRT set, the match stops as
+ * soon as the log-likelihood ratio of "elo1" against "elo0" crosses either bound; the ratio
+ * uses the usual normal approximation of the per-game score (GSPRT, logistic Elo).
+ *
+ * <p>Usage: {@code SelfPlayMatch first second [games=N] [tc=SECONDS+INC | nodes=N]
+ * [openings=FILE.epd|FILE.pgn] [plies=N] [out=FILE] [threads=N] [maxplies=N] [sprt=ELO0,ELO1]},
+ * where an engine is {@code name=NAME,eval=classic|material|nnue:FILE,hash=MB,threads=N,depth=N,nodes=N}.
+ * An engine's {@code threads} run a {@link SearchPool} per game, so a match uses up to the
+ * match's {@code threads} times that many cores; its {@code depth} and {@code nodes} limit
+ * each of its moves, the latter in place of the match's node budget.
+ */
+public final class SelfPlayMatch {
+    /** When the engines agree one side is this far ahead... */
+    public static final int RESIGN_SCORE = 1000;
+    /** ...for this many plies in a row: the game is adjudicated to that side. */
+    public static final int RESIGN_PLIES = 6;
+    /** From this ply on, scores within {@link #DRAW_SCORE} of zero... */
+    public static final int DRAW_START_PLY = 80;
+    public static final int DRAW_SCORE = 10;
+    /** ...for this many plies in a row adjudicate a draw. */
+    public static final int DRAW_PLIES = 8;
+    public static final int DEFAULT_MAX_PLIES = 400;
+    public static final int PROGRESS_GAMES = 100;
+
+    private final Engine[] engines;
+    private final List<String> openings;
+    private long baseMillis;
+    private long incrementMillis;
+    private long nodesPerMove = 20_000;
+    private int maxPlies = DEFAULT_MAX_PLIES;
+    private double[] sprt; // elo0, elo1, alpha, beta
+    private GameStore.Writer store;
+
+    private final AtomicInteger nextGame = new AtomicInteger();
+    private final Score score = new Score();
+    private final AtomicLong[] nodes = {new AtomicLong(), new AtomicLong()};
+    private final AtomicLong[] searchNanos = {new AtomicLong(), new AtomicLong()};
+    private volatile boolean stopped;
+    private volatile Throwable failure;
+
+    /** {@code openings} are FENs, each played once with either colour; empty means the initial position. */
+    public SelfPlayMatch(Engine first, Engine second, List<String> openings) {
+        this.engines = new Engine[] {first, second};
+        this.openings = openings.isEmpty() ? Collections.singletonList(Fen.INITIAL) : new ArrayList<>(openings);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: SelfPlayMatch first second [games=N] [tc=SECONDS+INC | nodes=N] "
+                    + "[openings=FILE] [plies=N] [out=FILE] [threads=N] [maxplies=N] [sprt=ELO0,ELO1]\n"
+                    + "where an engine is name=NAME,eval=classic|material|nnue:FILE,hash=MB,threads=N,depth=N,nodes=N");
+            System.exit(2);
+        }
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 2; i < args.length; i++) {
+            int equals = args[i].indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Expected key=value: " + args[i]);
+            }
+            options.put(args[i].substring(0, equals), args[i].substring(equals + 1));
+        }
+        int games = Integer.parseInt(options.getOrDefault("games", "1000"));
+        int threads = Integer.parseInt(
+                options.getOrDefault("threads", "" + Runtime.getRuntime().availableProcessors()));
+        int plies = Integer.parseInt(options.getOrDefault("plies", "8"));
+        List<String> openings = options.containsKey("openings")
+                ? loadOpenings(Paths.get(options.get("openings")), plies) : Collections.emptyList();
+
+        SelfPlayMatch match = new SelfPlayMatch(Engine.parse(args[0]), Engine.parse(args[1]), openings);
+        if (options.containsKey("tc")) {
+            String[] tc = options.get("tc").split("\\+");
+            match.setTimeControl(Math.round(Double.parseDouble(tc[0]) * 1000),
+                    tc.length > 1 ? Math.round(Double.parseDouble(tc[1]) * 1000) : 0);
+        }
+        if (options.containsKey("nodes")) {
+            match.setNodesPerMove(Long.parseLong(options.get("nodes")));
+        }
+        if (options.containsKey("maxplies")) {
+            match.setMaxPlies(Integer.parseInt(options.get("maxplies")));
+        }
+        if (options.containsKey("sprt")) {
+            String[] elo = options.get("sprt").split(",");
+            match.setSprt(Double.parseDouble(elo[0]), Double.parseDouble(elo[1]), 0.05, 0.05);
+        }
+        GameStore.Writer store = options.containsKey("out") ? GameStore.create(Paths.get(options.get("out"))) : null;
+        match.setStore(store);
+
+        System.out.printf("%s vs %s: %d games, %s, %d openings, %d threads%n", match.engines[0].name(),
+                match.engines[1].name(), games, match.timeControl(), match.openings.size(), threads);
+        long start = System.nanoTime();
+        try {
+            match.run(games, threads);
+        } finally {
+            if (store != null) {
+                store.close();
+            }
+        }
+        System.out.printf("%s in %.1f s%n", match.report(), (System.nanoTime() - start) / 1e9);
+        for (int i = 0; i < 2; i++) {
+            System.out.printf("%s: %.0f nodes/s%n", match.engines[i].name(), match.nodesPerSecond(i));
+        }
+    }
+
+    /** Sudden death plus Fischer increment; replaces the node limit. */
+    public void setTimeControl(long baseMillis, long incrementMillis) {
+        this.baseMillis = baseMillis;
+        this.incrementMillis = incrementMillis;
+    }
+
+    /** A fixed node budget per move, which is reproducible and immune to machine load. */
+    public void setNodesPerMove(long nodesPerMove) {
+        this.nodesPerMove = nodesPerMove;
+        this.baseMillis = 0;
+    }
+
+    /** Games still running after {@code maxPlies} plies are adjudicated drawn. */
+    public void setMaxPlies(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    /** Stops the match once H1 (elo1) or H0 (elo0) is accepted with error rates alpha and beta. */
+    public void setSprt(double elo0, double elo1, double alpha, double beta) {
+        this.sprt = new double[] {elo0, elo1, alpha, beta};
+    }
+
+    /** Archives every finished game, tagged with the engine names and how it ended; null for none. */
+    public void setStore(GameStore.Writer store) {
+        this.store = store;
+    }
+
+    public Score score() {
+        return score;
+    }
+
+    /** The average search speed of engine 0 or 1 over all its moves so far. */
+    public double nodesPerSecond(int engine) {
+        long nanos = searchNanos[engine].get();
+        return nanos == 0 ? 0 : nodes[engine].get() * 1e9 / nanos;
+    }
+
+    /**
+     * Plays up to {@code games} games on {@code threads} workers, fewer if the SPRT
+     * concludes, printing a progress line every {@link #PROGRESS_GAMES} games.
+     */
+    public Score run(int games, int threads) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, threads); i++) {
+            Thread worker = new Thread(() -> work(games), "self-play-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Self-play worker failed", failure);
+        }
+        return score;
+    }
+
+    private void work(int games) {
+        SearchPool[] searches = new SearchPool[2];
+        for (int i = 0; i < 2; i++) {
+            searches[i] = new SearchPool(engines[i].threads(), new TranspositionTable(engines[i].hashMegabytes()));
+            searches[i].setEvaluator(engines[i]::newEvaluator);
+        }
+        int[] moves = new int[Position.MAX_GAME_PLIES];
+        int[] scratch = new int[MoveGenerator.MAX_MOVES];
+        try {
+            int game;
+            while (!stopped && failure == null && (game = nextGame.getAndIncrement()) < games) {
+                String result = play(game, searches, moves, scratch);
+                int points = result.equals("1/2-1/2") ? 0 : result.equals("1-0") == (game % 2 == 0) ? 1 : -1;
+                long played = score.add(points);
+                if (played % PROGRESS_GAMES == 0) {
+                    System.out.println(report());
+                }
+                if (sprt != null) {
+                    double llr = score.llr(sprt[0], sprt[1]);
+                    if (llr <= Math.log(sprt[3] / (1 - sprt[2])) || llr >= Math.log((1 - sprt[3]) / sprt[2])) {
+                        stopped = true;
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+        } finally {
+            for (SearchPool search : searches) {
+                search.shutdown();
+            }
+        }
+    }
+
+    // Engine 0 has white in even games, so both engines play every opening with both colours.
+    private String play(int game, SearchPool[] searches, int[] moves, int[] scratch) throws IOException {
+        String fen = openings.get(game / 2 % openings.size());
+        Position position = Fen.parse(fen);
+        int whiteEngine = game % 2;
+        for (SearchPool search : searches) {
+            search.table().clear();
+        }
+        GameClock clock = baseMillis > 0 ? new GameClock(baseMillis, incrementMillis, 0) : null;
+        if (clock != null) {
+            clock.start(position.sideToMove());
+        }
+        int limit = Math.min(maxPlies, Position.MAX_GAME_PLIES - 1 - position.ply());
+        int plies = 0;
+        int resignPlies = 0;
+        int resignSign = 0;
+        int drawPlies = 0;
+        String result;
+        String termination = "normal";
+        while ((result = GameSession.result(position, scratch)) == null) {
+            if (plies >= limit) {
+                result = "1/2-1/2";
+                termination = "max plies";
+                break;
+            }
+            Player side = position.sideToMove();
+            int engine = side == Player.WHITE ? whiteEngine : 1 - whiteEngine;
+            SearchLimits limits = engines[engine].limits(
+                    clock != null ? clock.limits(side, 0, Long.MAX_VALUE) : SearchLimits.nodes(nodesPerMove));
+            long start = System.nanoTime();
+            SearchStats stats = searches[engine].search(position, limits);
+            searchNanos[engine].addAndGet(System.nanoTime() - start);
+            nodes[engine].addAndGet(stats.nodes());
+            if (clock != null) {
+                clock.press();
+                if (clock.flagged() == side) {
+                    result = side == Player.WHITE ? "0-1" : "1-0";
+                    termination = "time forfeit";
+                    break;
+                }
+            }
+            position.makeMove(stats.bestMove());
+            moves[plies++] = stats.bestMove();
+
+            int whiteScore = side == Player.WHITE ? stats.score() : -stats.score();
+            // Plies in a row on which the engine to move saw the same side far ahead.
+            resignPlies = Math.abs(whiteScore) < RESIGN_SCORE ? 0
+                    : resignPlies > 0 && Integer.signum(whiteScore) == resignSign ? resignPlies + 1 : 1;
+            resignSign = Integer.signum(whiteScore);
+            drawPlies = plies >= DRAW_START_PLY && Math.abs(whiteScore) <= DRAW_SCORE ? drawPlies + 1 : 0;
+            if (resignPlies >= RESIGN_PLIES) {
+                result = whiteScore > 0 ? "1-0" : "0-1";
+                termination = "adjudication";
+                break;
+            }
+            if (drawPlies >= DRAW_PLIES) {
+                result = "1/2-1/2";
+                termination = "adjudication";
+                break;
+            }
+        }
+        if (store != null) {
+            Map<String, String> tags = new LinkedHashMap<>();
+            tags.put("Round", Integer.toString(game + 1));
+            tags.put("White", engines[whiteEngine].name());
+            tags.put("Black", engines[1 - whiteEngine].name());
+            tags.put("Termination", termination);
+            synchronized (store) {
+                store.append(fen, moves, plies, result, tags);
+            }
+        }
+        return result;
+    }
+
+    private String timeControl() {
+        return baseMillis > 0 ? String.format("tc %.1f+%.2f s", baseMillis / 1000.0, incrementMillis / 1000.0)
+                : nodesPerMove + " nodes per move";
+    }
+
+    /** W-L-D, Elo with its 95% interval and, with an SPRT, the LLR against its bounds. */
+    public String report() {
+        String line = String.format("Games %d: +%d -%d =%d, Elo %+.1f +/- %.1f", score.games(), score.wins(),
+                score.losses(), score.draws(), score.elo(), score.eloError());
+        if (sprt != null) {
+            line += String.format(", LLR %.2f [%.2f, %.2f] (%.0f, %.0f)", score.llr(sprt[0], sprt[1]),
+                    Math.log(sprt[3] / (1 - sprt[2])), Math.log((1 - sprt[3]) / sprt[2]), sprt[0], sprt[1]);
+        }
+        return line;
+    }
+
+    /**
+     * FENs from an EPD or FEN file (one per line, {@code #} comments allowed), or the
+     * positions after the first {@code plies} plies of every game of a {@code .pgn} file.
+     */
+    public static List<String> loadOpenings(Path path, int plies) throws IOException {
+        List<String> openings = new ArrayList<>();
+        if (path.getFileName().toString().toLowerCase().endsWith(".pgn")) {
+            try (PgnReader reader = PgnReader.open(path)) {
+                PgnGame game;
+                while ((game = reader.next()) != null) {
+                    Position position = game.startPosition();
+                    for (int ply = 0; ply < Math.min(plies, game.moveCount()); ply++) {
+                        position.makeMove(game.move(ply));
+                    }
+                    openings.add(Fen.format(position));
+                }
+            }
+            return openings;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    openings.add(Fen.format(Fen.parse(Fen.fromEpd(line))));
+                }
+            }
+        }
+        return openings;
+    }
+
+    /**
+     * One side of a match: a name, an evaluator for every search, a hash size, and how it
+     * searches: on how many threads, and to what depth or node count at most (zero for no limit).
+     */
+    public static final class Engine {
+        private final String name;
+        private final Supplier<? extends Evaluator> evaluators;
+        private final int hashMegabytes;
+        private final int threads;
+        private final int depth;
+        private final long nodes;
+
+        public Engine(String name, Supplier<? extends Evaluator> evaluators, int hashMegabytes) {
+            this(name, evaluators, hashMegabytes, 1, 0, 0);
+        }
+
+        public Engine(String name, Supplier<? extends Evaluator> evaluators, int hashMegabytes, int threads, int depth,
+                long nodes) {
+            this.name = name;
+            this.evaluators = evaluators;
+            this.hashMegabytes = hashMegabytes;
+            this.threads = Math.max(1, threads);
+            this.depth = depth;
+            this.nodes = nodes;
+        }
+
+        /**
+         * Parses {@code name=NAME,eval=classic|material|nnue:FILE,hash=MB,threads=N,depth=N,nodes=N};
+         * every key is optional.
+         */
+        public static Engine parse(String spec) throws IOException {
+            String name = spec;
+            String eval = "classic";
+            int hash = TranspositionTable.DEFAULT_MEGABYTES;
+            int threads = 1;
+            int depth = 0;
+            long nodes = 0;
+            for (String option : spec.split(",")) {
+                int equals = option.indexOf('=');
+                String key = equals < 0 ? "" : option.substring(0, equals);
+                String value = option.substring(equals + 1);
+                switch (key) {
+                    case "name":
+                        name = value;
+                        break;
+                    case "eval":
+                        eval = value;
+                        break;
+                    case "hash":
+                        hash = Integer.parseInt(value);
+                        break;
+                    case "threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "depth":
+                        depth = Integer.parseInt(value);
+                        break;
+                    case "nodes":
+                        nodes = Long.parseLong(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown engine option: " + option);
+                }
+            }
+            Supplier<? extends Evaluator> evaluators;
+            if (eval.equals("classic")) {
+                evaluators = ClassicEvaluator::new;
+            } else if (eval.equals("material")) {
+                evaluators = MaterialEvaluator::new;
+            } else if (eval.startsWith("nnue:")) {
+                NnueNetwork network = NnueNetwork.load(Paths.get(eval.substring(5)));
+                evaluators = () -> new NnueEvaluator(network);
+            } else {
+                throw new IllegalArgumentException("Unknown evaluator: " + eval);
+            }
+            return new Engine(name, evaluators, hash, threads, depth, nodes);
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public Evaluator newEvaluator() {
+            return evaluators.get();
+        }
+
+        public int hashMegabytes() {
+            return hashMegabytes;
+        }
+
+        public int threads() {
+            return threads;
+        }
+
+        public int depth() {
+            return depth;
+        }
+
+        public long nodes() {
+            return nodes;
+        }
+
+        /** The match's {@code limits} for one move, with this engine's depth and node limits applied. */
+        SearchLimits limits(SearchLimits limits) {
+            if (depth > 0) {
+                limits.withDepth(Math.min(depth, limits.depth()));
+            }
+            if (nodes > 0) {
+                limits.withNodes(nodes);
+            }
+            return limits;
+        }
+    }
+
+    /** Wins, losses and draws of the first engine, with Elo and SPRT statistics. */
+    public static final class Score {
+        private long wins;
+        private long losses;
+        private long draws;
+
+        /** Adds a win (1), draw (0) or loss (-1) and returns the number of games so far. */
+        synchronized long add(int points) {
+            if (points > 0) {
+                wins++;
+            } else if (points < 0) {
+                losses++;
+            } else {
+                draws++;
+            }
+            return wins + losses + draws;
+        }
+
+        public synchronized long wins() {
+            return wins;
+        }
+
+        public synchronized long losses() {
+            return losses;
+        }
+
+        public synchronized long draws() {
+            return draws;
+        }
+
+        public synchronized long games() {
+            return wins + losses + draws;
+        }
+
+        /** Points per game, 0 to 1. */
+        public synchronized double mean() {
+            long games = games();
+            return games == 0 ? 0.5 : (wins + 0.5 * draws) / games;
+        }
+
+        // Per-game variance of the score.
+        private synchronized double variance() {
+            long games = games();
+            if (games == 0) {
+                return 0;
+            }
+            double mean = mean();
+            return (wins * (1 - mean) * (1 - mean) + draws * (0.5 - mean) * (0.5 - mean)
+                    + losses * mean * mean) / games;
+        }
+
+        public double elo() {
+            return elo(mean());
+        }
+
+        /** Half the width of the 95% confidence interval, in Elo. */
+        public synchronized double eloError() {
+            long games = games();
+            if (games == 0) {
+                return 0;
+            }
+            double error = 1.959964 * Math.sqrt(variance() / games);
+            return (elo(Math.min(mean() + error, 0.9999)) - elo(Math.max(mean() - error, 0.0001))) / 2;
+        }
+
+        /**
+         * Log-likelihood ratio of the hypotheses elo1 and elo0. Half a game of each outcome is
+         * added, so an unbroken run of wins or losses still has a variance to test against.
+         */
+        public synchronized double llr(double elo0, double elo1) {
+            double w = wins + 0.5;
+            double d = draws + 0.5;
+            double l = losses + 0.5;
+            double n = w + d + l;
+            double mean = (w + 0.5 * d) / n;
+            double variance = (w * (1 - mean) * (1 - mean) + d * (0.5 - mean) * (0.5 - mean) + l * mean * mean) / n;
+            double s0 = expectedScore(elo0);
+            double s1 = expectedScore(elo1);
+            return n * (s1 - s0) * (2 * mean - s0 - s1) / (2 * variance);
+        }
+
+        static double elo(double score) {
+            score = Math.max(0.0001, Math.min(score, 0.9999));
+            return -400 * Math.log10(1 / score - 1);
+        }
+
+        static double expectedScore(double elo) {
+            return 1 / (1 + Math.pow(10, -elo / 400));
+        }
+    }
+}
@@ -0,0 +1,501 @@
+package game.template;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Endgame tablebases: one file per material signature, named like {@code KRvKP.ctb} with the
+ * stronger side first, holding the distance to mate of every placement of those pieces with
+ * either side to move. {@link TablebaseGenerator} builds them.
+ *
+ * <p>Files are found when the directory is opened but memory-mapped only on first probe,
+ * and at most {@code maxOpen} stay mapped: the least recently probed one is closed when
+ * another is needed. Probes are thread-safe.
+ *
+ * <p>Tables store no castling or en passant rights and know nothing of the fifty-move rule.
+ * Positions with castling rights or a capturable en-passant pawn are not probed, and callers
+ * decide whether a mate fits in what is left of the fifty-move count. En passant replies to
+ * double pushes are part of every table's scores from version 2 on; a version 1 table with
+ * a pawn on each side was solved without them and is treated as missing.
+ *
+ * <p>The format is this engine's own, not Syzygy or Gaviota, and third-party tablebase files
+ * cannot be read. Syzygy would mean reimplementing its compression and indexing, and its
+ * probes answer different questions: win/draw/loss and distance to zeroing under the
+ * fifty-move rule, where these tables hold distance to mate. What is covered is what
+ * {@link TablebaseGenerator} can build in reasonable time, up to four pieces.
+ *
+ * <p>A file is a 16-byte little-endian header (magic, version, piece count, piece codes in
+ * index order) followed by one signed byte per index, white to move first: 0 is a draw,
+ * {@code d > 0} mates in {@code d} plies, {@code -d - 1} is mated in {@code d} plies.
+ */
+public final class Tablebase implements Closeable {
+    public static final String EXTENSION = ".ctb";
+    public static final int DEFAULT_MAX_OPEN = 32;
+    /** Returned by {@link #probe} when no table covers the position. */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    static final int MAGIC = 0x42544843; // "CHTB" little-endian
+    /** Version 2 scores en passant replies; see {@link #builtWithoutEnPassant}. */
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 16;
+    /** Stored for piece placements that cannot occur in a game. */
+    static final byte ILLEGAL = Byte.MIN_VALUE;
+
+    private static final String PIECE_LETTERS = "PNBRQK";
+    private static final int[] TRIANGLE = new int[64];
+    private static final int[] TRIANGLE_SQUARES = new int[10];
+
+    static {
+        java.util.Arrays.fill(TRIANGLE, -1);
+        int count = 0;
+        for (int rank = 0; rank < 4; rank++) {
+            for (int file = rank; file < 4; file++) {
+                TRIANGLE_SQUARES[count] = rank * 8 + file;
+                TRIANGLE[rank * 8 + file] = count++;
+            }
+        }
+    }
+
+    private final Path directory;
+    private final int maxOpen;
+    private final Map<Long, Path> files = new HashMap<>();
+    private final int maxPieces;
+    private final LinkedHashMap<Long, Table> open = new LinkedHashMap<>(16, 0.75f, true);
+
+    private Tablebase(Path directory, int maxOpen) throws IOException {
+        this.directory = directory;
+        this.maxOpen = Math.max(1, maxOpen);
+        int largest = 2;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                long material = parseMaterial(name.substring(0, name.length() - EXTENSION.length()));
+                if (material != 0) {
+                    files.put(material, file);
+                    largest = Math.max(largest, pieceCount(material));
+                }
+            }
+        }
+        maxPieces = largest;
+    }
+
+    /** Finds the tables in {@code directory}; nothing is mapped until a position is probed. */
+    public static Tablebase open(Path directory) throws IOException {
+        return new Tablebase(directory, DEFAULT_MAX_OPEN);
+    }
+
+    public static Tablebase open(Path directory, int maxOpen) throws IOException {
+        return new Tablebase(directory, maxOpen);
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /** Number of table files found. */
+    public int size() {
+        return files.size();
+    }
+
+    /** Pieces, kings included, in the largest table found (2 with no tables). */
+    public int maxPieces() {
+        return maxPieces;
+    }
+
+    public synchronized int openMappings() {
+        return open.size();
+    }
+
+    /**
+     * The exact score of {@code position} for the side to move, in {@link Search} units:
+     * {@code Search.MATE - d} when it mates in {@code d} plies, {@code -Search.MATE + d} when
+     * it is mated in {@code d} plies, 0 for a draw, or {@link #UNKNOWN} without a table.
+     */
+    public int probe(Position position) {
+        int value = probeValue(position);
+        return value == UNKNOWN ? UNKNOWN : score(value);
+    }
+
+    /**
+     * The move that mates fastest, or when lost delays mate longest, or else keeps the draw;
+     * {@link Moves#NONE} when the position or one of its successors has no table, or there
+     * is no legal move.
+     */
+    public int bestMove(Position position) {
+        if (probeValue(position) == UNKNOWN) {
+            return Moves.NONE;
+        }
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generate(position, moves);
+        int best = Moves.NONE;
+        int bestScore = -Search.INFINITY;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            int child = probe(position);
+            position.unmakeMove();
+            if (child == UNKNOWN) {
+                return Moves.NONE;
+            }
+            int score = parentScore(child);
+            if (score > bestScore) {
+                bestScore = score;
+                best = moves[i];
+            }
+        }
+        return best;
+    }
+
+    /** Up to {@code maxPlies} best moves from {@code position}, which is left unchanged. */
+    public int[] line(Position position, int maxPlies) {
+        List<Integer> line = new ArrayList<>();
+        while (line.size() < maxPlies) {
+            int move = bestMove(position);
+            if (move == Moves.NONE) {
+                break;
+            }
+            line.add(move);
+            position.makeMove(move);
+        }
+        int[] moves = new int[line.size()];
+        for (int i = moves.length - 1; i >= 0; i--) {
+            moves[i] = line.get(i);
+            position.unmakeMove();
+        }
+        return moves;
+    }
+
+    /** The score of a position one ply before one scored {@code childScore} by its own side to move. */
+    static int parentScore(int childScore) {
+        return childScore > 0 ? -childScore + 1 : childScore < 0 ? -childScore - 1 : 0;
+    }
+
+    static int score(int value) {
+        return value > 0 ? Search.MATE - value : value < 0 ? -Search.MATE + (-value - 1) : 0;
+    }
+
+    /** The stored value (see the class comment) of {@code position}, or {@link #UNKNOWN}. */
+    int probeValue(Position position) {
+        if (Long.bitCount(position.occupied()) > maxPieces || position.castlingRights() != 0) {
+            return UNKNOWN;
+        }
+        int ep = position.enPassantSquare();
+        int us = position.sideToMove().ordinal();
+        if (ep != Position.NO_SQUARE && (Bitboards.PAWN_ATTACKS[us ^ 1][ep] & position.pieces[us * 6]) != 0) {
+            return UNKNOWN;
+        }
+        long material = material(position);
+        if (material == bareKings()) {
+            return 0;
+        }
+        boolean flipped = false;
+        Table table = table(material);
+        if (table == null) {
+            flipped = true;
+            table = table(flip(material));
+            if (table == null) {
+                return UNKNOWN;
+            }
+        }
+        long index = table.layout.index(position, flipped);
+        long offset = HEADER_BYTES + (us ^ (flipped ? 1 : 0)) * table.layout.size + index;
+        int value = table.data.segment(offset).get(MappedSegments.index(offset));
+        return value == ILLEGAL ? UNKNOWN : value;
+    }
+
+    private synchronized Table table(long material) {
+        Table table = open.get(material);
+        if (table != null) {
+            return table;
+        }
+        Path file = files.get(material);
+        if (file == null) {
+            return null;
+        }
+        try {
+            table = new Table(file);
+        } catch (IOException e) {
+            // An unreadable table is treated as missing rather than failing the search.
+            files.remove(material);
+            return null;
+        }
+        open.put(material, table);
+        Iterator<Table> eldest = open.values().iterator();
+        while (open.size() > maxOpen) {
+            // Threads still reading the old buffer keep it mapped until it is collected.
+            eldest.next().close();
+            eldest.remove();
+        }
+        return table;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Table table : open.values()) {
+            table.close();
+        }
+        open.clear();
+    }
+
+    // Material signatures pack the number of pieces of each code into 4 bits per code.
+
+    static long material(Position position) {
+        long material = 0;
+        for (int code = 0; code < 12; code++) {
+            material |= (long) Long.bitCount(position.pieces[code]) << (4 * code);
+        }
+        return material;
+    }
+
+    static long flip(long material) {
+        return (material >>> 24) | ((material & 0xFFFFFFL) << 24);
+    }
+
+    static int pieceCount(long material) {
+        int count = 0;
+        for (int code = 0; code < 12; code++) {
+            count += (int) (material >>> (4 * code)) & 15;
+        }
+        return count;
+    }
+
+    /**
+     * True for a version 1 table with a pawn on each side: those were solved as if en passant
+     * did not exist, so their scores may be wrong and they are not probed.
+     */
+    static boolean builtWithoutEnPassant(long material, int version) {
+        return version < 2 && (material & 15) != 0 && ((material >>> 24) & 15) != 0;
+    }
+
+    /** The format version in {@code file}'s header, or 0 if it has none. */
+    static int version(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Read the magic and version.
+            }
+            return header.position() == 8 && header.getInt(0) == MAGIC ? header.getInt(4) : 0;
+        }
+    }
+
+    private static long bareKings() {
+        return (1L << 20) | (1L << 44);
+    }
+
+    /** {@code KRvKP} style name, each side's pieces from most to least valuable. */
+    static String name(long material) {
+        StringBuilder name = new StringBuilder();
+        for (int side = 0; side < 2; side++) {
+            if (side == 1) {
+                name.append('v');
+            }
+            for (int type = 5; type >= 0; type--) {
+                int count = (int) (material >>> (4 * (side * 6 + type))) & 15;
+                for (int i = 0; i < count; i++) {
+                    name.append(PIECE_LETTERS.charAt(type));
+                }
+            }
+        }
+        return name.toString();
+    }
+
+    /** The material signature a table name denotes, or 0 if it is not a valid name. */
+    static long parseMaterial(String name) {
+        int split = name.indexOf('v');
+        if (split < 0) {
+            return 0;
+        }
+        long material = 0;
+        for (int i = 0; i < name.length(); i++) {
+            if (i == split) {
+                continue;
+            }
+            int type = PIECE_LETTERS.indexOf(name.charAt(i));
+            if (type < 0) {
+                return 0;
+            }
+            int code = (i < split ? 0 : 6) + type;
+            material += 1L << (4 * code);
+        }
+        boolean kings = ((material >>> 20) & 15) == 1 && ((material >>> 44) & 15) == 1;
+        return kings && name(material).equals(name) ? material : 0;
+    }
+
+    /** True when white's half of {@code material} is at least as strong as black's, as table names require. */
+    static boolean isCanonical(long material) {
+        String name = name(material);
+        int split = name.indexOf('v');
+        String white = name.substring(0, split);
+        String black = name.substring(split + 1);
+        if (white.length() != black.length()) {
+            return white.length() > black.length();
+        }
+        for (int i = 0; i < white.length(); i++) {
+            int difference = PIECE_LETTERS.indexOf(white.charAt(i)) - PIECE_LETTERS.indexOf(black.charAt(i));
+            if (difference != 0) {
+                return difference > 0;
+            }
+        }
+        return true;
+    }
+
+    private static final class Table {
+        final FileChannel channel;
+        final MappedSegments data;
+        final Layout layout;
+
+        Table(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                data = new MappedSegments(channel, 0);
+                ByteBuffer header = data.segment(0);
+                int version = data.size() < HEADER_BYTES ? 0 : header.getInt(4);
+                if (data.size() < HEADER_BYTES || header.getInt(0) != MAGIC || version < 1 || version > VERSION) {
+                    throw new IOException("Not a tablebase: " + file);
+                }
+                int[] codes = new int[header.get(8)];
+                for (int i = 0; i < codes.length; i++) {
+                    codes[i] = header.get(9 + i);
+                }
+                layout = new Layout(codes);
+                long material = 0;
+                for (int code : codes) {
+                    material += 1L << (4 * code);
+                }
+                if (builtWithoutEnPassant(material, version)) {
+                    throw new IOException("Built without en passant, regenerate: " + file);
+                }
+                if (data.size() != HEADER_BYTES + 2 * layout.size) {
+                    throw new IOException("Truncated tablebase: " + file);
+                }
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Read-only mapping; nothing is lost if closing fails.
+            }
+        }
+    }
+
+    /**
+     * Maps piece placements to table indices. Pieces are indexed in a fixed order, white king
+     * first; symmetry moves the white king to the a1-d1-d4 triangle (10 squares), or for
+     * tables with pawns, which may only be mirrored left to right, to files a-d (32 squares).
+     * Every other piece takes any of the 64 squares, so some indices are illegal or repeat a
+     * placement; the generator fills them all consistently.
+     */
+    static final class Layout {
+        final int[] codes;
+        final boolean pawns;
+        final long size;
+        private final long kingStride;
+
+        Layout(int[] codes) {
+            this.codes = codes.clone();
+            boolean hasPawns = false;
+            for (int code : codes) {
+                hasPawns |= code % 6 == 0;
+            }
+            pawns = hasPawns;
+            kingStride = 1L << (6 * (codes.length - 1));
+            size = (pawns ? 32 : 10) * kingStride;
+        }
+
+        /** Table codes in index order for {@code material}: kings first, then white's pieces, then black's. */
+        static int[] codes(long material) {
+            int[] codes = new int[pieceCount(material)];
+            codes[0] = 5;
+            codes[1] = 11;
+            int count = 2;
+            for (int side = 0; side < 2; side++) {
+                for (int type = 4; type >= 0; type--) {
+                    int code = side * 6 + type;
+                    for (int n = (int) (material >>> (4 * code)) & 15; n > 0; n--) {
+                        codes[count++] = code;
+                    }
+                }
+            }
+            return codes;
+        }
+
+        /**
+         * The index of {@code position}, whose pieces must match this layout, or its color
+         * mirror when {@code flipped}. The side to move is not part of the index.
+         */
+        long index(Position position, boolean flipped) {
+            int flip = flipped ? 56 : 0;
+            int colors = flipped ? 6 : 0;
+            int king = Long.numberOfTrailingZeros(position.pieces[(5 + colors) % 12]) ^ flip;
+            int symmetry = symmetry(king);
+            king = transform(king, symmetry);
+            long index = pawns ? (king >>> 3) * 4 + (king & 7) : TRIANGLE[king];
+            long taken = 0;
+            for (int i = 1; i < codes.length; i++) {
+                long bits = position.pieces[(codes[i] + colors) % 12] & ~taken;
+                int square = Long.numberOfTrailingZeros(bits);
+                taken |= 1L << square;
+                index = (index << 6) | transform(square ^ flip, symmetry);
+            }
+            return index;
+        }
+
+        /** Fills {@code squares} with the placement at {@code index}, in {@link #codes} order. */
+        void squares(long index, int[] squares) {
+            for (int i = codes.length - 1; i > 0; i--) {
+                squares[i] = (int) (index & 63);
+                index >>>= 6;
+            }
+            squares[0] = pawns ? (int) (index / 4) * 8 + (int) (index % 4) : TRIANGLE_SQUARES[(int) index];
+        }
+
+        // Bit 0 mirrors files, bit 1 mirrors ranks, bit 2 swaps files and ranks.
+        private int symmetry(int king) {
+            int symmetry = 0;
+            if ((king & 7) > 3) {
+                symmetry |= 1;
+                king ^= 7;
+            }
+            if (!pawns) {
+                if ((king >>> 3) > 3) {
+                    symmetry |= 2;
+                    king ^= 56;
+                }
+                if ((king >>> 3) > (king & 7)) {
+                    symmetry |= 4;
+                }
+            }
+            return symmetry;
+        }
+
+        private static int transform(int square, int symmetry) {
+            if ((symmetry & 1) != 0) {
+                square ^= 7;
+            }
+            if ((symmetry & 2) != 0) {
+                square ^= 56;
+            }
+            if ((symmetry & 4) != 0) {
+                square = ((square & 7) << 3) | (square >>> 3);
+            }
+            return square;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package game.template;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds {@link Tablebase} files for every material signature with up to {@code maxPieces}
+ * pieces, kings included. Each table is solved by forward iteration: mates and stalemates
+ * are marked first, then pass {@code k} resolves every position that mates in {@code k}
+ * plies (some move reaches a position mated in {@code k - 1}) or is mated in {@code k}
+ * (every move reaches a position that mates in at most {@code k - 1}). Captures and
+ * promotions are looked up in the smaller tables, which are built first, so a directory can
+ * be filled incrementally; existing files are kept. What is never resolved is a draw.
+ *
+ * <p>Stored positions never have an en passant right, but a double push that allows one is
+ * scored with the capture as an extra reply, looked up in the smaller tables, so tables with
+ * a pawn on each side are exact too. Older files built without this are rebuilt.
+ * Three-piece tables take seconds; four-piece ones up to a few minutes each.
+ * Usage: {@code TablebaseGenerator directory [maxPieces]}.
+ */
+public final class TablebaseGenerator {
+    private static final byte UNRESOLVED = Byte.MAX_VALUE;
+    private static final int MAX_PLIES = 126;
+    private static final int CHUNK = 1 << 14;
+
+    private final Tablebase smaller;
+    private final Tablebase.Layout layout;
+    private final long material;
+    private final byte[][] values;
+    private final int threads;
+
+    private TablebaseGenerator(Tablebase smaller, long material, int threads) {
+        this.smaller = smaller;
+        this.material = material;
+        this.threads = threads;
+        layout = new Tablebase.Layout(Tablebase.Layout.codes(material));
+        if (layout.size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(Tablebase.name(material) + " is too large to generate");
+        }
+        values = new byte[2][(int) layout.size];
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path directory = Paths.get(args[0]);
+        int maxPieces = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        Files.createDirectories(directory);
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (long material : signatures(maxPieces)) {
+            String name = Tablebase.name(material);
+            Path file = directory.resolve(name + Tablebase.EXTENSION);
+            if (Files.exists(file) && !Tablebase.builtWithoutEnPassant(material, Tablebase.version(file))) {
+                continue;
+            }
+            long start = System.nanoTime();
+            int longest;
+            try (Tablebase smaller = Tablebase.open(directory)) {
+                TablebaseGenerator generator = new TablebaseGenerator(smaller, material, threads);
+                longest = generator.solve();
+                generator.write(file);
+            }
+            System.out.printf("%-8s %10d positions  longest mate %3d plies  %.1f s%n", name,
+                    Files.size(file) - Tablebase.HEADER_BYTES, longest, (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    /** Canonical signatures of 3 to {@code maxPieces} pieces, each after every table it depends on. */
+    static List<Long> signatures(int maxPieces) {
+        TreeSet<Long> found = new TreeSet<>();
+        for (int pieces = 3; pieces <= maxPieces; pieces++) {
+            addSignatures((1L << 20) | (1L << 44), 0, pieces - 2, found);
+        }
+        List<Long> ordered = new ArrayList<>(found);
+        // Captures lose a piece and promotions lose a pawn, so fewer pieces, then fewer pawns, come first.
+        ordered.sort(Comparator.<Long>comparingInt(Tablebase::pieceCount)
+                .thenComparingLong(m -> (m & 15) + ((m >>> 24) & 15))
+                .thenComparing(Tablebase::name));
+        return ordered;
+    }
+
+    private static void addSignatures(long material, int fromCode, int remaining, TreeSet<Long> found) {
+        if (remaining == 0) {
+            found.add(Tablebase.isCanonical(material) ? material : Tablebase.flip(material));
+            return;
+        }
+        for (int code = fromCode; code < 12; code++) {
+            if (code % 6 != 5) {
+                addSignatures(material + (1L << (4 * code)), code, remaining - 1, found);
+            }
+        }
+    }
+
+    /** Fills the table and returns the longest mate found, in plies. */
+    private int solve() throws InterruptedException {
+        AtomicLong longestExit = new AtomicLong();
+        forEachIndex((scratch, side, index) -> {
+            byte value = initialValue(scratch, side, index);
+            values[side][(int) index] = value;
+            if (value == UNRESOLVED) {
+                longestExit.accumulateAndGet(scratch.longestExit, Math::max);
+            }
+        });
+        int longest = 0;
+        for (int plies = 1; plies <= MAX_PLIES; plies++) {
+            int target = plies;
+            AtomicLong resolved = new AtomicLong();
+            forEachIndex((scratch, side, index) -> {
+                if (values[side][(int) index] == UNRESOLVED && resolve(scratch, side, index, target)) {
+                    resolved.incrementAndGet();
+                }
+            });
+            if (resolved.get() > 0) {
+                longest = plies;
+            } else if (plies > longestExit.get()) {
+                break;
+            }
+        }
+        for (byte[] half : values) {
+            for (int i = 0; i < half.length; i++) {
+                if (half[i] == UNRESOLVED) {
+                    half[i] = 0;
+                }
+            }
+        }
+        return longest;
+    }
+
+    // Marks illegal placements, mates and stalemates; everything else starts unresolved.
+    private byte initialValue(Scratch scratch, int side, long index) {
+        if (!place(scratch, side, index)) {
+            return Tablebase.ILLEGAL;
+        }
+        Position position = scratch.position;
+        int count = MoveGenerator.generate(position, scratch.moves);
+        if (count == 0) {
+            return MoveGenerator.isInCheck(position) ? (byte) -1 : 0;
+        }
+        scratch.longestExit = 0;
+        for (int i = 0; i < count; i++) {
+            int move = scratch.moves[i];
+            if (Moves.flags(move) == Moves.DOUBLE_PUSH) {
+                position.makeMove(move);
+                int value = enPassantValue(scratch);
+                position.unmakeMove();
+                if (value != Tablebase.UNKNOWN) {
+                    scratch.longestExit = Math.max(scratch.longestExit, plies(value));
+                }
+            } else if (Moves.isCapture(move) || Moves.isPromotion(move)) {
+                position.makeMove(move);
+                int value = smaller.probeValue(position);
+                if (value == Tablebase.UNKNOWN) {
+                    throw new IllegalStateException("Missing table " + Tablebase.name(Tablebase.material(position)));
+                }
+                position.unmakeMove();
+                scratch.longestExit = Math.max(scratch.longestExit, plies(value));
+            }
+        }
+        return UNRESOLVED;
+    }
+
+    // Resolves the position if it mates or is mated in exactly the given number of plies.
+    private boolean resolve(Scratch scratch, int side, long index, int plies) {
+        place(scratch, side, index);
+        Position position = scratch.position;
+        int count = MoveGenerator.generate(position, scratch.moves);
+        boolean allWin = true;
+        int fastestLoss = Integer.MAX_VALUE;
+        int slowestWin = 0;
+        for (int i = 0; i < count; i++) {
+            int move = scratch.moves[i];
+            position.makeMove(move);
+            int value = successorValue(scratch, side, move, plies);
+            position.unmakeMove();
+            if (value == UNRESOLVED || value == 0) {
+                allWin = false;
+            } else if (value > 0) {
+                slowestWin = Math.max(slowestWin, value);
+            } else {
+                allWin = false;
+                fastestLoss = Math.min(fastestLoss, -value - 1);
+            }
+        }
+        if (fastestLoss <= plies - 1) {
+            values[side][(int) index] = (byte) (fastestLoss + 1);
+            return true;
+        }
+        if (allWin && slowestWin <= plies - 1) {
+            values[side][(int) index] = (byte) (-(slowestWin + 1) - 1);
+            return true;
+        }
+        return false;
+    }
+
+    // The value of the position after move, for its side to move, as far as it is known at this pass.
+    private int successorValue(Scratch scratch, int side, int move, int plies) {
+        if (Moves.isCapture(move) || Moves.isPromotion(move)) {
+            return smaller.probeValue(scratch.position);
+        }
+        int value = values[side ^ 1][(int) layout.index(scratch.position, false)];
+        if (Moves.flags(move) != Moves.DOUBLE_PUSH) {
+            return value;
+        }
+        int enPassant = enPassantValue(scratch);
+        if (enPassant == Tablebase.UNKNOWN) {
+            return value;
+        }
+        if (value == UNRESOLVED) {
+            // Still open means no result in under plies; only a faster en passant win is certain yet.
+            return enPassant > 0 && enPassant <= plies - 1 ? enPassant : UNRESOLVED;
+        }
+        return Tablebase.score(enPassant) > Tablebase.score(value) ? enPassant : value;
+    }
+
+    // The best en passant capture in scratch's position as a stored value, or UNKNOWN if there is none.
+    private int enPassantValue(Scratch scratch) {
+        Position position = scratch.position;
+        if (position.enPassantSquare() == Position.NO_SQUARE) {
+            return Tablebase.UNKNOWN;
+        }
+        int count = MoveGenerator.generate(position, scratch.replies);
+        int best = Tablebase.UNKNOWN;
+        for (int i = 0; i < count; i++) {
+            int reply = scratch.replies[i];
+            if (Moves.flags(reply) != Moves.EN_PASSANT) {
+                continue;
+            }
+            position.makeMove(reply);
+            int child = smaller.probeValue(position);
+            position.unmakeMove();
+            if (child == Tablebase.UNKNOWN) {
+                throw new IllegalStateException("Missing table for an en passant capture");
+            }
+            // One ply before the child: its loss is our win one ply later, and the other way round.
+            int value = child > 0 ? -child - 2 : child < 0 ? -child : 0;
+            if (best == Tablebase.UNKNOWN || Tablebase.score(value) > Tablebase.score(best)) {
+                best = value;
+            }
+        }
+        return best;
+    }
+
+    private static int plies(int value) {
+        return value > 0 ? value : value < 0 ? -value - 1 : 0;
+    }
+
+    // Sets up the placement at index; false if it is not a legal position with that side to move.
+    private boolean place(Scratch scratch, int side, long index) {
+        int[] squares = scratch.squares;
+        layout.squares(index, squares);
+        long seen = 0;
+        for (int i = 0; i < squares.length; i++) {
+            long bit = 1L << squares[i];
+            if ((seen & bit) != 0 || (layout.codes[i] % 6 == 0 && (bit & 0xFF000000000000FFL) != 0)) {
+                return false;
+            }
+            seen |= bit;
+        }
+        Position position = scratch.position;
+        position.clear();
+        for (int i = 0; i < squares.length; i++) {
+            position.put(layout.codes[i], squares[i]);
+        }
+        position.setSideToMove(side == 0 ? Player.WHITE : Player.BLACK);
+        int theirKing = Long.numberOfTrailingZeros(position.pieces[(side ^ 1) * 6 + 5]);
+        return !MoveGenerator.isAttacked(position, theirKing, side, position.occupied());
+    }
+
+    private void forEachIndex(IndexTask task) throws InterruptedException {
+        AtomicLong next = new AtomicLong();
+        long total = 2 * layout.size;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    Scratch scratch = new Scratch(layout.codes.length);
+                    long start;
+                    while ((start = next.getAndAdd(CHUNK)) < total) {
+                        for (long i = start; i < Math.min(start + CHUNK, total); i++) {
+                            task.run(scratch, (int) (i / layout.size), i % layout.size);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Generating " + Tablebase.name(material) + " failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Written to a temporary file first so an interrupted run never leaves a truncated table.
+    private void write(Path file) throws IOException {
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        ByteBuffer header = ByteBuffer.allocate(Tablebase.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(Tablebase.MAGIC).putInt(Tablebase.VERSION).put((byte) layout.codes.length);
+        for (int code : layout.codes) {
+            header.put((byte) code);
+        }
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial), 1 << 16)) {
+            out.write(header.array());
+            out.write(values[0]);
+            out.write(values[1]);
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private interface IndexTask {
+        void run(Scratch scratch, int side, long index);
+    }
+
+    private static final class Scratch {
+        final Position position = new Position();
+        final int[] moves = new int[MoveGenerator.MAX_MOVES];
+        final int[] replies = new int[MoveGenerator.MAX_MOVES];
+        final int[] squares;
+        int longestExit;
+
+        Scratch(int pieces) {
+            squares = new int[pieces];
+        }
+    }
+}
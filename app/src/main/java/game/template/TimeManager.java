@@ -0,0 +1,49 @@
+package game.template;
+
+/**
+ * Turns a chess clock into search limits, for the UI's AI player and for UCI {@code go}. The
+ * target is an even share of the remaining time plus half the increment, which is the soft
+ * limit: no new iteration starts after it. The hard limit lets an iteration in progress run
+ * to three times the target, never past a quarter of what is left.
+ */
+public final class TimeManager {
+    /** Time kept back for move transmission and GUI latency. */
+    public static final long MOVE_OVERHEAD_MILLIS = 30;
+    /** Moves the remaining time is assumed to cover when the time control does not say. */
+    public static final int DEFAULT_MOVES_TO_GO = 30;
+
+    private static final long MIN_MILLIS = 10;
+
+    private TimeManager() {
+    }
+
+    /**
+     * @param movesToGo moves until the next time control, or 0 for sudden death (with or
+     *                  without increment)
+     */
+    public static SearchLimits forClock(long remainingMillis, long incrementMillis, int movesToGo) {
+        long available = Math.max(MIN_MILLIS, remainingMillis - MOVE_OVERHEAD_MILLIS);
+        int moves = movesToGo > 0 ? Math.min(movesToGo, DEFAULT_MOVES_TO_GO) : DEFAULT_MOVES_TO_GO;
+        long target = available / moves + incrementMillis / 2;
+        long hard = Math.max(MIN_MILLIS, Math.min(3 * target, available / 4));
+        // With one move to go there is no later move to save time for.
+        if (movesToGo == 1) {
+            hard = available;
+        }
+        long soft = Math.max(MIN_MILLIS, Math.min(target, hard));
+        return SearchLimits.infinite().withTime(soft, hard);
+    }
+
+    /** Like {@link #forClock(long, long, int)}, but never thinking longer than {@code maxMillis}. */
+    public static SearchLimits forClock(long remainingMillis, long incrementMillis, int movesToGo, long maxMillis) {
+        SearchLimits limits = forClock(remainingMillis, incrementMillis, movesToGo);
+        return limits.withTime(Math.min(limits.softTimeMillis(), maxMillis / 2),
+                Math.min(limits.hardTimeMillis(), maxMillis));
+    }
+
+    /** A fixed time per move, using all of it less the overhead. */
+    public static SearchLimits forMoveTime(long millis) {
+        long limit = Math.max(MIN_MILLIS, millis - MOVE_OVERHEAD_MILLIS);
+        return SearchLimits.infinite().withTime(limit, limit);
+    }
+}
@@ -0,0 +1,145 @@
+package game.template;
+
+/**
+ * Fixed-size hash table of search results shared by all search threads. Entries live in a
+ * flat {@code long[]} as (key ^ data, data) pairs grouped in buckets of four; writers never
+ * lock, and readers discard any entry whose halves do not XOR back to the probed key, which
+ * also catches entries torn by concurrent writes. The table keeps no counters of its own:
+ * probe and hit counts are recorded by {@link EngineMetrics}, only while it is enabled.
+ *
+ * <p>Data layout: move (bits 0-22), score (23-38, signed), depth (39-46), bound (47-48)
+ * and search age (49-54).
+ */
+public final class TranspositionTable {
+    public static final int BOUND_UPPER = 1;
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_EXACT = 3;
+
+    public static final int DEFAULT_MEGABYTES = 16;
+
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_LONGS = BUCKET_ENTRIES * 2;
+    private static final int AGE_MASK = 63;
+
+    private long[] table;
+    private volatile int age;
+
+    public TranspositionTable() {
+        this(DEFAULT_MEGABYTES);
+    }
+
+    public TranspositionTable(int megabytes) {
+        resize(megabytes);
+    }
+
+    /** Reallocates to the largest power-of-two bucket count that fits in {@code megabytes}; clears all entries. */
+    public synchronized void resize(int megabytes) {
+        long bytes = Math.max(1, megabytes) * 1024L * 1024L;
+        long buckets = Long.highestOneBit(bytes / (BUCKET_LONGS * Long.BYTES));
+        buckets = Math.min(buckets, Integer.MAX_VALUE / BUCKET_LONGS + 1L);
+        table = new long[(int) (buckets * BUCKET_LONGS)];
+    }
+
+    public synchronized void clear() {
+        java.util.Arrays.fill(table, 0);
+        age = 0;
+    }
+
+    /** Marks the start of a new search so entries from older searches become preferred victims. */
+    public void newSearch() {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    /** How many searches have started since the last clear, modulo the age field's range. */
+    int age() {
+        return age;
+    }
+
+    public int megabytes() {
+        return (int) (table.length * (long) Long.BYTES / (1024 * 1024));
+    }
+
+    /** Returns the stored data word for {@code key}, or 0 on a miss. */
+    public long probe(long key) {
+        long[] table = this.table;
+        int base = bucketIndex(key, table.length);
+        for (int i = base; i < base + BUCKET_LONGS; i += 2) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key && data != 0) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        long[] table = this.table;
+        int base = bucketIndex(key, table.length);
+        int currentAge = age;
+        int victim = base;
+        int victimWorth = Integer.MAX_VALUE;
+        for (int i = base; i < base + BUCKET_LONGS; i += 2) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key && data != 0) {
+                if (move == Moves.NONE) {
+                    move = move(data);
+                }
+                victim = i;
+                break;
+            }
+            // Replace the shallowest entry, counting each search of age as eight plies of depth.
+            int worth = data == 0 ? Integer.MIN_VALUE : depth(data) - 8 * ((currentAge - age(data)) & AGE_MASK);
+            if (worth < victimWorth) {
+                victimWorth = worth;
+                victim = i;
+            }
+        }
+        long data = (move & 0x7FFFFFL)
+                | ((score & 0xFFFFL) << 23)
+                | ((long) (depth & 0xFF) << 39)
+                | ((long) bound << 47)
+                | ((long) currentAge << 49);
+        table[victim] = key ^ data;
+        table[victim + 1] = data;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0x7FFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 23);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 39) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> 47) & 3);
+    }
+
+    private static int age(long data) {
+        return (int) ((data >>> 49) & AGE_MASK);
+    }
+
+    /** Permille of sampled entries written by the current search, as reported by UCI {@code hashfull}. */
+    public int hashfull() {
+        long[] table = this.table;
+        int currentAge = age;
+        int samples = Math.min(1000, table.length / 2);
+        int used = 0;
+        for (int i = 0; i < samples; i++) {
+            long data = table[i * 2 + 1];
+            if (data != 0 && age(data) == currentAge) {
+                used++;
+            }
+        }
+        return samples == 0 ? 0 : used * 1000 / samples;
+    }
+
+    private static int bucketIndex(long key, int length) {
+        // Upper key bits pick the bucket; the full key is still verified on probe.
+        return ((int) (key >>> 32) & (length / BUCKET_LONGS - 1)) * BUCKET_LONGS;
+    }
+}
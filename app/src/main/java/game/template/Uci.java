@@ -0,0 +1,441 @@
+package game.template;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Headless entry point speaking the UCI protocol on stdin/stdout, for GUIs, tournament
+ * harnesses and analysis farms. Uses only the engine classes, never JavaFX. The search runs
+ * on a background thread so {@code stop} and {@code isready} are answered while it thinks.
+ */
+public final class Uci {
+    private static final String NAME = "game-template";
+    private static final int MAX_HASH_MB = 65536;
+    private static final int MAX_THREADS = 512;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final ExecutorService engineThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "uci-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private SearchPool pool;
+    private int hashMegabytes = TranspositionTable.DEFAULT_MEGABYTES;
+    private int threads = 1;
+    private Position position = Position.initial();
+    private PolyglotBook book;
+    private boolean ownBook;
+    private int bookDepth = PolyglotBook.DEFAULT_MAX_PLY;
+    private final Random bookRandom = new Random();
+    private Tablebase tablebase;
+    private int tablebaseDepth = 1;
+    private CompletableFuture<Void> search; // Completes once its bestmove is sent or held
+    // "go infinite" and "go ponder" must not answer before "stop" (or "ponderhit"), even if
+    // the search ends on its own.
+    private boolean holdBestMove;
+    private String heldBestMove;
+    private SearchLimits searchLimits; // Of the latest search, for ponderhit
+
+    public Uci(BufferedReader in, PrintStream out) {
+        this.in = in;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        new Uci(in, new PrintStream(System.out, false, StandardCharsets.UTF_8)).run();
+    }
+
+    public void run() throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!handle(line.trim())) {
+                break;
+            }
+        }
+        waitForSearch();
+        openBook(null);
+        openTablebase(null);
+        engineThread.shutdownNow();
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /** Handles one command; false after {@code quit}. */
+    boolean handle(String line) {
+        String[] tokens = line.split("\\s+");
+        switch (tokens[0]) {
+            case "uci":
+                send("id name " + NAME);
+                send("id author the " + NAME + " authors");
+                send("option name Hash type spin default " + TranspositionTable.DEFAULT_MEGABYTES
+                        + " min 1 max " + MAX_HASH_MB);
+                send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                send("option name OwnBook type check default false");
+                send("option name BookFile type string default <empty>");
+                send("option name BookDepth type spin default " + PolyglotBook.DEFAULT_MAX_PLY + " min 0 max 200");
+                send("option name TablebasePath type string default <empty>");
+                send("option name TablebaseProbeDepth type spin default 1 min 1 max 100");
+                send("option name Ponder type check default false");
+                send("option name Metrics type check default " + EngineMetrics.enabled());
+                send("uciok");
+                break;
+            case "isready":
+                pool();
+                send("readyok");
+                break;
+            case "ucinewgame":
+                waitForSearch();
+                pool().table().clear();
+                position = Position.initial();
+                break;
+            case "setoption":
+                waitForSearch();
+                setOption(tokens);
+                break;
+            case "position":
+                waitForSearch();
+                setPosition(tokens);
+                break;
+            case "go":
+                waitForSearch();
+                go(tokens);
+                break;
+            case "stop":
+                stopSearch();
+                break;
+            case "ponderhit":
+                ponderhit();
+                break;
+            case "quit":
+                return false;
+            case "d":
+                send(position.toString().trim());
+                send("Fen: " + Fen.format(position));
+                send("Key: " + Long.toHexString(position.key()));
+                break;
+            case "metrics":
+                // Not UCI: "metrics" prints JSON, "metrics prometheus" the Prometheus text format.
+                send(tokens.length > 1 && tokens[1].equals("prometheus") ? EngineMetrics.toPrometheus().trim()
+                        : EngineMetrics.toJson());
+                break;
+            default:
+                if (!line.isEmpty()) {
+                    send("info string unknown command: " + line);
+                }
+        }
+        return true;
+    }
+
+    // Created on first use so that "uci" is answered before the tables are allocated.
+    private SearchPool pool() {
+        if (pool == null) {
+            pool = new SearchPool(threads, new TranspositionTable(hashMegabytes));
+            pool.setTablebase(tablebase, tablebaseDepth);
+        }
+        return pool;
+    }
+
+    private void setOption(String[] tokens) {
+        String name = valueAfter(tokens, "name", "value");
+        String value = valueAfter(tokens, "value", null);
+        try {
+            if ("Hash".equalsIgnoreCase(name)) {
+                hashMegabytes = Math.max(1, Math.min(Integer.parseInt(value), MAX_HASH_MB));
+                if (pool != null) {
+                    pool.table().resize(hashMegabytes);
+                }
+            } else if ("Threads".equalsIgnoreCase(name)) {
+                threads = Math.max(1, Math.min(Integer.parseInt(value), MAX_THREADS));
+                if (pool != null) {
+                    pool.setThreads(threads);
+                }
+            } else if ("OwnBook".equalsIgnoreCase(name)) {
+                ownBook = Boolean.parseBoolean(value);
+            } else if ("BookFile".equalsIgnoreCase(name)) {
+                openBook(value);
+            } else if ("BookDepth".equalsIgnoreCase(name)) {
+                bookDepth = Integer.parseInt(value);
+                if (book != null) {
+                    book.setMaxPly(bookDepth);
+                }
+            } else if ("TablebasePath".equalsIgnoreCase(name)) {
+                openTablebase(value);
+            } else if ("Ponder".equalsIgnoreCase(name)) {
+                // Nothing to set up: the GUI decides when to send "go ponder".
+            } else if ("Metrics".equalsIgnoreCase(name)) {
+                EngineMetrics.setEnabled(Boolean.parseBoolean(value));
+            } else if ("TablebaseProbeDepth".equalsIgnoreCase(name)) {
+                tablebaseDepth = Math.max(1, Integer.parseInt(value));
+                if (pool != null) {
+                    pool.setTablebase(tablebase, tablebaseDepth);
+                }
+            } else {
+                send("info string unknown option: " + name);
+            }
+        } catch (NumberFormatException | NullPointerException e) {
+            send("info string invalid value for " + name + ": " + value);
+        }
+    }
+
+    private void openBook(String path) {
+        if (book != null) {
+            try {
+                book.close();
+            } catch (IOException e) {
+                // Read-only mapping; nothing is lost if closing fails.
+            }
+            book = null;
+        }
+        if (path == null || path.isEmpty() || path.equals("<empty>")) {
+            return;
+        }
+        try {
+            book = PolyglotBook.open(Paths.get(path));
+            book.setMaxPly(bookDepth);
+            send("info string opened book " + path + " with " + book.size() + " entries");
+        } catch (IOException | InvalidPathException e) {
+            send("info string cannot open book " + path + ": " + e.getMessage());
+        }
+    }
+
+    private void openTablebase(String path) {
+        if (tablebase != null) {
+            tablebase.close();
+            tablebase = null;
+        }
+        if (path != null && !path.isEmpty() && !path.equals("<empty>")) {
+            try {
+                tablebase = Tablebase.open(Paths.get(path));
+                send("info string found " + tablebase.size() + " tablebases up to " + tablebase.maxPieces()
+                        + " pieces in " + path);
+            } catch (IOException | InvalidPathException e) {
+                send("info string cannot open tablebases " + path + ": " + e.getMessage());
+            }
+        }
+        if (pool != null) {
+            pool.setTablebase(tablebase, tablebaseDepth);
+        }
+    }
+
+    private void setPosition(String[] tokens) {
+        int index = 1;
+        Position next;
+        try {
+            if (tokens.length > 1 && tokens[1].equals("startpos")) {
+                next = Position.initial();
+                index = 2;
+            } else if (tokens.length > 1 && tokens[1].equals("fen")) {
+                StringBuilder fen = new StringBuilder();
+                for (index = 2; index < tokens.length && !tokens[index].equals("moves"); index++) {
+                    fen.append(tokens[index]).append(' ');
+                }
+                next = Fen.parse(fen.toString().trim());
+            } else {
+                send("info string expected startpos or fen");
+                return;
+            }
+        } catch (IllegalArgumentException e) {
+            send("info string invalid fen: " + e.getMessage());
+            return;
+        }
+        if (index < tokens.length && tokens[index].equals("moves")) {
+            for (index++; index < tokens.length; index++) {
+                int move = MoveGenerator.fromUci(next, tokens[index]);
+                if (move == Moves.NONE) {
+                    send("info string illegal move: " + tokens[index]);
+                    break;
+                }
+                next.makeMove(move);
+            }
+        }
+        position = next;
+    }
+
+    private void go(String[] tokens) {
+        long whiteTime = -1;
+        long blackTime = -1;
+        long whiteIncrement = 0;
+        long blackIncrement = 0;
+        int movesToGo = 0;
+        long moveTime = 0;
+        int depth = 0;
+        long nodes = 0;
+        boolean infinite = false;
+        boolean ponder = false;
+        try {
+            for (int i = 1; i < tokens.length; i++) {
+                switch (tokens[i]) {
+                    case "wtime":
+                        whiteTime = Long.parseLong(tokens[++i]);
+                        break;
+                    case "btime":
+                        blackTime = Long.parseLong(tokens[++i]);
+                        break;
+                    case "winc":
+                        whiteIncrement = Long.parseLong(tokens[++i]);
+                        break;
+                    case "binc":
+                        blackIncrement = Long.parseLong(tokens[++i]);
+                        break;
+                    case "movestogo":
+                        movesToGo = Integer.parseInt(tokens[++i]);
+                        break;
+                    case "movetime":
+                        moveTime = Long.parseLong(tokens[++i]);
+                        break;
+                    case "depth":
+                        depth = Integer.parseInt(tokens[++i]);
+                        break;
+                    case "nodes":
+                        nodes = Long.parseLong(tokens[++i]);
+                        break;
+                    case "infinite":
+                        infinite = true;
+                        break;
+                    case "ponder":
+                        ponder = true;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            send("info string invalid go command");
+            return;
+        }
+
+        boolean white = position.sideToMove() == Player.WHITE;
+        long remaining = white ? whiteTime : blackTime;
+        SearchLimits limits;
+        if (moveTime > 0) {
+            limits = TimeManager.forMoveTime(moveTime);
+        } else if (remaining >= 0 && !infinite) {
+            limits = TimeManager.forClock(remaining, white ? whiteIncrement : blackIncrement, movesToGo);
+        } else {
+            limits = SearchLimits.infinite();
+        }
+        if (depth > 0) {
+            limits.withDepth(depth);
+        }
+        if (nodes > 0) {
+            limits.withNodes(nodes);
+        }
+        if (ponder) {
+            limits.withPonder();
+        }
+
+        if (ownBook && book != null && !infinite && !ponder) {
+            int bookMove = book.pick(position, bookRandom);
+            if (bookMove != Moves.NONE) {
+                send("info string book move");
+                send("bestmove " + Moves.toUci(bookMove));
+                return;
+            }
+        }
+
+        SearchPool pool = pool();
+        pool.setListener(this::sendInfo);
+        synchronized (this) {
+            holdBestMove = infinite || ponder;
+            heldBestMove = null;
+            searchLimits = limits;
+        }
+        search = pool.searchAsync(position, limits, engineThread).handle((stats, error) -> {
+            if (error != null) {
+                send("info string search failed: " + error);
+            }
+            finish(stats);
+            return null;
+        });
+    }
+
+    // The second PV move is the reply we expect, which the GUI may let us ponder on.
+    private synchronized void finish(SearchStats stats) {
+        int bestMove = stats == null ? Moves.NONE : stats.bestMove();
+        String line = "bestmove " + Moves.toUci(bestMove);
+        if (stats != null && stats.principalVariation().length > 1) {
+            line += " ponder " + Moves.toUci(stats.principalVariation()[1]);
+        }
+        if (holdBestMove) {
+            heldBestMove = line;
+        } else {
+            send(line);
+        }
+    }
+
+    private void stopSearch() {
+        if (pool != null) {
+            pool.stop();
+        }
+        synchronized (this) {
+            holdBestMove = false;
+            if (heldBestMove != null) {
+                send(heldBestMove);
+                heldBestMove = null;
+            }
+        }
+    }
+
+    // The expected move was played: the ponder search carries on under its time limits.
+    private synchronized void ponderhit() {
+        if (searchLimits == null || !searchLimits.isPondering()) {
+            return;
+        }
+        searchLimits.ponderhit();
+        holdBestMove = false;
+        if (heldBestMove != null) {
+            send(heldBestMove);
+            heldBestMove = null;
+        }
+    }
+
+    private void waitForSearch() {
+        if (search != null && !search.isDone()) {
+            stopSearch();
+            search.join();
+        }
+    }
+
+    private void sendInfo(SearchStats stats) {
+        String score = stats.isMate() ? "mate " + stats.mateIn() : "cp " + stats.score();
+        send(String.format("info depth %d seldepth %d score %s nodes %d nps %d hashfull %d tbhits %d time %d pv %s",
+                stats.depth(), stats.selectiveDepth(), score, stats.nodes(), stats.nodesPerSecond(),
+                pool.table().hashfull(), stats.tablebaseHits(), stats.elapsedMillis(),
+                stats.principalVariationString()));
+    }
+
+    // Search threads report through here too, so lines are never interleaved.
+    private synchronized void send(String line) {
+        out.println(line);
+        out.flush();
+    }
+
+    /** The tokens after {@code key} up to {@code end}, joined by spaces; option names may contain spaces. */
+    private static String valueAfter(String[] tokens, String key, String end) {
+        StringBuilder value = new StringBuilder();
+        boolean inside = false;
+        for (String token : tokens) {
+            if (inside && token.equals(end)) {
+                break;
+            }
+            if (inside) {
+                value.append(value.length() > 0 ? " " : "").append(token);
+            }
+            inside |= token.equals(key);
+        }
+        return inside ? value.toString() : null;
+    }
+}
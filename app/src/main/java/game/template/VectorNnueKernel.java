@@ -0,0 +1,74 @@
+package game.template;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD kernel on the incubating Vector API. Only {@link NnueKernel#create()} instantiates it,
+ * after checking that the module is present. Network widths are multiples of 32, so every
+ * loop covers whole vectors up to 512 bits.
+ */
+final class VectorNnueKernel implements NnueKernel {
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    // Same bit size as SHORTS, so a short vector widens into exactly two of these.
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final short ACTIVATION_MAX = NnueNetwork.ACTIVATION_MAX;
+
+    private short[] activations = new short[0];
+
+    @Override
+    public void add(short[] accumulator, short[] weights, int offset) {
+        for (int i = 0; i < accumulator.length; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, i)
+                    .add(ShortVector.fromArray(SHORTS, weights, offset + i))
+                    .intoArray(accumulator, i);
+        }
+    }
+
+    @Override
+    public void subtract(short[] accumulator, short[] weights, int offset) {
+        for (int i = 0; i < accumulator.length; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, i)
+                    .sub(ShortVector.fromArray(SHORTS, weights, offset + i))
+                    .intoArray(accumulator, i);
+        }
+    }
+
+    @Override
+    public int forward(NnueNetwork network, short[] us, short[] them) {
+        int hidden = network.hidden;
+        if (activations.length != 2 * hidden) {
+            activations = new short[2 * hidden];
+        }
+        clamp(us, 0);
+        clamp(them, hidden);
+
+        short[] weights = network.denseWeights;
+        int output = network.outputBias;
+        for (int neuron = 0; neuron < network.layerSize; neuron++) {
+            int row = neuron * 2 * hidden;
+            IntVector sum = IntVector.zero(INTS);
+            for (int i = 0; i < 2 * hidden; i += SHORTS.length()) {
+                // Activations and int8 weights are both within 128, so the products fit in 16 bits.
+                ShortVector product = ShortVector.fromArray(SHORTS, activations, i)
+                        .mul(ShortVector.fromArray(SHORTS, weights, row + i));
+                sum = sum.add(product.convertShape(VectorOperators.S2I, INTS, 0))
+                        .add(product.convertShape(VectorOperators.S2I, INTS, 1));
+            }
+            int value = (network.denseBiases[neuron] + sum.reduceLanes(VectorOperators.ADD)) >> NnueNetwork.DENSE_SHIFT;
+            output += Math.max(0, Math.min(value, NnueNetwork.ACTIVATION_MAX)) * network.outputWeights[neuron];
+        }
+        return output / network.divisor;
+    }
+
+    private void clamp(short[] accumulator, int offset) {
+        for (int i = 0; i < accumulator.length; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, i)
+                    .max((short) 0)
+                    .min(ACTIVATION_MAX)
+                    .intoArray(activations, offset + i);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package game.template;
+
+import java.util.SplittableRandom;
+
+/** Random keys for incremental position hashing; fixed seed so keys are stable across runs. */
+public final class Zobrist {
+    static final long[][] PIECE_SQUARE = new long[12][64];
+    static final long[] CASTLING = new long[16];
+    static final long[] EN_PASSANT_FILE = new long[8];
+    static final long SIDE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_C0FFEEL);
+        for (long[] squares : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                squares[square] = random.nextLong();
+            }
+        }
+        for (int rights = 0; rights < 16; rights++) {
+            CASTLING[rights] = random.nextLong();
+        }
+        for (int file = 0; file < 8; file++) {
+            EN_PASSANT_FILE[file] = random.nextLong();
+        }
+        SIDE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /** Full recomputation; make/unmake keep {@link Position#key()} in sync without calling this. */
+    public static long compute(Position position) {
+        long key = 0;
+        for (int square = 0; square < 64; square++) {
+            int code = position.pieceAt(square);
+            if (code != Position.NO_PIECE) {
+                key ^= PIECE_SQUARE[code][square];
+            }
+        }
+        key ^= CASTLING[position.castlingRights()];
+        if (position.enPassantSquare() != Position.NO_SQUARE) {
+            key ^= EN_PASSANT_FILE[position.enPassantSquare() & 7];
+        }
+        if (position.sideToMove() == Player.BLACK) {
+            key ^= SIDE;
+        }
+        return key;
+    }
+}
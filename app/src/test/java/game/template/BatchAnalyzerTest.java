@@ -0,0 +1,40 @@
+package game.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class BatchAnalyzerTest {
+    @Test
+    void badPositionsGetAnErrorLineAndTheBatchGoesOn() throws Exception {
+        String input = String.join("\n",
+                Fen.INITIAL,
+                "4k3/8/8/8/8/8/4q3/4K3 b - - 0 1 id \"illegal\";",
+                "not a fen",
+                "# a comment",
+                "6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1 id \"mate\";");
+        StringWriter out = new StringWriter();
+        long analyzed;
+        try (BatchAnalyzer analyzer = new BatchAnalyzer(2, 16, SearchLimits.depth(3), out)) {
+            analyzer.submitLines(new BufferedReader(new StringReader(input)));
+            analyzed = analyzer.finish();
+            // Aged once for the batch, not once per position.
+            assertEquals(1, analyzer.table().age());
+        }
+        List<String> lines = Arrays.asList(out.toString().split("\n"));
+        assertEquals(4, analyzed);
+        assertEquals(4, lines.size());
+        assertEquals(2, lines.stream().filter(line -> line.contains("\"error\":")).count());
+        assertTrue(lines.stream().anyMatch(
+                line -> line.contains("\"label\":\"illegal\"") && line.contains("\"error\":")));
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"label\":\"mate\"")
+                && line.contains("\"bestmove\":\"d1d8\"") && line.contains("\"mate\":1")));
+    }
+}
@@ -0,0 +1,64 @@
+package game.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+
+class EngineMetricsTest {
+    @Test
+    void nanosecondHistogramKeepsSubMicrosecondTimings() {
+        LatencyHistogram nanos = new LatencyHistogram(TimeUnit.NANOSECONDS);
+        LatencyHistogram micros = new LatencyHistogram();
+        for (int i = 0; i < 100; i++) {
+            nanos.recordNanos(300);
+            micros.recordNanos(300);
+        }
+        assertEquals(300, nanos.percentile(50));
+        assertEquals(300, nanos.max());
+        assertEquals(0, nanos.percentileMicros(50));
+        assertEquals(0.3, nanos.meanMicros(), 1e-9);
+        assertEquals(0, micros.percentile(50));
+
+        nanos.recordNanos(2_000_000);
+        assertEquals(2000, nanos.maxMicros());
+        assertTrue(nanos.summary().endsWith("max 2.00 ms"), nanos.summary());
+    }
+
+    @Test
+    void collectedSearchesKeepTheirCountsButNotTheirRecorders() throws Exception {
+        EngineMetrics.setEnabled(true);
+        try {
+            assertTrue(ManagementFactory.getPlatformMBeanServer()
+                    .isRegistered(new ObjectName(EngineMetrics.OBJECT_NAME)));
+            EngineMetrics.reset();
+            long nodes = 0;
+            for (int i = 0; i < 20; i++) {
+                Search search = new Search(new TranspositionTable(1));
+                nodes += search.search(Position.initial(), SearchLimits.depth(3)).nodes();
+            }
+            Map<String, Number> before = EngineMetrics.snapshot();
+            assertEquals(20L, before.get("searches"));
+            assertEquals(nodes, before.get("nodes").longValue());
+            assertTrue(before.get("movegen_count").longValue() > 0);
+
+            for (int attempt = 0; attempt < 20 && EngineMetrics.liveRecorders() > 0; attempt++) {
+                System.gc();
+                Thread.sleep(10);
+            }
+            assertEquals(0, EngineMetrics.liveRecorders());
+            Map<String, Number> after = EngineMetrics.snapshot();
+            assertEquals(20L, after.get("searches"));
+            assertEquals(nodes, after.get("nodes").longValue());
+
+            EngineMetrics.reset();
+            assertEquals(0L, EngineMetrics.snapshot().get("nodes"));
+        } finally {
+            EngineMetrics.setEnabled(false);
+        }
+    }
+}
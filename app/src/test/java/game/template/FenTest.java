@@ -0,0 +1,73 @@
+package game.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class FenTest {
+    @Test
+    void formatRoundTripsWhatParseReads() {
+        for (Object[] test : Perft.SUITE) {
+            String fen = (String) test[0];
+            assertEquals(fen, Fen.format(Fen.parse(fen)));
+        }
+        assertEquals(Fen.INITIAL, Fen.format(Position.initial()));
+    }
+
+    @Test
+    void rejectsPositionsThatCannotBeSearched() {
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("4k3/8/8/8/8/8/4q3/4K3 b - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("4k3/8/8/8/8/8/8/r3K3 b - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("8/8/8/8/8/8/8/4K3 w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("4k3/8/8/8/8/8/8/4K3 x - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("4k3/8/8"));
+        // The side to move may of course be in check.
+        assertEquals(Player.WHITE, Fen.parse("4k3/8/8/8/8/8/4q3/4K3 w - - 0 1").sideToMove());
+    }
+
+    @Test
+    void rejectsEnPassantSquaresNoPawnSkipped() {
+        // d2xe3 "e.p." would remove White's own king.
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("4k3/8/8/8/8/8/3PK3/8 w - e3 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("4k3/8/8/3Pp3/8/8/8/4K3 w - e3 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("4k3/8/8/3P4/8/8/8/4K3 w - e6 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("4k3/4n3/8/3Pp3/8/8/8/4K3 w - e6 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("4k3/8/8/3Pp3/8/8/8/4K3 b - e6 0 1"));
+
+        Position position = Fen.parse("4k3/8/8/3Pp3/8/8/8/4K3 w - e6 0 1");
+        assertEquals(Fen.parseSquare("e6"), position.enPassantSquare());
+        assertEquals(2, Perft.divide(position, 1).keySet().stream().filter(move -> move.startsWith("d5")).count());
+        assertEquals(Fen.parseSquare("d3"), Fen.parse("4k3/8/8/8/2pP4/8/8/4K3 b - d3 0 1").enPassantSquare());
+    }
+
+    @Test
+    void epdOperationsAreStripped() {
+        assertEquals("4k3/8/8/8/8/8/4P3/4K3 w - -", Fen.fromEpd("4k3/8/8/8/8/8/4P3/4K3 w - - bm e4; id \"pawn\";"));
+        assertEquals(Fen.INITIAL, Fen.fromEpd(Fen.INITIAL));
+        String epd = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - id \"start\";";
+        assertEquals(Fen.INITIAL, Fen.format(Fen.parse(Fen.fromEpd(epd))));
+    }
+
+    @Test
+    void parsingIntoAUsedPositionStartsFromScratch() {
+        Position position = Position.initial();
+        position.makeMove(MoveGenerator.fromUci(position, "e2e4"));
+        String fen = "4k3/8/8/8/8/8/4P3/4K3 b - - 3 40";
+        assertEquals(fen, Fen.format(Fen.parse(fen, position)));
+        assertEquals(Fen.parse(fen).key(), position.key());
+        assertEquals(0, position.ply());
+    }
+
+    @Test
+    void generatorIgnoresEnPassantWithoutAPawnToTake() {
+        Position position = Fen.parse("4k3/8/8/8/8/8/3PK3/8 w - - 0 1");
+        position.setEnPassantSquare(Fen.parseSquare("e3"));
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generate(position, moves);
+        for (int i = 0; i < count; i++) {
+            assertNotEquals(Moves.EN_PASSANT, Moves.flags(moves[i]));
+        }
+    }
+}
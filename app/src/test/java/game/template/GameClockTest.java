@@ -0,0 +1,89 @@
+package game.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class GameClockTest {
+    private static final long MILLI = 1_000_000;
+
+    private long now;
+
+    private GameClock clock(long initialMillis, long incrementMillis, long delayMillis) {
+        return new GameClock(initialMillis, incrementMillis, delayMillis, () -> now);
+    }
+
+    @Test
+    void pressChargesTheTurnAndAddsTheIncrement() {
+        GameClock clock = clock(1000, 100, 0);
+        clock.start(Player.WHITE);
+        now += 300 * MILLI;
+        assertEquals(700, clock.remainingMillis(Player.WHITE));
+        clock.press();
+        assertEquals(800, clock.remainingMillis(Player.WHITE));
+        assertEquals(Player.BLACK, clock.running());
+        now += 50 * MILLI;
+        assertEquals(950, clock.remainingMillis(Player.BLACK));
+        assertEquals(800, clock.remainingMillis(Player.WHITE));
+    }
+
+    @Test
+    void delayRunsBeforeTheCountdown() {
+        GameClock clock = clock(1000, 0, 200);
+        clock.start(Player.WHITE);
+        now += 150 * MILLI;
+        assertEquals(1000, clock.remainingMillis(Player.WHITE));
+        now += 150 * MILLI;
+        assertEquals(900, clock.remainingMillis(Player.WHITE));
+    }
+
+    @Test
+    void stoppedClockDoesNotRun() {
+        GameClock clock = clock(1000, 0, 0);
+        clock.start(Player.BLACK);
+        now += 100 * MILLI;
+        clock.stop();
+        now += 500 * MILLI;
+        assertNull(clock.running());
+        assertEquals(900, clock.remainingMillis(Player.BLACK));
+        clock.start(Player.BLACK);
+        now += 100 * MILLI;
+        assertEquals(800, clock.remainingMillis(Player.BLACK));
+    }
+
+    @Test
+    void flagFallsAtZeroAndEarnsNoIncrement() {
+        GameClock clock = clock(100, 50, 0);
+        clock.start(Player.WHITE);
+        now += 99 * MILLI;
+        assertNull(clock.flagged());
+        now += MILLI;
+        assertEquals(Player.WHITE, clock.flagged());
+        clock.press();
+        assertEquals(0, clock.remainingMillis(Player.WHITE));
+        assertEquals(Player.WHITE, clock.flagged());
+    }
+
+    @Test
+    void resetClearsTheFlagAndRestoresBaseTime() {
+        GameClock clock = clock(100, 0, 0);
+        clock.start(Player.WHITE);
+        now += 200 * MILLI;
+        assertEquals(Player.WHITE, clock.flagged());
+        clock.reset();
+        assertNull(clock.flagged());
+        assertNull(clock.running());
+        assertEquals(100, clock.remainingMillis(Player.WHITE));
+        assertEquals(100, clock.remainingMillis(Player.BLACK));
+
+        clock.reset(5000, 20, 10);
+        assertEquals(5000, clock.remainingMillis(Player.BLACK));
+        assertEquals(20, clock.incrementMillis());
+        assertEquals(10, clock.delayMillis());
+        clock.start(Player.WHITE);
+        now += 1000 * MILLI;
+        assertNull(clock.flagged());
+        assertEquals(4010, clock.remainingMillis(Player.WHITE));
+    }
+}
@@ -0,0 +1,64 @@
+package game.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class GameServerTest {
+    @Test
+    void humanMovesGetEngineRepliesUntilClosed() throws Exception {
+        try (GameServer server = new GameServer(1, 1, 2_000, 0)) {
+            GameSession game = server.newGame(false, true);
+            String reply = game.play("e2e4").get(10, TimeUnit.SECONDS);
+            Position position = Position.initial();
+            position.makeMove(MoveGenerator.fromUci(position, "e2e4"));
+            assertNotEquals(Moves.NONE, MoveGenerator.fromUci(position, reply));
+            position.makeMove(MoveGenerator.fromUci(position, reply));
+            assertEquals(Fen.format(position), game.fen());
+            assertEquals(2, game.plies());
+
+            ExecutionException illegal = assertThrows(ExecutionException.class,
+                    () -> game.play("e1e5").get(10, TimeUnit.SECONDS));
+            assertTrue(illegal.getCause() instanceof IllegalArgumentException);
+            assertNull(game.result());
+
+            server.close(game.id());
+            assertEquals("*", game.finished().get(10, TimeUnit.SECONDS));
+            assertNull(server.session(game.id()));
+            ExecutionException over = assertThrows(ExecutionException.class,
+                    () -> game.play("d2d4").get(10, TimeUnit.SECONDS));
+            assertTrue(over.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    void closingAnEngineGameStopsItsSearches() throws Exception {
+        // No ply limit: only close can end this game early.
+        try (GameServer server = new GameServer(1, 1, 2_000, 0)) {
+            GameSession game = server.newGame(true, true);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (game.plies() < 4 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(game.plies() >= 4);
+            server.close(game.id());
+            String result = game.finished().get(10, TimeUnit.SECONDS);
+            int plies = game.plies();
+            if (result.equals("*")) {
+                // A search finishing just as the game closed may still be counted; nothing after it.
+                Thread.sleep(50);
+                long searches = server.scheduler().searches();
+                Thread.sleep(100);
+                assertEquals(plies, game.plies());
+                assertEquals(searches, server.scheduler().searches());
+                assertEquals(0, server.scheduler().pending());
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package game.template;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class GameStoreTest {
+    private static final String PGN = "[Event \"Caf\u00e9 open\"]\n[White \"A\"]\n[Black \"B\"]\n[Result \"1-0\"]\n\n"
+            + "1. e4 e5 2. Bc4 Nc6 3. Qh5 Nf6 4. Qxf7# 1-0\n\n"
+            + "[Event \"Endgame\"]\n[SetUp \"1\"]\n[FEN \"4k3/8/8/8/8/8/4P3/4K3 w - - 0 1\"]\n[Result \"*\"]\n\n"
+            + "1. e4 Kd7 *\n";
+
+    @Test
+    void gamesReadBackByIndexAndSurviveAnExport() throws IOException {
+        Path directory = Files.createTempDirectory("games");
+        Path pgn = directory.resolve("in.pgn");
+        Path store = directory.resolve("games.cgs");
+        Path exported = directory.resolve("out.pgn");
+        Path again = directory.resolve("again.cgs");
+        try {
+            Files.write(pgn, PGN.getBytes(StandardCharsets.UTF_8));
+            assertEquals(2, GameStore.importPgn(pgn, store));
+            try (GameStore games = GameStore.open(store)) {
+                assertEquals(2, games.size());
+                assertEquals(7, games.plies(0));
+                assertEquals(2, games.plies(1));
+                PgnGame last = games.game(1);
+                assertEquals("Endgame", last.tag("Event"));
+                assertEquals("4k3/8/8/8/8/8/4P3/4K3 w - - 0 1", last.startFen());
+                assertEquals("8/3k4/8/8/4P3/8/8/4K3 w - - 1 2", Fen.format(last.finalPosition()));
+                PgnGame first = games.game(0);
+                assertEquals("Caf\u00e9 open", first.tag("Event"));
+                assertEquals("1-0", first.result());
+                assertEquals("r1bqkb1r/pppp1Qpp/2n2n2/4p3/2B1P3/8/PPPP1PPP/RNB1K1NR b KQkq - 0 4",
+                        Fen.format(first.finalPosition()));
+                assertThrows(IndexOutOfBoundsException.class, () -> games.plies(2));
+            }
+            GameStore.exportPgn(store, exported);
+            GameStore.importPgn(exported, again);
+            try (GameStore original = GameStore.open(store); GameStore copy = GameStore.open(again)) {
+                for (int i = 0; i < original.size(); i++) {
+                    assertArrayEquals(original.game(i).moves(), copy.game(i).moves());
+                    // The export fills in the rest of the seven tag roster.
+                    for (Map.Entry<String, String> tag : original.game(i).tags().entrySet()) {
+                        assertEquals(tag.getValue(), copy.game(i).tag(tag.getKey()));
+                    }
+                }
+            }
+        } finally {
+            for (Path file : new Path[] {pgn, store, GameStore.indexPath(store), exported, again,
+                    GameStore.indexPath(again)}) {
+                Files.deleteIfExists(file);
+            }
+            Files.delete(directory);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package game.template;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class NnueTest {
+    private static final NnueNetwork NETWORK = NnueNetwork.random(1, 64, 32);
+
+    @Test
+    void vectorKernelMatchesTheScalarOne() {
+        NnueKernel scalar = new ScalarNnueKernel();
+        NnueKernel vector = new VectorNnueKernel();
+        SplittableRandom random = new SplittableRandom(7);
+        int hidden = NETWORK.hidden();
+        for (int round = 0; round < 200; round++) {
+            short[] us = randomAccumulator(random, hidden);
+            short[] them = randomAccumulator(random, hidden);
+            assertEquals(scalar.forward(NETWORK, us, them), vector.forward(NETWORK, us, them), "round " + round);
+
+            int offset = random.nextInt(NnueNetwork.FEATURES) * hidden;
+            short[] expected = Arrays.copyOf(us, hidden);
+            short[] actual = Arrays.copyOf(us, hidden);
+            scalar.add(expected, NETWORK.featureWeights, offset);
+            vector.add(actual, NETWORK.featureWeights, offset);
+            assertArrayEquals(expected, actual);
+            scalar.subtract(expected, NETWORK.featureWeights, offset);
+            vector.subtract(actual, NETWORK.featureWeights, offset);
+            assertArrayEquals(us, actual);
+        }
+    }
+
+    @Test
+    void incrementalUpdatesMatchAFreshEvaluation() {
+        // Castling and king moves refresh a perspective; captures, a promotion and en passant update it.
+        String[] line = {"e4", "d5", "exd5", "c6", "dxc6", "Nf6", "cxb7", "Bd7", "bxa8=Q", "e5", "Nf3", "e4",
+            "d4", "exd3", "Bxd3", "Be7", "O-O", "O-O", "Qxa7", "Nc6", "Kh1"};
+        NnueEvaluator evaluator = new NnueEvaluator(NETWORK);
+        Position position = Position.initial();
+        for (String san : line) {
+            position.makeMove(San.parse(position, san));
+            int fresh = new NnueEvaluator(NETWORK).evaluate(new Position(position));
+            assertEquals(fresh, evaluator.evaluate(position), san);
+        }
+        for (int i = line.length - 1; i >= 0; i--) {
+            position.unmakeMove();
+            int fresh = new NnueEvaluator(NETWORK).evaluate(new Position(position));
+            assertEquals(fresh, evaluator.evaluate(position), "undo " + line[i]);
+        }
+    }
+
+    private static short[] randomAccumulator(SplittableRandom random, int hidden) {
+        short[] accumulator = new short[hidden];
+        for (int i = 0; i < hidden; i++) {
+            accumulator[i] = (short) random.nextInt(-200, 400);
+        }
+        return accumulator;
+    }
+}
@@ -0,0 +1,44 @@
+package game.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The perft suite as the move generator's correctness gate under {@code gradle test}; deeper
+ * runs and speed figures stay with {@code gradle perft}.
+ */
+class PerftTest {
+    private static final int DEPTH = 4;
+
+    @Test
+    void standardPositionsMatchKnownCounts() {
+        for (Object[] test : Perft.SUITE) {
+            String fen = (String) test[0];
+            long[] expected = (long[]) test[1];
+            for (int depth = 1; depth <= DEPTH; depth++) {
+                assertEquals(expected[depth - 1], Perft.perft(Fen.parse(fen), depth), fen + " depth " + depth);
+            }
+        }
+    }
+
+    @Test
+    void divideSumsToPerft() {
+        Position position = Fen.parse((String) Perft.SUITE[1][0]);
+        long total = Perft.divide(position, 3).values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(Perft.perft(position, 3), total);
+        assertEquals(48, Perft.divide(position, 1).size());
+    }
+
+    @Test
+    void makeUnmakeRestoresThePosition() {
+        for (Object[] test : Perft.SUITE) {
+            Position position = Fen.parse((String) test[0]);
+            String fen = Fen.format(position);
+            long key = position.key();
+            Perft.perft(position, 3);
+            assertEquals(fen, Fen.format(position));
+            assertEquals(key, position.key());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package game.template;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class PgnTest {
+    private static final String GAME = "[Event \"Test\"]\n[White \"A\"]\n[Black \"B\"]\n[Result \"1-0\"]\n\n"
+            + "1. e4 {a comment (with a parenthesis} e5 $1 2. Qh5 (2. Nf3 Nc6) Nc6 3. Bc4 Nf6?? 4. Qxf7# 1-0\n";
+
+    @Test
+    void readsTheMainlineAroundCommentsNagsAndVariations() throws IOException {
+        PgnGame game = read(GAME);
+        assertEquals(7, game.moveCount());
+        assertEquals("1-0", game.result());
+        assertEquals("A", game.tag("White"));
+        assertEquals("r1bqkb1r/pppp1Qpp/2n2n2/4p3/2B1P3/8/PPPP1PPP/RNB1K1NR b KQkq - 0 4",
+                Fen.format(game.finalPosition()));
+    }
+
+    @Test
+    void writerOutputReadsBackToTheSameGame() throws IOException {
+        PgnGame game = read(GAME);
+        PgnGame copy = read(PgnWriter.toString(game));
+        assertArrayEquals(game.moves(), copy.moves());
+        assertEquals(game.result(), copy.result());
+        assertEquals("Test", copy.tag("Event"));
+    }
+
+    @Test
+    void gamesWithIllegalMovesAreSkippedAndCounted() throws IOException {
+        String bad = "[Event \"Bad\"]\n\n1. e4 e5 2. b5 *\n\n";
+        try (PgnReader reader = reader(bad + GAME)) {
+            PgnGame game = reader.next();
+            assertNotNull(game);
+            assertEquals("Test", game.tag("Event"));
+            assertNull(reader.next());
+            assertEquals(1, reader.games());
+            assertEquals(1, reader.errors());
+            assertNotNull(reader.lastError());
+        }
+    }
+
+    @Test
+    void setUpPositionsKeepTheirFen() throws IOException {
+        String fen = "4k3/8/8/8/8/8/4P3/4K3 w - - 0 1";
+        PgnGame game = read("[Event \"?\"]\n[SetUp \"1\"]\n[FEN \"" + fen + "\"]\n\n1. e4 Kd7 *\n");
+        assertEquals(fen, game.startFen());
+        assertEquals(2, game.moveCount());
+        assertArrayEquals(game.moves(), read(PgnWriter.toString(game)).moves());
+    }
+
+    @Test
+    void eachGameStartsAfreshOnTheReusedBoard() throws IOException {
+        String fen = "4k3/8/8/8/8/8/4P3/4K3 w - - 0 1";
+        String setUp = "[Event \"?\"]\n[SetUp \"1\"]\n[FEN \"" + fen + "\"]\n\n1. e4 Kd7 *\n\n";
+        try (PgnReader reader = reader(GAME + "\n" + setUp + GAME)) {
+            assertEquals(7, reader.next().moveCount());
+            PgnGame second = reader.next();
+            assertEquals(fen, second.startFen());
+            assertEquals("8/3k4/8/8/4P3/8/8/4K3 w - - 1 2", Fen.format(second.finalPosition()));
+            assertEquals(7, reader.next().moveCount());
+            assertEquals(0, reader.errors());
+        }
+    }
+
+    private static PgnGame read(String pgn) throws IOException {
+        try (PgnReader reader = reader(pgn)) {
+            PgnGame game = reader.next();
+            assertNotNull(game, pgn);
+            return game;
+        }
+    }
+
+    private static PgnReader reader(String pgn) {
+        return new PgnReader(Channels.newChannel(new ByteArrayInputStream(pgn.getBytes(StandardCharsets.UTF_8))));
+    }
+}
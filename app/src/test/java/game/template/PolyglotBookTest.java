@@ -0,0 +1,121 @@
+package game.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class PolyglotBookTest {
+    // The test positions of the Polyglot book format specification, reached from the start.
+    private static final String[][] SPEC_LINES = {
+        {"", "463b96181691fc9c"},
+        {"e2e4", "823c9b50fd114196"},
+        {"e2e4 d7d5", "0756b94461c50fb0"},
+        {"e2e4 d7d5 e4e5", "662fafb965db29d4"},
+        {"e2e4 d7d5 e4e5 f7f5", "22a48b5a8e47ff78"},
+        {"e2e4 d7d5 e4e5 f7f5 e1e2", "652a607ca3f242c1"},
+        {"e2e4 d7d5 e4e5 f7f5 e1e2 e8f7", "00fdd303c946bdd9"},
+        {"a2a4 b7b5 h2h4 b5b4 c2c4", "3c8123ea7b067637"},
+        {"a2a4 b7b5 h2h4 b5b4 c2c4 b4c3 a1a3", "5c3f9b829b279560"},
+    };
+
+    @Test
+    void keysMatchTheSpecification() {
+        for (String[] line : SPEC_LINES) {
+            Position position = play(line[0]);
+            assertEquals(Long.parseUnsignedLong(line[1], 16), PolyglotBook.key(position), line[0]);
+        }
+    }
+
+    @Test
+    void theTableIsTheFullPublishedOne() {
+        assertEquals(781, PolyglotBook.RANDOM64.length);
+        assertEquals(0x9D39247E33776D41L, PolyglotBook.RANDOM64[0]);
+        assertEquals(0xF8D626AAAF278509L, PolyglotBook.RANDOM64[780]);
+    }
+
+    @Test
+    void readsABookWrittenByAnotherTool() throws IOException {
+        Path file = Files.createTempFile("book", ".bin");
+        try {
+            ByteBuffer entry = ByteBuffer.allocate(2 * PolyglotBook.ENTRY_BYTES);
+            entry.putLong(0x463B96181691FC9CL).putShort((short) (28 | 12 << 6)).putShort((short) 3).putInt(0);
+            entry.putLong(0x463B96181691FC9CL).putShort((short) (27 | 11 << 6)).putShort((short) 1).putInt(0);
+            Files.write(file, entry.array());
+            try (PolyglotBook book = PolyglotBook.open(file)) {
+                List<PolyglotBook.Entry> entries = book.entries(Position.initial());
+                assertEquals(2, entries.size());
+                assertEquals("e2e4", Moves.toUci(entries.get(0).move()));
+                assertEquals(3, entries.get(0).weight());
+                assertEquals("d2d4", Moves.toUci(entries.get(1).move()));
+                assertEquals(0, book.entries(play("e2e4")).size());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void castlingIsEncodedAsKingTakesRook() {
+        Position position = Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        int castle = San.parse(position, "O-O");
+        assertEquals(7 | 4 << 6, PolyglotBook.encode(castle));
+        assertEquals(castle, PolyglotBook.decode(position, 7 | 4 << 6));
+        assertEquals(San.parse(position, "O-O-O"), PolyglotBook.decode(position, 0 | 4 << 6));
+    }
+
+    @Test
+    void builtBooksHoldTheMovesPlayed() throws IOException {
+        String pgn = "[Event \"?\"]\n\n1. e4 e5 2. Nf3 *\n\n"
+                + "[Event \"?\"]\n\n1. e4 c5 *\n\n"
+                + "[Event \"?\"]\n\n1. d4 d5 *\n";
+        PolyglotBookBuilder builder = new PolyglotBookBuilder(PolyglotBook.DEFAULT_MAX_PLY, 1);
+        try (PgnReader reader = new PgnReader(Channels.newChannel(new ByteArrayInputStream(
+                pgn.getBytes(StandardCharsets.UTF_8))))) {
+            PgnGame game;
+            while ((game = reader.next()) != null) {
+                builder.add(game);
+            }
+        }
+        Path file = Files.createTempFile("book", ".bin");
+        try {
+            builder.write(file);
+            try (PolyglotBook book = PolyglotBook.open(file)) {
+                List<PolyglotBook.Entry> entries = book.entries(Position.initial());
+                assertEquals(2, entries.size());
+                assertEquals("e2e4", Moves.toUci(entries.get(0).move()));
+                assertEquals(2, book.entries(play("e2e4")).size());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static Position play(String moves) {
+        Position position = Position.initial();
+        int[] legal = new int[MoveGenerator.MAX_MOVES];
+        for (String uci : moves.split(" ")) {
+            if (uci.isEmpty()) {
+                continue;
+            }
+            int count = MoveGenerator.generate(position, legal);
+            int move = Moves.NONE;
+            for (int i = 0; i < count; i++) {
+                if (Moves.toUci(legal[i]).equals(uci)) {
+                    move = legal[i];
+                }
+            }
+            assertEquals(uci, Moves.toUci(move));
+            position.makeMove(move);
+        }
+        return position;
+    }
+}
@@ -0,0 +1,59 @@
+package game.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+class PositionStoreTest {
+    @Test
+    void recordsReadBackInPlace() throws IOException {
+        String[] fens = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+            "4k3/8/8/8/8/8/4P3/4K3 b - - 57 212",
+        };
+        int[] scores = {15, -40_000, -7};
+        Path file = Files.createTempFile("positions", ".cps");
+        try {
+            try (PositionStore.Writer writer = PositionStore.create(file)) {
+                for (int i = 0; i < fens.length; i++) {
+                    writer.append(Fen.parse(fens[i]), scores[i], i);
+                }
+                assertEquals(fens.length, writer.positions());
+            }
+            assertEquals(8 + PositionStore.RECORD_BYTES * fens.length, Files.size(file));
+            try (PositionStore store = PositionStore.open(file)) {
+                assertEquals(fens.length, store.size());
+                Position position = new Position();
+                // Out of order, into one reused position.
+                for (int i = fens.length - 1; i >= 0; i--) {
+                    store.read(i, position);
+                    assertEquals(fens[i], Fen.format(position));
+                    assertEquals(Fen.parse(fens[i]).key, position.key);
+                    assertEquals(i, store.result(i));
+                }
+                assertEquals(15, store.score(0));
+                assertEquals(Short.MIN_VALUE, store.score(1)); // Clamped to 16 bits
+                assertThrows(IndexOutOfBoundsException.class, () -> store.read(3, position));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void otherFilesAreRejected() throws IOException {
+        Path file = Files.createTempFile("positions", ".cps");
+        try {
+            Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+            assertThrows(IOException.class, () -> PositionStore.open(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package game.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class SanTest {
+    private static final String BISHOP_ON_B5 = "rnbqkbnr/1ppppppp/p7/1B6/4P3/8/PPPP1PPP/RNBQK1NR b KQkq - 1 2";
+
+    @Test
+    void pawnMovesNeedTheirOwnNotation() {
+        Position position = Fen.parse(BISHOP_ON_B5);
+        assertEquals(Moves.NONE, San.parse(position, "b5"));
+        assertEquals("a6b5", Moves.toUci(San.parse(position, "axb5")));
+        assertEquals(Moves.NONE, San.parse(position, "xb5"));
+        assertEquals(Moves.NONE, San.parse(position, "cxb5"));
+        assertEquals(Moves.NONE, San.parse(position, "axa5"));
+        assertEquals("c7c5", Moves.toUci(San.parse(position, "c5")));
+        assertEquals("c7c6", Moves.toUci(San.parse(position, "c7c6")));
+        assertEquals(Moves.NONE, San.parse(position, "bc6"));
+    }
+
+    @Test
+    void enPassantAndPromotions() {
+        Position position = Fen.parse("4k3/1P6/8/3pP3/8/8/8/4K3 w - d6 0 1");
+        assertEquals("e5d6", Moves.toUci(San.parse(position, "exd6")));
+        assertEquals(Moves.NONE, San.parse(position, "d6"));
+        assertEquals("b7b8q", Moves.toUci(San.parse(position, "b8=Q+")));
+        assertEquals("b7b8n", Moves.toUci(San.parse(position, "b8N")));
+        assertEquals(Moves.NONE, San.parse(position, "b8"));
+    }
+
+    @Test
+    void piecesAreDisambiguatedOrRejected() {
+        Position position = Fen.parse("r3k2r/8/8/8/8/8/4K3/R6R w kq - 0 1");
+        assertEquals(Moves.NONE, San.parse(position, "Rd1"));
+        assertEquals("a1d1", Moves.toUci(San.parse(position, "Rad1")));
+        assertEquals("h1d1", Moves.toUci(San.parse(position, "Rhd1")));
+        assertEquals("Rhd1", San.format(position, San.parse(position, "Rhd1")));
+
+        position = Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        assertEquals("e1g1", Moves.toUci(San.parse(position, "O-O")));
+        assertEquals("e1c1", Moves.toUci(San.parse(position, "0-0-0")));
+        assertEquals("a1a8", Moves.toUci(San.parse(position, "Rxa8+")));
+    }
+
+    @Test
+    void everyLegalMoveSurvivesFormatAndParse() {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (Object[] test : Perft.SUITE) {
+            Position position = Fen.parse((String) test[0]);
+            int count = MoveGenerator.generate(position, moves);
+            for (int i = 0; i < count; i++) {
+                String san = San.format(position, moves[i]);
+                assertEquals(moves[i], San.parse(position, san), test[0] + " " + san);
+            }
+        }
+    }
+
+    @Test
+    void formatMarksChecksAndMates() {
+        Position position = Fen.parse("6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1");
+        assertEquals("Rd8#", San.format(position, San.parse(position, "Rd8")));
+        position = Fen.parse(BISHOP_ON_B5);
+        assertEquals("axb5", San.format(position, San.parse(position, "axb5")));
+    }
+}
@@ -0,0 +1,63 @@
+package game.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class SearchPoolTest {
+    @Test
+    void helpersAgreeOnAMateAndAgeTheTableOnce() {
+        SearchPool pool = new SearchPool(4);
+        try {
+            SearchStats stats = pool.search(Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), SearchLimits.depth(5));
+            assertEquals("a1a8", Moves.toUci(stats.bestMove()));
+            assertEquals(Search.MATE - 1, stats.score());
+            // Only the main worker starts a new table generation.
+            assertEquals(1, pool.table().age());
+            assertEquals(pool.nodes(), stats.nodes());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void stopEndsAnInfiniteSearchOnEveryThread() throws Exception {
+        SearchPool pool = new SearchPool(2);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            SearchLimits limits = SearchLimits.infinite();
+            CompletableFuture<SearchStats> search = pool.searchAsync(Position.initial(), limits, executor);
+            Thread.sleep(100);
+            pool.stop();
+            SearchStats stats = search.get(10, TimeUnit.SECONDS);
+            assertNotEquals(Moves.NONE, stats.bestMove());
+            long nodes = pool.nodes();
+            Thread.sleep(50);
+            assertEquals(nodes, pool.nodes(), "no worker is still searching");
+        } finally {
+            executor.shutdownNow();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void resizingKeepsTheSharedTable() {
+        SearchPool pool = new SearchPool(1);
+        try {
+            TranspositionTable table = pool.table();
+            pool.setThreads(3);
+            assertEquals(3, pool.threads());
+            SearchStats stats = pool.search(Position.initial(), SearchLimits.depth(4));
+            assertEquals(4, stats.depth());
+            assertEquals(table, pool.table());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
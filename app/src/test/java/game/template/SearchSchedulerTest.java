@@ -0,0 +1,77 @@
+package game.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class SearchSchedulerTest {
+    private static final String MIDDLEGAME = "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4";
+
+    @Test
+    void slicesResumeAtTheNextDepthAndAgeTheTableOnce() {
+        TranspositionTable table = new TranspositionTable(16);
+        Search search = new Search(table);
+        long budget = 100_000;
+        Search.Progress progress = new Search.Progress(Fen.parse(MIDDLEGAME), SearchLimits.nodes(budget));
+        int depth = 0;
+        int slices = 0;
+        while (!progress.done()) {
+            SearchStats stats = search.searchSlice(progress, 2_000);
+            slices++;
+            if (!progress.done()) {
+                // Every slice but the last ends on a completed iteration.
+                assertTrue(stats.depth() > depth, "slice " + slices + " stayed at depth " + depth);
+                assertEquals(progress.nodes, stats.nodes());
+            }
+            depth = stats.depth();
+        }
+        assertTrue(slices > 1);
+        assertEquals(1, table.age());
+        // Limits are checked every 2048 nodes.
+        assertTrue(progress.nodes < budget + 2048);
+        assertNotEquals(Moves.NONE, progress.best().bestMove());
+    }
+
+    @Test
+    void interleavedRequestsAllCompleteWithinTheirBudgets() {
+        TranspositionTable table = new TranspositionTable(16);
+        SearchScheduler scheduler = new SearchScheduler(1, table, 1_000);
+        try {
+            CompletableFuture<SearchStats> first = scheduler.submit(Fen.parse(MIDDLEGAME), 20_000);
+            CompletableFuture<SearchStats> second = scheduler.submit(Position.initial(), 20_000);
+            Position matedPosition = Fen.parse("7k/6Q1/6K1/8/8/8/8/8 b - - 0 1");
+            CompletableFuture<SearchStats> mated = scheduler.submit(matedPosition, 20_000);
+            assertNotEquals(Moves.NONE, first.join().bestMove());
+            assertNotEquals(Moves.NONE, second.join().bestMove());
+            assertEquals(Moves.NONE, mated.join().bestMove());
+            assertTrue(first.join().nodes() < 20_000 + 2048 && second.join().nodes() < 20_000 + 2048);
+            assertEquals(3, scheduler.searches());
+            assertEquals(3, table.age());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void shutdownFailsSearchesBetweenSlices() throws Exception {
+        SearchScheduler scheduler = new SearchScheduler(1, new TranspositionTable(1), 1_000);
+        CompletableFuture<?>[] searches = new CompletableFuture<?>[4];
+        for (int i = 0; i < searches.length; i++) {
+            searches[i] = scheduler.submit(Position.initial(), 100_000_000);
+        }
+        Thread.sleep(50);
+        scheduler.shutdown();
+        for (CompletableFuture<?> search : searches) {
+            ExecutionException failed = assertThrows(ExecutionException.class, () -> search.get(10, TimeUnit.SECONDS));
+            assertTrue(failed.getCause() instanceof IllegalStateException);
+        }
+        assertTrue(scheduler.submit(Position.initial(), 1_000).isCompletedExceptionally());
+    }
+}
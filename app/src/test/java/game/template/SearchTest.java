@@ -0,0 +1,51 @@
+package game.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class SearchTest {
+    @Test
+    void findsABackRankMate() {
+        SearchStats stats = new Search().search(Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), SearchLimits.depth(4));
+        assertEquals("a1a8", Moves.toUci(stats.bestMove()));
+        assertEquals(Search.MATE - 1, stats.score());
+        assertEquals(1, stats.mateIn());
+    }
+
+    @Test
+    void seesItIsGettingMated() {
+        // Kb8 is forced, then Rh8 mates.
+        SearchStats stats = new Search().search(Fen.parse("k7/8/1K6/8/8/8/8/7R b - - 0 1"), SearchLimits.depth(4));
+        assertEquals("a8b8", Moves.toUci(stats.bestMove()));
+        assertEquals(-(Search.MATE - 2), stats.score());
+        assertEquals(-1, stats.mateIn());
+    }
+
+    @Test
+    void takesAnUndefendedQueen() {
+        SearchStats stats = new Search().search(Fen.parse("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1"), SearchLimits.depth(3));
+        assertEquals("d2d5", Moves.toUci(stats.bestMove()));
+        assertTrue(stats.score() > 400, stats.toString());
+    }
+
+    @Test
+    void stopsAtTheDepthLimitAndLeavesTheRootAlone() {
+        Position root = Position.initial();
+        String before = Fen.format(root);
+        SearchStats stats = new Search().search(root, SearchLimits.depth(4));
+        assertEquals(4, stats.depth());
+        assertEquals(before, Fen.format(root));
+        assertTrue(stats.principalVariation().length > 0);
+        assertEquals(stats.principalVariation()[0], stats.bestMove());
+    }
+
+    @Test
+    void stopsNearTheNodeLimit() {
+        SearchStats stats = new Search().search(Position.initial(), SearchLimits.nodes(20_000));
+        // Limits are checked every 2048 nodes.
+        assertTrue(stats.nodes() <= 20_000 + 2048, stats.toString());
+        assertTrue(stats.bestMove() != Moves.NONE);
+    }
+}
@@ -0,0 +1,89 @@
+package game.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class SelfPlayMatchTest {
+    private static SelfPlayMatch.Score score(int wins, int losses, int draws) {
+        SelfPlayMatch.Score score = new SelfPlayMatch.Score();
+        for (int i = 0; i < wins; i++) {
+            score.add(1);
+        }
+        for (int i = 0; i < losses; i++) {
+            score.add(-1);
+        }
+        for (int i = 0; i < draws; i++) {
+            score.add(0);
+        }
+        return score;
+    }
+
+    @Test
+    void eloAndExpectedScoreAreInverse() {
+        assertEquals(0.5, SelfPlayMatch.Score.expectedScore(0), 1e-12);
+        assertEquals(10.0 / 11, SelfPlayMatch.Score.expectedScore(400), 1e-12);
+        for (double elo = -600; elo <= 600; elo += 50) {
+            assertEquals(elo, SelfPlayMatch.Score.elo(SelfPlayMatch.Score.expectedScore(elo)), 1e-9);
+        }
+    }
+
+    @Test
+    void eloAndErrorFollowTheScore() {
+        SelfPlayMatch.Score even = score(100, 100, 200);
+        assertEquals(0, even.elo(), 1e-9);
+        // Per-game standard deviation sqrt(1/8) over 400 games.
+        double error = 1.959964 * Math.sqrt(0.125 / 400);
+        double expected = (SelfPlayMatch.Score.elo(0.5 + error) - SelfPlayMatch.Score.elo(0.5 - error)) / 2;
+        assertEquals(expected, even.eloError(), 1e-9);
+
+        SelfPlayMatch.Score ahead = score(300, 100, 100);
+        assertEquals(SelfPlayMatch.Score.elo(0.7), ahead.elo(), 1e-9);
+        assertTrue(ahead.eloError() > 0);
+        assertEquals(0, new SelfPlayMatch.Score().eloError(), 0);
+    }
+
+    @Test
+    void llrSidesWithTheHypothesisTheScoreSupports() {
+        SelfPlayMatch.Score ahead = score(600, 400, 1000);
+        SelfPlayMatch.Score even = score(500, 500, 1000);
+        assertTrue(ahead.llr(0, 10) > Math.log((1 - 0.05) / 0.05));
+        assertTrue(even.llr(0, 10) < 0);
+        // Swapping the hypotheses negates the ratio.
+        assertEquals(-ahead.llr(0, 10), ahead.llr(10, 0), 1e-9);
+        assertTrue(Double.isFinite(score(10, 0, 0).llr(0, 5)));
+    }
+
+    @Test
+    void engineSpecCarriesSearchOptions() throws Exception {
+        String spec = "name=deep,eval=material,hash=4,threads=2,depth=3,nodes=500";
+        SelfPlayMatch.Engine engine = SelfPlayMatch.Engine.parse(spec);
+        assertEquals("deep", engine.name());
+        assertTrue(engine.newEvaluator() instanceof MaterialEvaluator);
+        assertEquals(4, engine.hashMegabytes());
+        assertEquals(2, engine.threads());
+        SearchLimits limits = engine.limits(SearchLimits.nodes(20_000));
+        assertEquals(3, limits.depth());
+        assertEquals(500, limits.nodes());
+
+        SelfPlayMatch.Engine plain = SelfPlayMatch.Engine.parse("name=plain");
+        assertEquals(1, plain.threads());
+        assertEquals(20_000, plain.limits(SearchLimits.nodes(20_000)).nodes());
+        assertThrows(IllegalArgumentException.class, () -> SelfPlayMatch.Engine.parse("name=x,ponder=on"));
+    }
+
+    @Test
+    void matchPlaysEveryGameWithPerEngineLimits() throws Exception {
+        SelfPlayMatch.Engine first = SelfPlayMatch.Engine.parse("name=a,hash=1,threads=2,depth=2");
+        SelfPlayMatch.Engine second = SelfPlayMatch.Engine.parse("name=b,hash=1,nodes=2000");
+        SelfPlayMatch match = new SelfPlayMatch(first, second, Collections.emptyList());
+        match.setMaxPlies(20);
+        SelfPlayMatch.Score score = match.run(4, 2);
+        assertEquals(4, score.games());
+        assertTrue(match.nodesPerSecond(0) > 0);
+        assertTrue(match.nodesPerSecond(1) > 0);
+    }
+}
@@ -0,0 +1,123 @@
+package game.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Generates the three-piece tables once and checks them against known results: KQvK mates
+ * in at most 10 moves and KRvK in at most 16, KBvK and KNvK never mate.
+ */
+class TablebaseTest {
+    private static Tablebase tables;
+
+    private static synchronized Tablebase tables() throws IOException, InterruptedException {
+        if (tables == null) {
+            Path directory = Files.createTempDirectory("tablebases");
+            TablebaseGenerator.main(new String[] {directory.toString(), "3"});
+            tables = Tablebase.open(directory);
+            directory.toFile().deleteOnExit();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    file.toFile().deleteOnExit();
+                }
+            }
+        }
+        return tables;
+    }
+
+    @Test
+    void longestMatesMatchPublishedResults() throws Exception {
+        Tablebase tables = tables();
+        // Plies for the side to mate to move; one more when the defender moves first.
+        assertEquals(19, longest(tables, Position.code(Player.WHITE, ChessPiece.QUEEN), Player.WHITE));
+        assertEquals(20, longest(tables, Position.code(Player.WHITE, ChessPiece.QUEEN), Player.BLACK));
+        assertEquals(31, longest(tables, Position.code(Player.WHITE, ChessPiece.ROOK), Player.WHITE));
+        assertEquals(32, longest(tables, Position.code(Player.WHITE, ChessPiece.ROOK), Player.BLACK));
+        assertEquals(0, longest(tables, Position.code(Player.WHITE, ChessPiece.BISHOP), Player.WHITE));
+        assertEquals(0, longest(tables, Position.code(Player.WHITE, ChessPiece.KNIGHT), Player.WHITE));
+    }
+
+    @Test
+    void probesScoreMatesStalematesAndDraws() throws Exception {
+        Tablebase tables = tables();
+        assertEquals(Search.MATE - 1, tables.probe(Fen.parse("7k/8/6K1/8/8/8/8/1Q6 w - - 0 1")));
+        assertEquals(-Search.MATE, tables.probe(Fen.parse("Q6k/8/6K1/8/8/8/8/8 b - - 0 1")));
+        assertEquals(0, tables.probe(Fen.parse("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1")));
+        assertEquals(0, tables.probe(Fen.parse("4k3/4P3/4K3/8/8/8/8/8 b - - 0 1")));
+        assertEquals(Search.MATE - 1, tables.probe(Fen.parse("6k1/8/6K1/8/8/8/8/R7 w - - 0 1")));
+        assertEquals(-Search.MATE + 2, tables.probe(Fen.parse("7k/8/6K1/8/8/8/8/R7 b - - 0 1")));
+        // Colours reversed use the same table.
+        assertEquals(Search.MATE - 1, tables.probe(Fen.parse("1q6/8/8/8/8/6k1/8/7K b - - 0 1")));
+        assertEquals(Tablebase.UNKNOWN, tables.probe(Position.initial()));
+    }
+
+    @Test
+    void bestMovesMateInTheStoredDistance() throws Exception {
+        Tablebase tables = tables();
+        Position position = Fen.parse("8/8/8/4k3/8/8/8/K6R w - - 0 1");
+        int score = tables.probe(position);
+        int plies = Search.MATE - score;
+        int[] line = tables.line(position, 64);
+        assertEquals(plies, line.length);
+        for (int move : line) {
+            position.makeMove(move);
+        }
+        assertTrue(MoveGenerator.isInCheck(position));
+        assertEquals(0, MoveGenerator.generate(position, new int[MoveGenerator.MAX_MOVES]));
+    }
+
+    @Test
+    void onlyOldPawnAgainstPawnTablesAreRejected() throws Exception {
+        long pawns = (1L << 4 * Position.code(Player.WHITE, ChessPiece.PAWN))
+                + (1L << 4 * Position.code(Player.BLACK, ChessPiece.PAWN));
+        long rookAgainstPawn = (1L << 4 * Position.code(Player.WHITE, ChessPiece.ROOK))
+                + (1L << 4 * Position.code(Player.BLACK, ChessPiece.PAWN));
+        // En passant needs a pawn on each side, so only those version 1 tables are wrong.
+        assertTrue(Tablebase.builtWithoutEnPassant(pawns, 1));
+        assertFalse(Tablebase.builtWithoutEnPassant(pawns, Tablebase.VERSION));
+        assertFalse(Tablebase.builtWithoutEnPassant(rookAgainstPawn, 1));
+        Path file = Files.createTempFile("KPvKP", ".ctb");
+        try {
+            Files.write(file, new byte[] {0x43, 0x48, 0x54, 0x42, 1, 0, 0, 0});
+            assertEquals(1, Tablebase.version(file));
+            Files.write(file, new byte[] {1, 2, 3});
+            assertEquals(0, Tablebase.version(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    // The longest mate in plies over every legal placement of two kings and one white piece.
+    private static int longest(Tablebase tables, int piece, Player side) {
+        Position position = new Position();
+        int longest = 0;
+        for (int whiteKing = 0; whiteKing < 64; whiteKing++) {
+            for (int blackKing = 0; blackKing < 64; blackKing++) {
+                for (int square = 0; square < 64; square++) {
+                    if (whiteKing == blackKing || square == whiteKing || square == blackKing
+                            || piece % 6 == 0 && (square < 8 || square >= 56)) {
+                        continue;
+                    }
+                    position.clear();
+                    position.put(Position.code(Player.WHITE, ChessPiece.KING), whiteKing);
+                    position.put(Position.code(Player.BLACK, ChessPiece.KING), blackKing);
+                    position.put(piece, square);
+                    position.setSideToMove(side);
+                    int score = tables.probe(position);
+                    if (score != Tablebase.UNKNOWN && score != 0) {
+                        longest = Math.max(longest, Search.MATE - Math.abs(score));
+                    }
+                }
+            }
+        }
+        return longest;
+    }
+}
@@ -0,0 +1,50 @@
+package game.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+class TranspositionTableTest {
+    // Keys with the same upper half share a bucket of four entries.
+    private static final long BUCKET = 5L << 32;
+
+    @Test
+    void entriesRoundTripAndKeepTheirMoveOnMovelessStores() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = BUCKET | 0x1234;
+        assertEquals(0, table.probe(key));
+        table.store(key, 0x12345, -123, 7, TranspositionTable.BOUND_LOWER);
+        long data = table.probe(key);
+        assertEquals(0x12345, TranspositionTable.move(data));
+        assertEquals(-123, TranspositionTable.score(data));
+        assertEquals(7, TranspositionTable.depth(data));
+        assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.bound(data));
+        assertEquals(0, table.probe(key ^ 1));
+
+        table.store(key, Moves.NONE, 40, 9, TranspositionTable.BOUND_EXACT);
+        data = table.probe(key);
+        assertEquals(0x12345, TranspositionTable.move(data));
+        assertEquals(40, TranspositionTable.score(data));
+        table.clear();
+        assertEquals(0, table.probe(key));
+    }
+
+    @Test
+    void staleDeepEntriesAreReplacedBeforeFreshShallowOnes() {
+        TranspositionTable table = new TranspositionTable(1);
+        for (int i = 1; i <= 3; i++) {
+            table.store(BUCKET | i, Moves.NONE, 0, 20, TranspositionTable.BOUND_EXACT);
+        }
+        // Three searches later each old entry is worth 20 - 3 * 8 plies, less than a fresh depth 2.
+        table.newSearch();
+        table.newSearch();
+        table.newSearch();
+        table.store(BUCKET | 4, Moves.NONE, 0, 2, TranspositionTable.BOUND_EXACT);
+        table.store(BUCKET | 5, Moves.NONE, 0, 1, TranspositionTable.BOUND_EXACT);
+        assertEquals(0, table.probe(BUCKET | 1));
+        assertNotEquals(0L, table.probe(BUCKET | 2), "only one old entry is evicted");
+        assertNotEquals(0L, table.probe(BUCKET | 4), "the fresh entry survives");
+        assertNotEquals(0L, table.probe(BUCKET | 5), "the new entry is stored");
+    }
+}
@@ -0,0 +1,96 @@
+package game.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class UciTest {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final Uci uci = new Uci(new BufferedReader(new StringReader("")),
+            new PrintStream(bytes, true, StandardCharsets.UTF_8));
+
+    private List<String> lines(String prefix) {
+        List<String> lines = new ArrayList<>();
+        for (String line : bytes.toString(StandardCharsets.UTF_8).split("\\R")) {
+            if (line.startsWith(prefix)) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private List<String> awaitLines(String prefix, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + 20_000_000_000L;
+        while (lines(prefix).size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        return lines(prefix);
+    }
+
+    private static void assertLegal(Position position, String bestmove) {
+        String move = bestmove.split(" ")[1];
+        assertNotEquals(Moves.NONE, MoveGenerator.fromUci(position, move), bestmove);
+    }
+
+    @Test
+    void handshakeAndSearch() throws Exception {
+        uci.handle("uci");
+        uci.handle("isready");
+        assertEquals(List.of("uciok"), lines("uciok"));
+        assertEquals(List.of("readyok"), lines("readyok"));
+        uci.handle("position startpos moves e2e4");
+        uci.handle("go depth 3");
+        List<String> bestmoves = awaitLines("bestmove", 1);
+        assertEquals(1, bestmoves.size());
+        Position position = Position.initial();
+        position.makeMove(MoveGenerator.fromUci(position, "e2e4"));
+        assertLegal(position, bestmoves.get(0));
+        assertFalse(lines("info depth 3").isEmpty());
+        uci.run();
+    }
+
+    @Test
+    void ponderSearchHoldsItsMoveUntilPonderhit() throws Exception {
+        uci.handle("position startpos moves e2e4 e7e5");
+        uci.handle("go ponder depth 3 wtime 60000 btime 60000");
+        awaitLines("info depth 3", 1);
+        Thread.sleep(100);
+        assertTrue(lines("bestmove").isEmpty(), "answered while pondering");
+        uci.handle("ponderhit");
+        List<String> bestmoves = awaitLines("bestmove", 1);
+        assertEquals(1, bestmoves.size());
+        uci.run();
+        assertEquals(1, lines("bestmove").size());
+    }
+
+    @Test
+    void ponderMissAnswersTheOldSearchOnceBeforeTheNew() throws Exception {
+        uci.handle("position startpos moves e2e4 e7e5");
+        uci.handle("go ponder wtime 60000 btime 60000");
+        awaitLines("info depth 2", 1);
+        // The opponent played something else: stop, then search the real position.
+        uci.handle("stop");
+        uci.handle("position startpos moves e2e4 c7c5");
+        int before = lines("bestmove").size();
+        uci.handle("go depth 2");
+        List<String> bestmoves = awaitLines("bestmove", 2);
+        uci.run();
+        assertEquals(1, before, "the stopped search must answer before the next go");
+        assertEquals(2, lines("bestmove").size());
+        Position position = Position.initial();
+        for (String move : new String[] {"e2e4", "c7c5"}) {
+            position.makeMove(MoveGenerator.fromUci(position, move));
+        }
+        assertLegal(position, bestmoves.get(1));
+    }
+}
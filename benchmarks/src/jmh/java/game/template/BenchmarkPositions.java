@@ -0,0 +1,59 @@
+package game.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The perft suite under the names the chess programming wiki uses, for {@code @Param} values,
+ * plus the middlegame and endgame suite the search benchmarks time to a fixed depth.
+ * Benchmarks live in the engine's package so they can reuse its package-private suites.
+ */
+final class BenchmarkPositions {
+    static final String[] NAMES = {"initial", "kiwipete", "position3", "position4", "position5", "position6"};
+
+    static final String[] SEARCH = {
+        Fen.INITIAL,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+        "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4",
+        "r2q1rk1/pp2bppp/2n1bn2/3p4/3P4/2NBBN2/PP3PPP/R2Q1RK1 w - - 0 11",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1",
+    };
+
+    private static final int SAMPLE_COUNT = 1024;
+    private static final int PLAYOUT_PLIES = 40;
+
+    private BenchmarkPositions() {
+    }
+
+    static Position byName(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equals(name)) {
+                return Fen.parse((String) Perft.SUITE[i][0]);
+            }
+        }
+        throw new IllegalArgumentException("Unknown benchmark position: " + name);
+    }
+
+    /** Positions reached by seeded random play from the {@link #SEARCH} suite, the same on every run. */
+    static Position[] sample() {
+        SplittableRandom random = new SplittableRandom(42);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        List<Position> positions = new ArrayList<>(SAMPLE_COUNT);
+        while (positions.size() < SAMPLE_COUNT) {
+            Position position = Fen.parse(SEARCH[positions.size() % SEARCH.length]);
+            for (int ply = 0; ply < PLAYOUT_PLIES && positions.size() < SAMPLE_COUNT; ply++) {
+                int count = MoveGenerator.generate(position, moves);
+                if (count == 0) {
+                    break;
+                }
+                position.makeMove(moves[random.nextInt(count)]);
+                positions.add(new Position(position));
+            }
+        }
+        return positions.toArray(new Position[0]);
+    }
+}
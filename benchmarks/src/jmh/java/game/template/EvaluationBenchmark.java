@@ -0,0 +1,48 @@
+package game.template;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Static evaluation after each legal move of positions sampled by
+ * {@link BenchmarkPositions#sample}, so incremental state such as NNUE accumulators is updated
+ * the way a search updates it. One operation evaluates every child of one position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EvaluationBenchmark {
+    @Param({"material", "classic", "nnue"})
+    public String evaluator;
+
+    private Evaluator eval;
+    private Position[] positions;
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        eval = SearchBenchmark.evaluator(evaluator);
+        positions = BenchmarkPositions.sample();
+    }
+
+    @Benchmark
+    public void evaluateChildren(Blackhole blackhole) {
+        Position position = positions[next++ % positions.length];
+        int count = MoveGenerator.generate(position, moves);
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            blackhole.consume(eval.evaluate(position));
+            position.unmakeMove();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package game.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Load test for {@link GameServer}. {@link #playGames} runs {@code games} games at once, half
+ * engine against engine and half against simulated humans who answer instantly with a random
+ * legal move; teardown prints the move latency percentiles. {@link #openIdleSessions} opens
+ * and closes {@code games} idle sessions, so the {@code gc} profiler's allocation per operation
+ * over the game count is the cost of one session.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class GameServerBenchmark {
+    @Param({"1000"})
+    public int games;
+
+    @Param({"500"})
+    public long nodesPerMove;
+
+    @Param({"40"})
+    public int maxPlies;
+
+    private GameServer server;
+    private ExecutorService clientThreads;
+
+    @Setup
+    public void setUp() {
+        server = new GameServer(Runtime.getRuntime().availableProcessors(), 64, nodesPerMove, maxPlies);
+        clientThreads = GameServer.newSessionExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.printf("%s session threads%n", GameServer.usesVirtualThreads() ? "virtual" : "platform");
+        System.out.println("engine move " + server.engineLatency().summary());
+        System.out.println("human move  " + server.humanLatency().summary());
+        clientThreads.shutdownNow();
+        server.close();
+    }
+
+    @Benchmark
+    public long playGames() {
+        List<GameSession> sessions = new ArrayList<>();
+        List<CompletableFuture<?>> clients = new ArrayList<>();
+        for (int i = 0; i < games; i++) {
+            if (i % 2 == 0) {
+                sessions.add(server.newGame(true, true));
+            } else {
+                GameSession session = server.newGame(false, true);
+                sessions.add(session);
+                clients.add(CompletableFuture.runAsync(() -> playRandomly(session, session.id()), clientThreads));
+            }
+        }
+        long plies = 0;
+        for (GameSession session : sessions) {
+            session.finished().join();
+            plies += session.plies();
+            server.close(session.id());
+        }
+        CompletableFuture.allOf(clients.toArray(CompletableFuture<?>[]::new)).join();
+        return plies;
+    }
+
+    @Benchmark
+    public int openIdleSessions() {
+        List<GameSession> idle = new ArrayList<>();
+        for (int i = 0; i < games; i++) {
+            idle.add(server.newGame(false, false));
+        }
+        int open = server.sessions();
+        for (GameSession session : idle) {
+            server.close(session.id());
+        }
+        return open;
+    }
+
+    // A human who replies at once with a random legal move, as long as the game goes on.
+    private static void playRandomly(GameSession session, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        while (session.result() == null) {
+            Position position = Fen.parse(session.fen());
+            int count = MoveGenerator.generate(position, moves);
+            if (count == 0) {
+                break;
+            }
+            try {
+                session.play(Moves.toUci(moves[random.nextInt(count)])).join();
+            } catch (RuntimeException e) {
+                break; // The game ended while the move was on its way.
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package game.template;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Binary archive rates: converting PGN to a {@link GameStore}, reading every game in order,
+ * reading one game at random, and reading back every position of a {@link PositionStore}.
+ * The archive is the {@code pgnFile} parameter, or else synthetic random games. Setup checks
+ * the PGN round trip, failing the run on any mismatch, and prints the bytes per move, which
+ * no score shows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class GameStoreBenchmark {
+    @Param({""})
+    public String pgnFile;
+
+    @Param({"20000"})
+    public int syntheticGames;
+
+    private Path directory;
+    private Path pgn;
+    private GameStore archive;
+    private PositionStore labelled;
+    private final Position position = new Position();
+    private final SplittableRandom random = new SplittableRandom(1);
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("game-store");
+        pgn = pgnFile.isEmpty() ? directory.resolve("games.pgn") : Path.of(pgnFile);
+        if (pgnFile.isEmpty()) {
+            PgnBenchmark.writeRandomGames(pgn, syntheticGames, 1);
+        }
+        Path store = directory.resolve("games.bin");
+        GameStore.importPgn(pgn, store);
+        Path exported = directory.resolve("exported.pgn");
+        GameStore.exportPgn(store, exported);
+        long mismatches = compare(pgn, exported);
+        if (mismatches > 0) {
+            throw new IllegalStateException(mismatches + " games changed in the PGN round trip");
+        }
+
+        archive = GameStore.open(store);
+        long plies = 0;
+        for (int i = 0; i < archive.size(); i++) {
+            plies += archive.plies(i);
+        }
+        long storeBytes = Files.size(store) + Files.size(GameStore.indexPath(store));
+        System.out.printf("%d games, %d plies: %.2f bytes/move (data), %.2f bytes/move (with index)%n",
+                archive.size(), plies, (Files.size(store) - GameStore.HEADER_BYTES) / (double) plies,
+                storeBytes / (double) plies);
+
+        Path positions = directory.resolve("positions.bin");
+        writePositions(archive, positions);
+        labelled = PositionStore.open(positions);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        archive.close();
+        labelled.close();
+        for (String name : new String[] {"games.pgn", "games.bin", "exported.pgn", "positions.bin", "import.bin"}) {
+            Path file = directory.resolve(name);
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(GameStore.indexPath(file));
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public long importPgn() throws IOException {
+        return GameStore.importPgn(pgn, directory.resolve("import.bin"));
+    }
+
+    @Benchmark
+    public long readSequential() {
+        long plies = 0;
+        for (int i = 0; i < archive.size(); i++) {
+            plies += archive.game(i).moveCount();
+        }
+        return plies;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int readRandom() {
+        return archive.game(random.nextInt(archive.size())).moveCount();
+    }
+
+    @Benchmark
+    public long readPositions() {
+        long checksum = 0;
+        for (long i = 0; i < labelled.size(); i++) {
+            labelled.read(i, position);
+            checksum += position.key() + labelled.score(i);
+        }
+        return checksum;
+    }
+
+    private static long compare(Path expected, Path actual) throws IOException {
+        long mismatches = 0;
+        try (PgnReader left = PgnReader.open(expected); PgnReader right = PgnReader.open(actual)) {
+            PgnGame a;
+            PgnGame b;
+            while ((a = left.next()) != null) {
+                b = right.next();
+                if (b == null || !Arrays.equals(a.moves(), b.moves()) || !a.result().equals(b.result())
+                        || !a.tags().equals(b.tags())) {
+                    mismatches++;
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    private static void writePositions(GameStore archive, Path positions) throws IOException {
+        Evaluator evaluator = new ClassicEvaluator();
+        try (PositionStore.Writer writer = PositionStore.create(positions)) {
+            for (int i = 0; i < archive.size(); i++) {
+                PgnGame game = archive.game(i);
+                int result = Arrays.asList(GameStore.RESULTS).indexOf(game.result());
+                int label = result == 1 ? 2 : result == 2 ? 0 : result == 3 ? 1 : PositionStore.UNKNOWN_RESULT;
+                Position position = game.startPosition();
+                for (int ply = 0; ply < game.moveCount(); ply++) {
+                    writer.append(position, evaluator.evaluate(position), label);
+                    position.makeMove(game.move(ply));
+                }
+            }
+        }
+    }
+}
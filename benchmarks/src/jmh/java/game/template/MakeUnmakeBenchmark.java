@@ -0,0 +1,42 @@
+package game.template;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Make and unmake of every legal move of a position; one operation covers all of them. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MakeUnmakeBenchmark {
+    @Param({"initial", "kiwipete", "position3", "position4", "position5", "position6"})
+    public String position;
+
+    private Position board;
+    private int[] moves;
+
+    @Setup
+    public void setUp() {
+        board = BenchmarkPositions.byName(position);
+        int[] buffer = new int[MoveGenerator.MAX_MOVES];
+        moves = Arrays.copyOf(buffer, MoveGenerator.generate(board, buffer));
+    }
+
+    @Benchmark
+    public void makeUnmake(Blackhole blackhole) {
+        for (int move : moves) {
+            board.makeMove(move);
+            blackhole.consume(board.key());
+            board.unmakeMove();
+        }
+    }
+}
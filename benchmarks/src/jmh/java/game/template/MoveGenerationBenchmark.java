@@ -0,0 +1,44 @@
+package game.template;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Legal move generation, all moves and captures only, per position. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MoveGenerationBenchmark {
+    @Param({"initial", "kiwipete", "position3", "position4", "position5", "position6"})
+    public String position;
+
+    private Position board;
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+    @Setup
+    public void setUp() {
+        board = BenchmarkPositions.byName(position);
+    }
+
+    @Benchmark
+    public int generate() {
+        return MoveGenerator.generate(board, moves);
+    }
+
+    @Benchmark
+    public int generateCaptures() {
+        return MoveGenerator.generateCaptures(board, moves);
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return MoveGenerator.isInCheck(board);
+    }
+}
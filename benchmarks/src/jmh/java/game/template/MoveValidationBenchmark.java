@@ -0,0 +1,60 @@
+package game.template;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Single-move checks as the UI makes them on every click: {@code App.isValidMove} tests the
+ * clicked target against {@link MoveGenerator#targets}, and {@link MoveGenerator#find} turns
+ * the click into a move. Each operation checks one of a fixed mix of own-piece clicks, half of
+ * them to a legal target.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MoveValidationBenchmark {
+    private static final int CLICKS = 256;
+
+    @Param({"initial", "kiwipete", "position3", "position4", "position5", "position6"})
+    public String position;
+
+    private Position board;
+    private final int[] from = new int[CLICKS];
+    private final int[] to = new int[CLICKS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        board = BenchmarkPositions.byName(position);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generate(board, moves);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < CLICKS; i++) {
+            int move = moves[random.nextInt(count)];
+            from[i] = Moves.from(move);
+            to[i] = i % 2 == 0 ? Moves.to(move) : random.nextInt(64);
+        }
+    }
+
+    @Benchmark
+    public boolean isValidMove() {
+        int i = next++ & (CLICKS - 1);
+        return board.ownerAt(from[i]) == board.sideToMove()
+                && (MoveGenerator.targets(board, from[i]) & (1L << to[i])) != 0;
+    }
+
+    @Benchmark
+    public int find() {
+        int i = next++ & (CLICKS - 1);
+        return MoveGenerator.find(board, from[i], to[i]);
+    }
+}
@@ -0,0 +1,39 @@
+package game.template;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Perft to depth 5 from the standard positions; {@code Perft.main} checks the counts. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class PerftBenchmark {
+    private static final int DEPTH = 5;
+
+    @Param({"initial", "kiwipete", "position3", "position4", "position5", "position6"})
+    public String position;
+
+    private Position board;
+
+    @Setup
+    public void setUp() {
+        board = BenchmarkPositions.byName(position);
+    }
+
+    @Benchmark
+    public long perft() {
+        return Perft.perft(board, DEPTH);
+    }
+}
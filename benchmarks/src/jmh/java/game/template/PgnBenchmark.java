@@ -0,0 +1,135 @@
+package game.template;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PGN import throughput: one operation reads the whole archive, with one streaming reader or
+ * with {@link PgnReader#forEach} at each thread count, so games per second is the game count
+ * over the score. The archive is the {@code pgnFile} parameter, or else a synthetic archive of
+ * random legal games with comments, NAGs and variations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class PgnBenchmark {
+    @Param({""})
+    public String pgnFile;
+
+    @Param({"20000"})
+    public int syntheticGames;
+
+    private Path path;
+
+    @Setup
+    public void setUp() throws IOException {
+        if (pgnFile.isEmpty()) {
+            path = Files.createTempFile("pgn-benchmark", ".pgn");
+            writeRandomGames(path, syntheticGames, 1);
+        } else {
+            path = Path.of(pgnFile);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (pgnFile.isEmpty()) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Benchmark
+    public long streaming() throws IOException {
+        try (PgnReader reader = PgnReader.open(path)) {
+            while (reader.next() != null) {
+                // Parsing and move validation are the work being measured.
+            }
+            return reader.games() + reader.errors();
+        }
+    }
+
+    @Benchmark
+    public long parallel(ReaderThreads threads) throws IOException {
+        LongAdder plies = new LongAdder();
+        PgnReader.forEach(path, threads.threads, game -> plies.add(game.moveCount()));
+        return plies.sum();
+    }
+
+    /** Reader threads for {@link #parallel}, kept apart so {@link #streaming} runs once. */
+    @State(Scope.Benchmark)
+    public static class ReaderThreads {
+        @Param({"1", "2", "4", "8"})
+        public int threads;
+    }
+
+    static void writeRandomGames(Path path, int games, long seed) throws IOException {
+        Random random = new Random(seed);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (int game = 1; game <= games; game++) {
+                Position position = Position.initial();
+                StringBuilder movetext = new StringBuilder();
+                String result = "*";
+                for (int ply = 0; ply < 160; ply++) {
+                    int count = MoveGenerator.generate(position, moves);
+                    if (count == 0) {
+                        result = MoveGenerator.isInCheck(position)
+                                ? (position.sideToMove() == Player.WHITE ? "0-1" : "1-0") : "1/2-1/2";
+                        break;
+                    }
+                    int move = moves[random.nextInt(count)];
+                    if (ply % 2 == 0) {
+                        movetext.append(ply / 2 + 1).append(". ");
+                    }
+                    movetext.append(San.format(position, move)).append(' ');
+                    if (random.nextInt(40) == 0) {
+                        movetext.append("$").append(1 + random.nextInt(6)).append(" {A comment (with a parenthesis} ");
+                    } else if (random.nextInt(60) == 0) {
+                        movetext.append("(").append(San.format(position, moves[random.nextInt(count)])).append(") ");
+                    }
+                    position.makeMove(move);
+                }
+                movetext.append(result);
+
+                out.write("[Event \"Synthetic\"]\n[Site \"?\"]\n[Date \"????.??.??\"]\n[Round \"" + game + "\"]\n");
+                out.write("[White \"Random\"]\n[Black \"Random\"]\n[Result \"" + result + "\"]\n\n");
+                writeWrapped(out, movetext);
+                out.write("\n\n");
+            }
+        }
+    }
+
+    // PGN export format keeps lines under 80 characters.
+    private static void writeWrapped(BufferedWriter out, CharSequence movetext) throws IOException {
+        int lineStart = 0;
+        while (movetext.length() - lineStart > 79) {
+            int end = lineStart + 79;
+            while (movetext.charAt(end) != ' ') {
+                end--;
+            }
+            out.append(movetext, lineStart, end).append('\n');
+            lineStart = end + 1;
+        }
+        out.append(movetext, lineStart, movetext.length());
+    }
+}
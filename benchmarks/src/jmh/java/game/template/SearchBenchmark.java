@@ -0,0 +1,78 @@
+package game.template;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single-threaded fixed-depth search over the {@link BenchmarkPositions#SEARCH} suite with a
+ * cleared table per position, for each evaluator. The NNUE evaluator uses the network named by
+ * the {@code benchmark.nnue} property, or else a random network of the default size, whose
+ * tree differs from a trained network's.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class SearchBenchmark {
+    private static final NnueNetwork NETWORK = network();
+
+    @Param({"material", "classic", "nnue"})
+    public String evaluator;
+
+    @Param({"6"})
+    public int depth;
+
+    private Search search;
+
+    @Setup
+    public void setUp() {
+        search = new Search(new TranspositionTable(64));
+        search.setEvaluator(evaluator(evaluator));
+    }
+
+    @Benchmark
+    public long searchSuite() {
+        long nodes = 0;
+        for (String fen : BenchmarkPositions.SEARCH) {
+            search.table().clear();
+            nodes += search.search(Fen.parse(fen), SearchLimits.depth(depth)).nodes();
+        }
+        return nodes;
+    }
+
+    private static NnueNetwork network() {
+        String file = System.getProperty("benchmark.nnue", "");
+        try {
+            return file.isEmpty() ? NnueNetwork.random(1, 256, 32) : NnueNetwork.load(Path.of(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Evaluator evaluator(String name) {
+        switch (name) {
+            case "material":
+                return new MaterialEvaluator();
+            case "classic":
+                return new ClassicEvaluator();
+            case "nnue":
+                return new NnueEvaluator(NETWORK);
+            default:
+                throw new IllegalArgumentException("Unknown evaluator: " + name);
+        }
+    }
+}
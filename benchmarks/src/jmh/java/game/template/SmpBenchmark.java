@@ -0,0 +1,61 @@
+package game.template;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lazy SMP scaling: time to a fixed depth over the {@link BenchmarkPositions#SEARCH} suite with
+ * a cleared table per position, at each thread count. Speedup is the 1-thread score over the
+ * n-thread score; the returned node count, divided by the score, gives nodes per second.
+ * Counts above the core count only measure oversubscription.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class SmpBenchmark {
+    @Param({"1", "2", "4", "8", "16"})
+    public int threads;
+
+    @Param({"8"})
+    public int depth;
+
+    @Param({"256"})
+    public int hashMb;
+
+    private TranspositionTable table;
+    private SearchPool pool;
+
+    @Setup
+    public void setUp() {
+        table = new TranspositionTable(hashMb);
+        pool = new SearchPool(threads, table);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public long searchSuite() {
+        long nodes = 0;
+        for (String fen : BenchmarkPositions.SEARCH) {
+            table.clear();
+            nodes += pool.search(Fen.parse(fen), SearchLimits.depth(depth)).nodes();
+        }
+        return nodes;
+    }
+}